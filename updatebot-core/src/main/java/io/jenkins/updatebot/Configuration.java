@@ -18,13 +18,19 @@ package io.jenkins.updatebot;
 import com.beust.jcommander.Parameter;
 import io.jenkins.updatebot.git.GitPlugin;
 import io.jenkins.updatebot.git.GitPluginCLI;
+import io.jenkins.updatebot.git.GitPluginJGit;
+import io.jenkins.updatebot.github.CachingHttpConnector;
+import io.jenkins.updatebot.github.GitHubGraphQLClient;
+import io.jenkins.updatebot.kind.maven.PomHelper;
 import io.jenkins.updatebot.kind.npm.DefaultNpmDependencyTreeGenerator;
+import io.jenkins.updatebot.kind.npm.LockfileNpmDependencyTreeGenerator;
 import io.jenkins.updatebot.kind.npm.NpmDependencyTreeGenerator;
 import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.model.RepositoryConfigs;
 import io.jenkins.updatebot.phab.ConduitAPIClient;
 import io.jenkins.updatebot.support.Strings;
 import io.jenkins.updatebot.support.Systems;
+import io.jenkins.updatebot.support.ThreadPools;
 import io.jenkins.updatebot.support.UserPassword;
 import org.fusesource.jansi.Ansi;
 import org.kohsuke.github.AbuseLimitHandler;
@@ -38,9 +44,12 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
 
 import static org.fusesource.jansi.Ansi.Color.*;
 import static org.fusesource.jansi.Ansi.ansi;
@@ -50,6 +59,11 @@ import static org.fusesource.jansi.Ansi.ansi;
  */
 public class Configuration {
     public static final String DEFAULT_CONFIG_FILE = ".updatebot.yml";
+    public static final String GIT_ENGINE_CLI = "cli";
+    public static final String GIT_ENGINE_JGIT = "jgit";
+    public static final String NPM_DEPENDENCY_TREE_INSTALL = "install";
+    public static final String NPM_DEPENDENCY_TREE_LOCKFILE = "lockfile";
+    public static final String DEFAULT_PLUGINS_UPDATE_CENTER_URL = "http://ftp-chi.osuosl.org/pub/jenkins/updates/current/update-center.actual.json";
     public static final String DEFAULT_JENKINSFILE_LIBRARY_GIT_URL = "https://github.com/fabric8io/fabric8-jenkinsfile-library.git";
     // ANSI escapes for various colors (or empty strings if no coloring is used)
     public static Ansi.Color
@@ -75,12 +89,35 @@ public class Configuration {
     private String githubPassword = Systems.getConfigValue(EnvironmentVariables.GITHUB_PASSWORD);
     @Parameter(names = {"--github-token", "-ght"}, description = "GitHub Token")
     private String githubToken = Systems.getConfigValue(EnvironmentVariables.GITHUB_TOKEN);
+    @Parameter(names = {"--github-api-url"}, description = "The URL of the GitHub API such as https://github.example.com/api/v3 for GitHub Enterprise")
+    private String githubApiUrl = Systems.getConfigValue(EnvironmentVariables.GITHUB_API_URL, GitHubGraphQLClient.GITHUB_API_URL);
+    @Parameter(names = {"--github-graphql"}, description = "Whether to query the state of pull requests in batches using the GitHub GraphQL API", arity = 1)
+    private boolean githubGraphQL = Systems.isConfigBoolean(EnvironmentVariables.GITHUB_GRAPHQL, true);
+    @Parameter(names = {"--github-cache-size"}, description = "The maximum size in MB of the on disk cache of GitHub API responses in the work directory or 0 to disable it")
+    private long githubCacheSize = Systems.getConfigLongValue(EnvironmentVariables.GITHUB_CACHE_SIZE, 50);
+    @Parameter(names = {"--github-repository-cache-ttl"}, description = "The number of minutes before the cached list of repositories of each GitHub organisation is fully reloaded or 0 to disable the cache")
+    private long githubRepositoryCacheTtl = Systems.getConfigLongValue(EnvironmentVariables.GITHUB_REPOSITORY_CACHE_TTL, 60);
+    private CachingHttpConnector githubCache;
     @Parameter(names = "--check", description = "Whether or not we should check dependencies are valid before submitting Pull Requests", arity = 1)
     private boolean checkDependencies = true;
     @Parameter(names = {"--dir", "-d"}, description = "The source directory containing the git clone of the source to process")
     private String sourcePath;
     @Parameter(names = {"--https"}, description = "Whether to use HTTPS transport instead of git and SSH")
     private boolean useHttpsTransport;
+    @Parameter(names = {"--parallelism"}, description = "The maximum number of repositories to process concurrently")
+    private int parallelism = (int) Systems.getConfigLongValue(EnvironmentVariables.PARALLELISM, 1);
+    @Parameter(names = {"--fetch-parallelism"}, description = "The maximum number of repositories to clone or pull concurrently while other repositories are processed")
+    private int fetchParallelism = (int) Systems.getConfigLongValue(EnvironmentVariables.FETCH_PARALLELISM, 1);
+    @Parameter(names = {"--git-engine"}, description = "The git implementation to use: `cli` to invoke the git executable or `jgit` to run git in process")
+    private String gitEngine = Systems.getConfigValue(EnvironmentVariables.GIT_ENGINE, GIT_ENGINE_CLI);
+    @Parameter(names = {"--clone-depth"}, description = "If greater than zero then repositories are shallow cloned with the given history depth")
+    private int cloneDepth = (int) Systems.getConfigLongValue(EnvironmentVariables.CLONE_DEPTH, 0);
+    @Parameter(names = {"--clone-single-branch"}, description = "Whether to only clone the branch of each repository which is updated")
+    private boolean cloneSingleBranch = Systems.isConfigFlag(EnvironmentVariables.CLONE_SINGLE_BRANCH);
+    @Parameter(names = {"--clone-filter"}, description = "The partial clone filter to use when cloning repositories such as `blob:none`")
+    private String cloneFilter = Systems.getConfigValue(EnvironmentVariables.CLONE_FILTER);
+    @Parameter(names = {"--clone-reference"}, description = "Whether to share git objects between clones using a reference repository in the work directory")
+    private boolean cloneReference = Systems.isConfigFlag(EnvironmentVariables.CLONE_REFERENCE);
     @Parameter(names = {"--disable-ansi"}, description = "Whether to disable the use of ANSI colours in the output")
     private boolean disableAnsi;
 
@@ -92,8 +129,24 @@ public class Configuration {
 
     @Parameter(names = {"--mvn"}, description = "The location of the `mvn` executable for invoking maven")
     private String mvnCommand = Systems.getConfigValue(EnvironmentVariables.MVN_COMMAND, "mvn");
+    @Parameter(names = {"--mvn-export-in-process"}, description = "Whether to export the maven versions by reading the pom.xml files directly, only running maven if the versions need the full maven model", arity = 1)
+    private boolean mvnExportInProcess = Systems.isConfigBoolean(EnvironmentVariables.MVN_EXPORT_IN_PROCESS, true);
+    @Parameter(names = {"--pom-follow-modules"}, description = "Whether to only update the pom.xml files in the reactor of the root pom.xml by following its modules rather than all pom.xml files", arity = 1)
+    private boolean pomFollowModules = Systems.isConfigBoolean(EnvironmentVariables.POM_FOLLOW_MODULES, false);
+    @Parameter(names = {"--pom-ignore"}, description = "The comma separated list of ant style patterns of directories to ignore when looking for pom.xml files")
+    private String pomIgnore = Systems.getConfigValue(EnvironmentVariables.POM_IGNORE, String.join(",", PomHelper.DEFAULT_IGNORE_PATTERNS));
+    @Parameter(names = {"--pom-parallelism"}, description = "The maximum number of pom.xml files of a repository to parse, update and save concurrently")
+    private int pomParallelism = (int) Systems.getConfigLongValue(EnvironmentVariables.POM_PARALLELISM, 1);
+    @Parameter(names = {"--regex-parallelism"}, description = "The maximum number of files to update concurrently when pushing regex changes")
+    private int regexParallelism = (int) Systems.getConfigLongValue(EnvironmentVariables.REGEX_PARALLELISM, 1);
     @Parameter(names = {"--npm"}, description = "The location of the `npm` executable for invoking nodejs tooling")
     private String npmCommand = Systems.getConfigValue(EnvironmentVariables.NPM_COMMAND, "npm");
+    @Parameter(names = {"--npm-dependency-tree"}, description = "How to find the npm dependency tree when checking dependencies: `install` to run `npm install` and `npm list` or `lockfile` to read the package-lock.json or npm-shrinkwrap.json file without installing")
+    private String npmDependencyTree = Systems.getConfigValue(EnvironmentVariables.NPM_DEPENDENCY_TREE, NPM_DEPENDENCY_TREE_INSTALL);
+    @Parameter(names = {"--plugins-update-center-url"}, description = "The URL or file name of the Jenkins update center JSON used to find the latest plugin versions")
+    private String pluginsUpdateCenterUrl = Systems.getConfigValue(EnvironmentVariables.PLUGINS_UPDATE_CENTER_URL, DEFAULT_PLUGINS_UPDATE_CENTER_URL);
+    @Parameter(names = {"--plugins-update-center-ttl"}, description = "The number of minutes before the cached Jenkins update center is checked for changes")
+    private long pluginsUpdateCenterTtl = Systems.getConfigLongValue(EnvironmentVariables.PLUGINS_UPDATE_CENTER_TTL, 60);
     @Parameter(names = {"--jenkinsfile-git-repo"}, description = "The git URL to clone for the Jenkinsfile library")
     private String jenksinsfileGitRepo = Systems.getConfigValue(EnvironmentVariables.JENKINSFILE_GIT_REPO, DEFAULT_JENKINSFILE_LIBRARY_GIT_URL);
     @Parameter(names = {"--pr-command"}, description = "The Prow Pull Request command to append to Pull Request body content")
@@ -101,11 +154,12 @@ public class Configuration {
 
     private File sourceDir;
     private boolean rebaseMode = true;
-    private NpmDependencyTreeGenerator npmDependencyTreeGenerator = new DefaultNpmDependencyTreeGenerator();
+    private NpmDependencyTreeGenerator npmDependencyTreeGenerator;
     private boolean pullDisabled;
     private Map<String, String> pollStatusCache = new TreeMap<>();
     private PrintStream printStream;
-    private GitPlugin git = new GitPluginCLI(this);
+    private GitPlugin git;
+    private ExecutorService pomExecutor;
     private Map<String, String> mvnEnvironmentVariables;
     private Map<String, String> npmEnvironmentVariables;
     private boolean ansiInitialised;
@@ -113,9 +167,12 @@ public class Configuration {
     private Map<String, UserPassword> gitCredentials = new HashMap<>();
     private boolean ignoreExcludeUpdateLoopRepositories;
 
-    public GitHub getGithub() throws IOException {
+    public synchronized GitHub getGithub() throws IOException {
         if (github == null) {
             GitHubBuilder ghb = new GitHubBuilder();
+            if (Strings.notEmpty(githubApiUrl)) {
+                ghb.withEndpoint(githubApiUrl);
+            }
             String username = getGithubUsername();
             String password = getGithubPassword();
             String token = getGithubToken();
@@ -130,12 +187,40 @@ public class Configuration {
             }
             ghb.withRateLimitHandler(RateLimitHandler.WAIT).
                     withAbuseLimitHandler(AbuseLimitHandler.WAIT);
+            if (githubCacheSize > 0) {
+                File cacheDir = new File(getWorkDir(), "github-cache");
+                githubCache = new CachingHttpConnector(cacheDir, githubCacheSize * 1024 * 1024);
+                ghb.withConnector(githubCache);
+            }
             this.github = ghb.build();
         }
         return this.github;
     }
 
-    public ConduitAPIClient getConduitAPIClient() {
+    /**
+     * Returns the cache of GitHub responses so we can report its hit and miss counts or null if it is disabled
+     */
+    public CachingHttpConnector getGithubCache() {
+        return githubCache;
+    }
+
+    public long getGithubCacheSize() {
+        return githubCacheSize;
+    }
+
+    public void setGithubCacheSize(long githubCacheSize) {
+        this.githubCacheSize = githubCacheSize;
+    }
+
+    public long getGithubRepositoryCacheTtl() {
+        return githubRepositoryCacheTtl;
+    }
+
+    public void setGithubRepositoryCacheTtl(long githubRepositoryCacheTtl) {
+        this.githubRepositoryCacheTtl = githubRepositoryCacheTtl;
+    }
+
+    public synchronized ConduitAPIClient getConduitAPIClient() {
         if (conduitClient == null && Strings.notEmpty(conduitToken)) {
             conduitClient = new ConduitAPIClient(phabHost, conduitToken);
         }
@@ -182,6 +267,25 @@ public class Configuration {
         this.githubToken = githubToken;
     }
 
+    /**
+     * Returns true if pull request state should be loaded in batches via the GitHub GraphQL API
+     */
+    public String getGithubApiUrl() {
+        return githubApiUrl;
+    }
+
+    public void setGithubApiUrl(String githubApiUrl) {
+        this.githubApiUrl = githubApiUrl;
+    }
+
+    public boolean isGithubGraphQL() {
+        return githubGraphQL;
+    }
+
+    public void setGithubGraphQL(boolean githubGraphQL) {
+        this.githubGraphQL = githubGraphQL;
+    }
+
     public String getGithubPullRequestLabel() {
         return githubPullRequestLabel;
     }
@@ -214,14 +318,45 @@ public class Configuration {
         this.checkDependencies = checkDependencies;
     }
 
-    public NpmDependencyTreeGenerator getNpmDependencyTreeGenerator() {
+    public synchronized NpmDependencyTreeGenerator getNpmDependencyTreeGenerator() {
+        if (npmDependencyTreeGenerator == null) {
+            if (NPM_DEPENDENCY_TREE_LOCKFILE.equalsIgnoreCase(npmDependencyTree)) {
+                npmDependencyTreeGenerator = new LockfileNpmDependencyTreeGenerator();
+            } else {
+                npmDependencyTreeGenerator = new DefaultNpmDependencyTreeGenerator();
+            }
+        }
         return npmDependencyTreeGenerator;
     }
 
-    public void setNpmDependencyTreeGenerator(NpmDependencyTreeGenerator npmDependencyTreeGenerator) {
+    public synchronized void setNpmDependencyTreeGenerator(NpmDependencyTreeGenerator npmDependencyTreeGenerator) {
         this.npmDependencyTreeGenerator = npmDependencyTreeGenerator;
     }
 
+    public String getPluginsUpdateCenterUrl() {
+        return pluginsUpdateCenterUrl;
+    }
+
+    public void setPluginsUpdateCenterUrl(String pluginsUpdateCenterUrl) {
+        this.pluginsUpdateCenterUrl = pluginsUpdateCenterUrl;
+    }
+
+    public long getPluginsUpdateCenterTtl() {
+        return pluginsUpdateCenterTtl;
+    }
+
+    public void setPluginsUpdateCenterTtl(long pluginsUpdateCenterTtl) {
+        this.pluginsUpdateCenterTtl = pluginsUpdateCenterTtl;
+    }
+
+    public String getNpmDependencyTree() {
+        return npmDependencyTree;
+    }
+
+    public void setNpmDependencyTree(String npmDependencyTree) {
+        this.npmDependencyTree = npmDependencyTree;
+    }
+
     public boolean isPullDisabled() {
         return pullDisabled;
     }
@@ -251,6 +386,73 @@ public class Configuration {
         this.sourcePath = sourcePath;
     }
 
+    /**
+     * Returns the maximum number of repositories which are processed concurrently by a command
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the maximum number of repositories which are cloned or pulled concurrently
+     */
+    public int getFetchParallelism() {
+        return fetchParallelism;
+    }
+
+    public void setFetchParallelism(int fetchParallelism) {
+        this.fetchParallelism = fetchParallelism;
+    }
+
+    /**
+     * Returns the history depth used when cloning repositories or zero for a full clone
+     */
+    public int getCloneDepth() {
+        return cloneDepth;
+    }
+
+    public void setCloneDepth(int cloneDepth) {
+        this.cloneDepth = cloneDepth;
+    }
+
+    public boolean isCloneSingleBranch() {
+        return cloneSingleBranch;
+    }
+
+    public void setCloneSingleBranch(boolean cloneSingleBranch) {
+        this.cloneSingleBranch = cloneSingleBranch;
+    }
+
+    /**
+     * Returns the partial clone filter such as <code>blob:none</code> or null if complete clones are used
+     */
+    public String getCloneFilter() {
+        return cloneFilter;
+    }
+
+    public void setCloneFilter(String cloneFilter) {
+        this.cloneFilter = cloneFilter;
+    }
+
+    public boolean isCloneReference() {
+        return cloneReference;
+    }
+
+    public void setCloneReference(boolean cloneReference) {
+        this.cloneReference = cloneReference;
+    }
+
+    /**
+     * Returns the bare repository in the work directory used to share git objects between clones
+     */
+    public File getCloneReferenceDir() {
+        return new File(getWorkDir(), "reference.git").getAbsoluteFile();
+    }
+
     public boolean isDisableAnsi() {
         return disableAnsi;
     }
@@ -300,14 +502,29 @@ public class Configuration {
         this.printStream = printStream;
     }
 
-    public GitPlugin getGit() {
+    public synchronized GitPlugin getGit() {
+        if (git == null) {
+            if (GIT_ENGINE_JGIT.equalsIgnoreCase(gitEngine)) {
+                git = new GitPluginJGit(this);
+            } else {
+                git = new GitPluginCLI(this);
+            }
+        }
         return git;
     }
 
-    public void setGit(GitPlugin git) {
+    public synchronized void setGit(GitPlugin git) {
         this.git = git;
     }
 
+    public String getGitEngine() {
+        return gitEngine;
+    }
+
+    public void setGitEngine(String gitEngine) {
+        this.gitEngine = gitEngine;
+    }
+
     public String getMvnCommand() {
         return mvnCommand;
     }
@@ -316,6 +533,76 @@ public class Configuration {
         this.mvnCommand = mvnCommand;
     }
 
+    public boolean isMvnExportInProcess() {
+        return mvnExportInProcess;
+    }
+
+    public void setMvnExportInProcess(boolean mvnExportInProcess) {
+        this.mvnExportInProcess = mvnExportInProcess;
+    }
+
+    public boolean isPomFollowModules() {
+        return pomFollowModules;
+    }
+
+    public void setPomFollowModules(boolean pomFollowModules) {
+        this.pomFollowModules = pomFollowModules;
+    }
+
+    public int getPomParallelism() {
+        return pomParallelism;
+    }
+
+    public synchronized void setPomParallelism(int pomParallelism) {
+        this.pomParallelism = pomParallelism;
+        if (pomExecutor != null) {
+            pomExecutor.shutdown();
+            pomExecutor = null;
+        }
+    }
+
+    /**
+     * Returns the thread pool shared by all the repositories being updated to parse, update and save their POMs
+     * so that the number of threads stays bounded by the POM parallelism, or null if POMs are processed sequentially
+     */
+    public synchronized ExecutorService getPomExecutor() {
+        if (pomExecutor == null && pomParallelism > 1) {
+            pomExecutor = ThreadPools.newSharedThreadPool("updatebot-pom", pomParallelism);
+        }
+        return pomExecutor;
+    }
+
+    public int getRegexParallelism() {
+        return regexParallelism;
+    }
+
+    public void setRegexParallelism(int regexParallelism) {
+        this.regexParallelism = regexParallelism;
+    }
+
+    public String getPomIgnore() {
+        return pomIgnore;
+    }
+
+    public void setPomIgnore(String pomIgnore) {
+        this.pomIgnore = pomIgnore;
+    }
+
+    /**
+     * Returns the patterns of the directories to ignore when looking for pom.xml files
+     */
+    public List<String> getPomIgnorePatterns() {
+        List<String> answer = new ArrayList<>();
+        if (pomIgnore != null) {
+            for (String pattern : pomIgnore.split(",")) {
+                if (Strings.notEmpty(pattern.trim())) {
+                    answer.add(pattern.trim());
+                }
+            }
+        }
+        return answer;
+    }
+
     public String getNpmCommand() {
         return npmCommand;
     }
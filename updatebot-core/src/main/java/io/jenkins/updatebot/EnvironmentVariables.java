@@ -25,9 +25,18 @@ public class EnvironmentVariables {
     public static final String GITHUB_PASSWORD = "UPDATEBOT_GITHUB_PASSWORD";
     public static final String GITHUB_TOKEN = "UPDATEBOT_GITHUB_TOKEN";
     public static final String GITHUB_PR_LABEL = "UPDATEBOT_GITHUB_PR_LABEL";
+    public static final String GITHUB_API_URL = "UPDATEBOT_GITHUB_API_URL";
+    public static final String GITHUB_GRAPHQL = "UPDATEBOT_GITHUB_GRAPHQL";
+    public static final String GITHUB_CACHE_SIZE = "UPDATEBOT_GITHUB_CACHE_SIZE";
+    public static final String GITHUB_REPOSITORY_CACHE_TTL = "UPDATEBOT_GITHUB_REPOSITORY_CACHE_TTL";
 
     public static final String POLL_PERIOD = "UPDATEBOT_POLL_PERIOD";
     public static final String POLL_TIMEOUT = "UPDATEBOT_POLL_TIMEOUT";
+    public static final String MAX_POLL_PERIOD = "UPDATEBOT_MAX_POLL_PERIOD";
+
+    public static final String WEBHOOK_PORT = "UPDATEBOT_WEBHOOK_PORT";
+    public static final String WEBHOOK_SECRET = "UPDATEBOT_WEBHOOK_SECRET";
+    public static final String WEBHOOK_POLL_PERIOD = "UPDATEBOT_WEBHOOK_POLL_PERIOD";
 
     public static final String MERGE = "UPDATEBOT_MERGE";
     public static final String CHECK_PR_STATUS = "UPDATEBOT_CHECK_PR_STATUS";
@@ -35,9 +44,25 @@ public class EnvironmentVariables {
     public static final String MERGE_METHOD = "UPDATEBOT_MERGE_METHOD";
 
     public static final String DRY_RUN = "UPDATEBOT_DRY_RUN";
+    public static final String PARALLELISM = "UPDATEBOT_PARALLELISM";
+    public static final String FETCH_PARALLELISM = "UPDATEBOT_FETCH_PARALLELISM";
+
+    public static final String GIT_ENGINE = "UPDATEBOT_GIT_ENGINE";
+    public static final String CLONE_DEPTH = "UPDATEBOT_CLONE_DEPTH";
+    public static final String CLONE_SINGLE_BRANCH = "UPDATEBOT_CLONE_SINGLE_BRANCH";
+    public static final String CLONE_FILTER = "UPDATEBOT_CLONE_FILTER";
+    public static final String CLONE_REFERENCE = "UPDATEBOT_CLONE_REFERENCE";
 
     public static final String MVN_COMMAND = "UPDATEBOT_MVN_COMMAND";
+    public static final String MVN_EXPORT_IN_PROCESS = "UPDATEBOT_MVN_EXPORT_IN_PROCESS";
+    public static final String POM_FOLLOW_MODULES = "UPDATEBOT_POM_FOLLOW_MODULES";
+    public static final String POM_IGNORE = "UPDATEBOT_POM_IGNORE";
+    public static final String POM_PARALLELISM = "UPDATEBOT_POM_PARALLELISM";
+    public static final String REGEX_PARALLELISM = "UPDATEBOT_REGEX_PARALLELISM";
     public static final String NPM_COMMAND = "UPDATEBOT_NPM_COMMAND";
+    public static final String NPM_DEPENDENCY_TREE = "UPDATEBOT_NPM_DEPENDENCY_TREE";
+    public static final String PLUGINS_UPDATE_CENTER_URL = "UPDATEBOT_PLUGINS_UPDATE_CENTER_URL";
+    public static final String PLUGINS_UPDATE_CENTER_TTL = "UPDATEBOT_PLUGINS_UPDATE_CENTER_TTL";
 
     public static final String PROW_PR_COMMAND = "UPDATEBOT_PROW_PR_COMMAND";
 
@@ -18,9 +18,13 @@ package io.jenkins.updatebot.commands;
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.git.GitPlugin;
 import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.PullRequestInfo;
 import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.kind.helm.HelmChartIndex;
+import io.jenkins.updatebot.kind.maven.PomCache;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.support.FileIndex;
 import io.jenkins.updatebot.support.Markdown;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHPullRequest;
@@ -29,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -44,8 +49,12 @@ public class CommandContext {
     private final Set<File> updatedFiles = new TreeSet<>();
     private final CommandContext parentContext;
     private List<CommandContext> children = new ArrayList<>();
+    private FileIndex fileIndex;
+    private PomCache pomCache;
+    private HelmChartIndex helmChartIndex;
     private GHIssue issue;
     private GHPullRequest pullRequest;
+    private PullRequestInfo pullRequestInfo;
     private Status status = Status.PENDING;
 
     public CommandContext(LocalRepository repository, Configuration configuration) {
@@ -94,6 +103,17 @@ public class CommandContext {
         this.pullRequest = pullRequest;
     }
 
+    /**
+     * Returns the prefetched state of the current pull request if it is known
+     */
+    public PullRequestInfo getPullRequestInfo() {
+        return pullRequestInfo;
+    }
+
+    public void setPullRequestInfo(PullRequestInfo pullRequestInfo) {
+        this.pullRequestInfo = pullRequestInfo;
+    }
+
     public String getRepositoryFullName() {
         return repository.getRepo().getFullName();
     }
@@ -109,12 +129,12 @@ public class CommandContext {
     /**
      * Returns true if one or more files have been updated
      */
-    public boolean isUpdated() {
+    public synchronized boolean isUpdated() {
         return updatedFiles.size() > 0;
     }
 
-    public Set<File> getUpdatedFiles() {
-        return updatedFiles;
+    public synchronized Set<File> getUpdatedFiles() {
+        return new TreeSet<>(updatedFiles);
     }
 
 
@@ -129,7 +149,7 @@ public class CommandContext {
     /**
      * Returns the underlying github repository or null if its not a github repo
      */
-    public GHRepository gitHubRepository() {
+    public GHRepository gitHubRepository() throws IOException {
         return GitHubHelpers.getGitHubRepository(repository);
     }
 
@@ -140,8 +160,54 @@ public class CommandContext {
         return new File(repository.getDir(), relativePath);
     }
 
-    public void updatedFile(File file) {
+    /**
+     * Records that the file has been updated which can be invoked concurrently by updaters processing files in parallel
+     */
+    public synchronized void updatedFile(File file) {
         updatedFiles.add(file);
+        getFileIndex().fileWritten(file);
+    }
+
+    /**
+     * Returns the index of the files in the repository which is shared with the parent context
+     * so that the directory tree is only walked once per command
+     */
+    public synchronized FileIndex getFileIndex() {
+        if (parentContext != null) {
+            return parentContext.getFileIndex();
+        }
+        if (fileIndex == null) {
+            fileIndex = new FileIndex(getDir());
+        }
+        return fileIndex;
+    }
+
+    /**
+     * Returns the cache of the parsed <code>pom.xml</code> files of the repository which is shared with the parent
+     * context so that the POMs are only parsed once per command
+     */
+    public synchronized PomCache getPomCache() {
+        if (parentContext != null) {
+            return parentContext.getPomCache();
+        }
+        if (pomCache == null) {
+            pomCache = new PomCache(getFileIndex());
+        }
+        return pomCache;
+    }
+
+    /**
+     * Returns the index of the helm charts of the repository which is shared with the parent context
+     * so that the charts are only parsed once per command
+     */
+    public synchronized HelmChartIndex getHelmChartIndex() {
+        if (parentContext != null) {
+            return parentContext.getHelmChartIndex();
+        }
+        if (helmChartIndex == null) {
+            helmChartIndex = new HelmChartIndex(getDir());
+        }
+        return helmChartIndex;
     }
 
     public GitPlugin getGit() {
@@ -209,26 +275,37 @@ public class CommandContext {
     }
 
     public StatusInfo createStatusInfo() {
-        return new StatusInfo(getRepository(), status, issue, pullRequest);
+        return new StatusInfo(getRepository(), status, issue, pullRequest, pullRequestInfo);
     }
 
     public void info(Logger log, String message) {
-        getConfiguration().info(log, message);
+        getConfiguration().info(log, logPrefix() + message);
     }
 
     public void warn(Logger log, String message) {
-        getConfiguration().warn(log, message);
+        getConfiguration().warn(log, logPrefix() + message);
     }
 
     public void warn(Logger log, String message, Throwable e) {
-        getConfiguration().warn(log, message, e);
+        getConfiguration().warn(log, logPrefix() + message, e);
     }
 
     public void error(Logger log, String message) {
-        getConfiguration().error(log, message);
+        getConfiguration().error(log, logPrefix() + message);
     }
 
     public void error(Logger log, String message, Throwable e) {
-        getConfiguration().error(log, message, e);
+        getConfiguration().error(log, logPrefix() + message, e);
+    }
+
+    /**
+     * When processing repositories concurrently lets prefix the log messages with the repository
+     * so that the interleaved output of each repository can be told apart
+     */
+    protected String logPrefix() {
+        if (configuration.getParallelism() > 1 && repository != null) {
+            return "[" + repository.getFullName() + "] ";
+        }
+        return "";
     }
 }
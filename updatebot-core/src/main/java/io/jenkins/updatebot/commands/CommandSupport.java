@@ -24,6 +24,7 @@ import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.repository.LocalRepository;
 import io.jenkins.updatebot.repository.Repositories;
 import io.fabric8.utils.Strings;
+import io.jenkins.updatebot.support.ThreadPools;
 import io.jenkins.updatebot.support.UserPassword;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHRepository;
@@ -32,10 +33,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static io.jenkins.updatebot.github.PullRequests.COMMAND_COMMENT_INDENT;
 import static io.jenkins.updatebot.github.PullRequests.COMMAND_COMMENT_PREFIX;
@@ -50,6 +57,7 @@ public abstract class CommandSupport {
     private static final transient Logger LOG = LoggerFactory.getLogger(PushSourceChanges.class);
 
     private List<LocalRepository> localRepositories;
+    private List<LocalRepository> repositories;
     private RepositoryConfig repositoryConfig;
 
     public String createPullRequestComment() {
@@ -116,13 +124,104 @@ public abstract class CommandSupport {
         validateConfiguration(configuration);
 
         ParentContext parentContext = new ParentContext();
+        int parallelism = configuration.getParallelism();
+        int fetchParallelism = configuration.getFetchParallelism();
+        if (localRepositories == null && (parallelism > 1 || fetchParallelism > 1)) {
+            // lets overlap the git clone/pull of the repositories with the processing of those already fetched
+            List<LocalRepository> repositories = findRepositories(configuration);
+            setLocalRepositories(repositories);
+            runInParallel(configuration, parentContext, repositories, parallelism, true);
+            return parentContext;
+        }
         List<LocalRepository> repositories = cloneOrPullRepositories(configuration);
+        if (parallelism > 1 && repositories.size() > 1) {
+            runInParallel(configuration, parentContext, repositories, parallelism, false);
+        } else {
+            for (LocalRepository repository : repositories) {
+                CommandContext context = createCommandContext(repository, configuration);
+                parentContext.addChild(context);
+                run(context);
+            }
+        }
+        return parentContext;
+    }
+
+    /**
+     * Runs this command on each repository using a bounded pool of worker threads.
+     * <p>
+     * If <code>fetch</code> is true then each repository is first cloned or pulled on a separate bounded pool of git
+     * workers and is handed over to the command workers as soon as it is ready, so that the network bound fetching
+     * overlaps with the processing of the repositories which have already been fetched.
+     * <p>
+     * The child contexts are added to the parent in repository order before any work starts so that the results
+     * are reported in the same order as the sequential mode. If any repository fails we still wait for the others
+     * to complete then rethrow the first failure.
+     */
+    protected void runInParallel(Configuration configuration, ParentContext parentContext, List<LocalRepository> repositories, int parallelism, boolean fetch) throws IOException {
+        List<CommandContext> contexts = new ArrayList<>();
         for (LocalRepository repository : repositories) {
             CommandContext context = createCommandContext(repository, configuration);
             parentContext.addChild(context);
-            run(context);
+            contexts.add(context);
+        }
+        if (contexts.isEmpty()) {
+            return;
+        }
+        int poolSize = Math.max(1, Math.min(parallelism, contexts.size()));
+        int fetchPoolSize = Math.max(1, Math.min(configuration.getFetchParallelism(), contexts.size()));
+        if (fetch) {
+            configuration.info(LOG, "Processing " + contexts.size() + " repositories using " + fetchPoolSize + " git threads and " + poolSize + " threads");
+        } else {
+            configuration.info(LOG, "Processing " + contexts.size() + " repositories using " + poolSize + " threads");
+        }
+
+        ExecutorService executor = ThreadPools.newFixedThreadPool("updatebot-repo", poolSize);
+        ExecutorService fetchExecutor = fetch ? ThreadPools.newFixedThreadPool("updatebot-git", fetchPoolSize) : null;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (CommandContext context : contexts) {
+                CompletableFuture<LocalRepository> ready;
+                if (fetchExecutor != null) {
+                    ready = Repositories.cloneOrPullRepositoryAsync(configuration, context.getRepository(), fetchExecutor);
+                } else {
+                    ready = CompletableFuture.completedFuture(context.getRepository());
+                }
+                futures.add(ready.thenAcceptAsync(repository -> {
+                    try {
+                        run(context);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor));
+            }
+            IOException failure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                CommandContext context = contexts.get(i);
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof UncheckedIOException) {
+                        cause = cause.getCause();
+                    }
+                    context.error(LOG, "Failed to process repository: " + cause, cause);
+                    if (failure == null) {
+                        failure = cause instanceof IOException ? (IOException) cause : new IOException("Failed to process repository " + context.getRepositoryFullName() + ". " + cause, cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while processing repositories", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+            if (fetchExecutor != null) {
+                fetchExecutor.shutdownNow();
+            }
         }
-        return parentContext;
     }
 
     protected void validateConfiguration(Configuration configuration) throws IOException {
@@ -176,12 +275,28 @@ public abstract class CommandSupport {
 
     public List<LocalRepository> getLocalRepositories(Configuration configuration) throws IOException {
         if (localRepositories == null) {
-            RepositoryConfig repositoryConfig = getRepositoryConfig(configuration);
-            this.localRepositories = Repositories.cloneOrPullRepositories(configuration, repositoryConfig);
+            List<LocalRepository> answer = findRepositories(configuration);
+            for (LocalRepository repository : answer) {
+                Repositories.cloneOrPullRepository(configuration, repository);
+            }
+            this.localRepositories = answer;
         }
         return localRepositories;
     }
 
+    /**
+     * Returns the repositories of the configuration without cloning or pulling them
+     */
+    public List<LocalRepository> findRepositories(Configuration configuration) throws IOException {
+        if (localRepositories != null) {
+            return localRepositories;
+        }
+        if (repositories == null) {
+            repositories = Repositories.findRepositories(configuration, getRepositoryConfig(configuration));
+        }
+        return repositories;
+    }
+
     public RepositoryConfig getRepositoryConfig(Configuration configuration) throws IOException {
         if (repositoryConfig == null) {
             repositoryConfig = configuration.loadRepositoryConfig();
@@ -31,8 +31,6 @@ import io.jenkins.updatebot.model.GitRepository;
 import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.repository.LocalRepository;
 import io.jenkins.updatebot.repository.Repositories;
-import io.jenkins.updatebot.support.FileExtensionFilter;
-import io.jenkins.updatebot.support.FileHelper;
 import io.jenkins.updatebot.support.Strings;
 import io.jenkins.updatebot.support.VersionHelper;
 import io.fabric8.utils.Files;
@@ -43,7 +41,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -261,8 +258,7 @@ public class EnableFabric8 extends ModifyFilesCommandSupport {
     }
 
     protected boolean hasExtension(EnableFabric8Context context, final String extension) {
-        FileFilter filter = new FileExtensionFilter(extension);
-        return FileHelper.hasFile(context.getDir(), filter);
+        return context.getFileIndex().hasExtension(extension);
     }
 
     protected boolean hasFile(EnableFabric8Context context, String name) {
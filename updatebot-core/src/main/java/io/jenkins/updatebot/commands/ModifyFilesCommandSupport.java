@@ -19,6 +19,7 @@ import io.fabric8.utils.Objects;
 import io.fabric8.utils.Strings;
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.GitHubRepositoryInfo;
 import io.jenkins.updatebot.github.Issues;
 import io.jenkins.updatebot.github.PullRequests;
 import io.jenkins.updatebot.kind.DependenciesCheck;
@@ -167,7 +168,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                 if (Objects.equal(oldTitle, title)) {
                     // lets check if we need to rebase
                     if (configuration.isRebaseMode()) {
-                        if (GitHubHelpers.isMergeable(pullRequest)) {
+                        if (GitHubHelpers.isMergeable(pullRequest, context.getPullRequestInfo())) {
                             return;
                         }
                         pullRequest.comment("[UpdateBot](https://github.com/jenkins-x/updatebot) rebasing due to merge conflicts");
@@ -209,15 +210,13 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
 
     public boolean isUseSinglePullRequest(CommandContext context) {
         Configuration configuration = context.getConfiguration();
-        GHRepository ghRepository = context.gitHubRepository();
-
-        if (ghRepository == null) {
+        if (GitHubHelpers.getGitHubRepositoryInfo(context.getRepository()) == null) {
             return false;
         }
 
         try {
             List<LocalRepository> list = getLocalRepositories(configuration);
-            LocalRepository repository = LocalRepository.findRepository(list, ghRepository);
+            LocalRepository repository = LocalRepository.findRepository(list, context.getRepository().getRepo());
 
             return repository.isUseSinglePullRequest();
         } catch (IOException e) {
@@ -376,9 +375,9 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
      * @return pull request title
      */
     protected String createSinglePullRequestPrefix(CommandContext context) {
-        GHRepository ghRepository = context.gitHubRepository();
+        GitHubRepositoryInfo info = GitHubHelpers.getGitHubRepositoryInfo(context.getRepository());
 
-        return "autofix(versions): update " + ghRepository.getOwnerName() + "/" + ghRepository.getName() + " versions";
+        return "autofix(versions): update " + info.getFullName() + " versions";
     }
 
     /**
@@ -455,6 +454,8 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                 if (invalidChanges.size() > 0) {
                     // lets revert the current changes
                     context.getGit().revertChanges(context.getDir());
+                    // reverting may have removed files created by the updaters
+                    context.getFileIndex().invalidate();
                     if (validChanges.size() > 0) {
                         // lets perform just the valid changes
                         if (!pushVersionChangesWithoutChecks(context, validChanges)) {
@@ -20,11 +20,14 @@ import org.kohsuke.github.GHPullRequest;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
+ * Collects the child {@link CommandContext} for each repository processed by a command.
+ * Children may be added from multiple worker threads when running with a parallelism greater than one.
  */
 public class ParentContext {
-    private List<CommandContext> children = new ArrayList<>();
+    private List<CommandContext> children = new CopyOnWriteArrayList<>();
 
     public void addChild(CommandContext context) {
         children.add(context);
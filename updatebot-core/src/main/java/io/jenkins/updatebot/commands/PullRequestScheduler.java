@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import io.jenkins.updatebot.github.PullRequestInfo;
+import io.fabric8.utils.Objects;
+import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHPullRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Schedules when the pending pull requests of each repository should be checked again.
+ * <p>
+ * Pull requests whose status has just changed (e.g. CI has just started) are checked again after the minimum
+ * interval whereas pull requests which are unchanged or have failed back off exponentially up to the maximum interval.
+ * Repositories with nothing pending are removed from the schedule.
+ */
+public class PullRequestScheduler {
+    private static final transient Logger LOG = LoggerFactory.getLogger(PullRequestScheduler.class);
+
+    private final long minInterval;
+    private final long maxInterval;
+    private final PriorityQueue<ScheduledCheck> queue = new PriorityQueue<>();
+    private final Map<String, ScheduledCheck> checks = new HashMap<>();
+    private final Map<String, Set<String>> checkedKeys = new HashMap<>();
+
+    public PullRequestScheduler(long minInterval, long maxInterval) {
+        this.minInterval = Math.max(minInterval, 0);
+        this.maxInterval = Math.max(maxInterval, this.minInterval);
+    }
+
+    /**
+     * Records that we have just checked the given open pull request
+     */
+    public synchronized void checked(String repository, GHPullRequest pullRequest, PullRequestInfo info) {
+        checked(repository, pullRequest.getNumber(), info != null ? info.getState() : null, fingerprint(pullRequest, info));
+    }
+
+    /**
+     * Records that we have just checked the given open pull request from the snapshot
+     */
+    public synchronized void checked(String repository, PullRequestInfo info) {
+        checked(repository, info.getNumber(), info.getState(), fingerprint(info));
+    }
+
+    protected void checked(String repository, int number, GHCommitState state, String fingerprint) {
+        String key = repository + "#" + number;
+        checkedKeys.computeIfAbsent(repository, k -> new LinkedHashSet<>()).add(key);
+
+        ScheduledCheck check = checks.get(key);
+        long interval;
+        if (check == null) {
+            interval = minInterval;
+        } else if (state == GHCommitState.FAILURE || state == GHCommitState.ERROR) {
+            interval = check.interval * 2;
+        } else if (!Objects.equal(fingerprint, check.fingerprint)) {
+            interval = minInterval;
+        } else {
+            interval = check.interval * 2;
+        }
+        schedule(key, repository, fingerprint, interval);
+    }
+
+    /**
+     * Records that the given open pull request was not checked as it has not changed so that it keeps its scheduled check
+     */
+    public synchronized void unchanged(String repository, int number) {
+        String key = repository + "#" + number;
+        if (checks.containsKey(key)) {
+            checkedKeys.computeIfAbsent(repository, k -> new LinkedHashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * Records that we have finished checking the given repository; any pull requests which were not checked
+     * have been closed so they are removed along with all of the checks for the repository if nothing is pending
+     */
+    public synchronized void repositoryChecked(String repository, boolean pending) {
+        Set<String> keys = checkedKeys.remove(repository);
+        if (keys == null) {
+            keys = new LinkedHashSet<>();
+        }
+        String repositoryKey = repository + "#";
+        if (pending && keys.isEmpty()) {
+            // pending on an issue rather than a pull request so lets just back off
+            ScheduledCheck check = checks.get(repositoryKey);
+            schedule(repositoryKey, repository, null, check != null ? check.interval * 2 : minInterval);
+            keys.add(repositoryKey);
+        }
+        Iterator<ScheduledCheck> iter = checks.values().iterator();
+        while (iter.hasNext()) {
+            ScheduledCheck check = iter.next();
+            if (check.repository.equals(repository) && (!pending || !keys.contains(check.key))) {
+                queue.remove(check);
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Lets check the given repository as soon as possible such as when we receive a webhook event for it
+     */
+    public synchronized void reset(String repository) {
+        long now = currentTimeMillis();
+        for (ScheduledCheck check : checks.values()) {
+            if (check.repository.equalsIgnoreCase(repository)) {
+                queue.remove(check);
+                check.interval = minInterval;
+                check.nextCheckTime = now;
+                queue.add(check);
+            }
+        }
+    }
+
+    /**
+     * Returns the time of the next scheduled check or 0 if nothing is scheduled
+     */
+    public synchronized long getNextCheckTime() {
+        ScheduledCheck check = queue.peek();
+        return check != null ? check.nextCheckTime : 0;
+    }
+
+    public synchronized boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Returns the repositories which have pull requests that are due to be checked at the given time.
+     * <p>
+     * The checks of the returned repositories are removed from the queue but kept in <code>checks</code> so that
+     * when the pull requests are checked again the previous interval and fingerprint are used to back off. They are
+     * then rescheduled by {@link #checked(String, GHPullRequest, PullRequestInfo)} or removed by
+     * {@link #repositoryChecked(String, boolean)}; if updating the repositories fails the update loop terminates.
+     */
+    public synchronized Set<String> pollDueRepositories(long time) {
+        Set<String> answer = new LinkedHashSet<>();
+        while (!queue.isEmpty() && queue.peek().nextCheckTime <= time) {
+            answer.add(queue.poll().repository);
+        }
+        // all the pull requests of a repository are checked together and rescheduled when they are checked
+        queue.removeIf(check -> answer.contains(check.repository));
+        return answer;
+    }
+
+    protected void schedule(String key, String repository, String fingerprint, long interval) {
+        interval = Math.max(minInterval, Math.min(interval, maxInterval));
+        ScheduledCheck old = checks.get(key);
+        if (old != null) {
+            queue.remove(old);
+        }
+        ScheduledCheck check = new ScheduledCheck(key, repository, fingerprint, interval, currentTimeMillis() + interval);
+        checks.put(key, check);
+        queue.add(check);
+        LOG.debug("Next check of " + key + " in " + interval + " millis");
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns a value which changes whenever something happens on the pull request which is worth checking again soon
+     */
+    protected static String fingerprint(GHPullRequest pullRequest, PullRequestInfo info) {
+        StringBuilder builder = new StringBuilder();
+        if (info != null) {
+            builder.append(info.getHeadSha()).append(":").append(info.getState()).append(":").append(info.getMergeable());
+        } else if (pullRequest.getHead() != null) {
+            builder.append(pullRequest.getHead().getSha());
+        }
+        try {
+            builder.append(":").append(pullRequest.getUpdatedAt());
+        } catch (IOException e) {
+            // ignore
+        }
+        return builder.toString();
+    }
+
+    protected static String fingerprint(PullRequestInfo info) {
+        return info.getHeadSha() + ":" + info.getState() + ":" + info.getMergeable() + ":" + info.getUpdatedAt();
+    }
+
+    private static class ScheduledCheck implements Comparable<ScheduledCheck> {
+        private final String key;
+        private final String repository;
+        private final String fingerprint;
+        private long interval;
+        private long nextCheckTime;
+
+        ScheduledCheck(String key, String repository, String fingerprint, long interval, long nextCheckTime) {
+            this.key = key;
+            this.repository = repository;
+            this.fingerprint = fingerprint;
+            this.interval = interval;
+            this.nextCheckTime = nextCheckTime;
+        }
+
+        @Override
+        public int compareTo(ScheduledCheck that) {
+            return Long.compare(this.nextCheckTime, that.nextCheckTime);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.GitRepository;
 import io.jenkins.updatebot.model.GitRepositoryConfig;
 import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.repository.Repositories;
 import io.jenkins.updatebot.support.Strings;
 
 import org.slf4j.Logger;
@@ -139,6 +140,10 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
 
         if (sourceRepository == null) {
             sourceRepository = findLocalRepository(configuration);
+            if (sourceRepository != null) {
+                // every repository loads the versions from the source repository so lets fetch it before the others
+                Repositories.cloneOrPullRepository(configuration, sourceRepository);
+            }
         }
         if (sourceRepository == null) {
             File sourceDir = configuration.getSourceDir();
@@ -223,7 +228,7 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
      */
     protected LocalRepository findLocalRepository(Configuration configuration) throws IOException {
         String cloneUrl = getCloneUrl();
-        List<LocalRepository> localRepositories = getLocalRepositories(configuration);
+        List<LocalRepository> localRepositories = findRepositories(configuration);
         LocalRepository localRepository = findLocalRepository(localRepositories, cloneUrl);
         if (localRepository != null) {
             return localRepository;
@@ -16,6 +16,8 @@
 package io.jenkins.updatebot.commands;
 
 import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.PullRequestInfo;
 import io.jenkins.updatebot.repository.LocalRepository;
 import io.jenkins.updatebot.support.Strings;
 import io.fabric8.utils.Objects;
@@ -43,6 +45,7 @@ public class StatusInfo {
     private final Status status;
     private final GHIssue issue;
     private final GHPullRequest pullRequest;
+    private final PullRequestInfo pullRequestInfo;
     private final String cloneUrl;
     private final GHIssueState issueState;
     private final GHIssueState pullRequestState;
@@ -50,14 +53,27 @@ public class StatusInfo {
     private String pullRequestUrl;
 
     public StatusInfo(LocalRepository repository, Status status, GHIssue issue, GHPullRequest pullRequest) {
+        this(repository, status, issue, pullRequest, null);
+    }
+
+    /**
+     * Creates the status using the snapshot of the open pull request if it was not loaded via the REST API
+     */
+    public StatusInfo(LocalRepository repository, Status status, GHIssue issue, GHPullRequest pullRequest, PullRequestInfo pullRequestInfo) {
         this.repository = repository;
         this.issue = issue;
         this.pullRequest = pullRequest;
+        this.pullRequestInfo = pullRequestInfo;
         this.issueUrl = (issue != null) ? Strings.toString(issue.getHtmlUrl()) : null;
-        this.pullRequestUrl = (pullRequest != null) ? Strings.toString(pullRequest.getHtmlUrl()) : null;
         this.cloneUrl = repository.getCloneUrl();
         this.issueState = state(issue);
-        this.pullRequestState = state(pullRequest);
+        if (pullRequest == null && pullRequestInfo != null) {
+            this.pullRequestUrl = pullRequestInfo.getUrl();
+            this.pullRequestState = GHIssueState.OPEN;
+        } else {
+            this.pullRequestUrl = (pullRequest != null) ? Strings.toString(pullRequest.getHtmlUrl()) : null;
+            this.pullRequestState = state(pullRequest);
+        }
         if (nullOrClosed(issueState) && nullOrClosed(pullRequestState) && status.equals(Status.PENDING)) {
             status = Status.COMPLETE;
         }
@@ -145,17 +161,20 @@ public class StatusInfo {
             }
         }
         GHPullRequest pullRequest = oldStatus.getPullRequest();
-        if (pullRequest != null) {
-            if (repository == null) {
-                repository = pullRequest.getRepository();
-            }
+        PullRequestInfo pullRequestInfo = oldStatus.getPullRequestInfo();
+        if (pullRequest != null || pullRequestInfo != null) {
             try {
-                pullRequest = repository.getPullRequest(pullRequest.getNumber());
+                if (repository == null) {
+                    repository = pullRequest != null ? pullRequest.getRepository() : GitHubHelpers.getGitHubRepository(oldStatus.getRepository());
+                }
+                if (repository != null) {
+                    pullRequest = repository.getPullRequest(pullRequest != null ? pullRequest.getNumber() : pullRequestInfo.getNumber());
+                }
             } catch (IOException e) {
                 configuration.warn(LOG, "Failed to lookup pull request " + oldStatus.getPullRequestUrl() + ". " + e, e);
             }
         }
-        return new StatusInfo(oldStatus.getRepository(), oldStatus.getStatus(), issue, pullRequest);
+        return new StatusInfo(oldStatus.getRepository(), oldStatus.getStatus(), issue, pullRequest, pullRequestInfo);
     }
 
     @Override
@@ -202,6 +221,10 @@ public class StatusInfo {
         return pullRequest;
     }
 
+    public PullRequestInfo getPullRequestInfo() {
+        return pullRequestInfo;
+    }
+
     public String getFullName() {
         return getRepository().getFullName();
     }
@@ -19,6 +19,9 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import io.jenkins.updatebot.CommandNames;
 import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.CachingHttpConnector;
+import io.jenkins.updatebot.github.WebhookEvent;
+import io.jenkins.updatebot.github.WebhookListener;
 import io.jenkins.updatebot.model.GitHubProjects;
 import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.support.Systems;
@@ -26,15 +29,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import static io.jenkins.updatebot.EnvironmentVariables.MAX_POLL_PERIOD;
 import static io.jenkins.updatebot.EnvironmentVariables.POLL_PERIOD;
 import static io.jenkins.updatebot.EnvironmentVariables.POLL_TIMEOUT;
 import static io.jenkins.updatebot.EnvironmentVariables.MERGE;
 import static io.jenkins.updatebot.EnvironmentVariables.CHECK_PR_STATUS;
+import static io.jenkins.updatebot.EnvironmentVariables.WEBHOOK_POLL_PERIOD;
+import static io.jenkins.updatebot.EnvironmentVariables.WEBHOOK_PORT;
+import static io.jenkins.updatebot.EnvironmentVariables.WEBHOOK_SECRET;
 import static io.jenkins.updatebot.commands.StatusInfo.isPending;
 
 /**
@@ -53,9 +65,23 @@ public class UpdatePullRequestLoop extends CommandSupport {
     @Parameter(names = "--poll-time-ms", description = "The poll period", arity = 1)
     private long pollTimeMillis = Systems.getConfigLongValue(POLL_PERIOD, 2 * 60 * 1000);
 
+    @Parameter(names = "--max-poll-time-ms", description = "The maximum poll period that the checks of stale or failed Pull Requests back off to. The poll period is used for Pull Requests which have just changed", arity = 1)
+    private long maxPollTimeMillis = Systems.getConfigLongValue(MAX_POLL_PERIOD, 16 * 60 * 1000);
+
+    @Parameter(names = "--webhook-port", description = "If greater than zero then listen on this port for GitHub webhook events and only update the affected repositories", arity = 1)
+    private int webhookPort = (int) Systems.getConfigLongValue(WEBHOOK_PORT, 0);
+
+    @Parameter(names = "--webhook-secret", description = "The secret used to verify the signature of GitHub webhook events")
+    private String webhookSecret = Systems.getConfigValue(WEBHOOK_SECRET);
+
+    @Parameter(names = "--webhook-poll-time-ms", description = "When listening for webhook events this is the fallback poll period used to update all repositories", arity = 1)
+    private long webhookPollTimeMillis = Systems.getConfigLongValue(WEBHOOK_POLL_PERIOD, 15 * 60 * 1000);
+
     @Parameter(names = "--loop-time-ms", description = "The maximum amount of time to wait for the Pull Requests to be ready to merge before terminating.", arity = 1)
     private long loopTime = Systems.getConfigLongValue(POLL_TIMEOUT, 60 * 60 * 1000);
 
+    private long lastFullUpdateTime;
+
 
     @Override
     public ParentContext run(Configuration configuration) throws IOException {
@@ -67,58 +93,137 @@ public class UpdatePullRequestLoop extends CommandSupport {
 
         UpdatePullRequests updatePullRequests = createUpdatePullRequestsCommand();
 
-        Map<String, StatusInfo> lastStatusMap = new LinkedHashMap();
-        long start = System.currentTimeMillis();
-        long end = start + loopTime;
-        while (true) {
-            Map<String, StatusInfo> currentStatusMap = new LinkedHashMap();
-
-            ParentContext context = updatePullRequests.run(configuration);
-            List<CommandContext> children = context.getChildren();
-            for (CommandContext child : children) {
-                StatusInfo status = child.createStatusInfo();
-                currentStatusMap.put(status.getCloneUrl(), status);
-            }
+        WebhookListener listener = null;
+        if (webhookPort > 0) {
+            listener = new WebhookListener(webhookPort, webhookSecret);
+            listener.start();
+            configuration.info(LOG, "Listening for GitHub webhook events on port " + listener.getPort());
+        }
+        try {
+            Map<String, StatusInfo> lastStatusMap = new LinkedHashMap();
+            long start = System.currentTimeMillis();
+            long end = start + loopTime;
+            ParentContext context = updateAllPullRequests(configuration, updatePullRequests);
+            while (true) {
+                // when using webhooks we only update some of the repositories so lets keep the other statuses
+                Map<String, StatusInfo> currentStatusMap = new LinkedHashMap(lastStatusMap);
 
-            // lets get the previous state and compare them then log the differences
-            Collection<StatusInfo> changes;
-            boolean logBlankLineAfter = false;
-            if (lastStatusMap.isEmpty() && !currentStatusMap.isEmpty()) {
-                changes = currentStatusMap.values();
-                configuration.info(LOG, "");
-                configuration.info(LOG, "");
-                logBlankLineAfter = true;
-            } else {
-                changes = StatusInfo.changedStatuses(configuration, lastStatusMap, currentStatusMap).values();
-            }
-            for (StatusInfo change : changes) {
-                configuration.info(LOG, change.description(configuration));
+                List<CommandContext> children = context.getChildren();
+                for (CommandContext child : children) {
+                    StatusInfo status = child.createStatusInfo();
+                    currentStatusMap.put(status.getCloneUrl(), status);
+                }
+
+                // lets get the previous state and compare them then log the differences
+                Collection<StatusInfo> changes;
+                boolean logBlankLineAfter = false;
+                if (lastStatusMap.isEmpty() && !currentStatusMap.isEmpty()) {
+                    changes = currentStatusMap.values();
+                    configuration.info(LOG, "");
+                    configuration.info(LOG, "");
+                    logBlankLineAfter = true;
+                } else {
+                    changes = StatusInfo.changedStatuses(configuration, lastStatusMap, currentStatusMap).values();
+                }
+                for (StatusInfo change : changes) {
+                    configuration.info(LOG, change.description(configuration));
+                }
+                if (logBlankLineAfter) {
+                    configuration.info(LOG, "");
+                }
+                lastStatusMap = currentStatusMap;
+
+                if (!isPending(lastStatusMap)) {
+                    LOG.info("UpdateBot update-loop is complete!");
+                    logGithubCache(configuration);
+                    return parentContext;
+                }
+
+                if (loopTime > 0 && System.currentTimeMillis() > end) {
+                    LOG.info("UpdateBot has reached the end of its loop time and is terminating with pending Pull Requests");
+                    for (StatusInfo statusInfo : currentStatusMap.values()) {
+                        if (statusInfo.isPending()) {
+                            configuration.info(LOG, statusInfo.description(configuration));
+                        }
+                    }
+                    logGithubCache(configuration);
+                    return parentContext;
+                }
+                context = waitForChanges(configuration, updatePullRequests, listener, updatePullRequests.getScheduler(), end);
             }
-            if (logBlankLineAfter) {
-                configuration.info(LOG, "");
+        } finally {
+            if (listener != null) {
+                listener.close();
             }
-            lastStatusMap = currentStatusMap;
+        }
+    }
 
-            if (!isPending(lastStatusMap)) {
-                LOG.info("UpdateBot update-loop is complete!");
-                return parentContext;
-            }
+    /**
+     * Waits until the next scheduled pull request check or, if we are listening for webhooks, for events telling us
+     * which repositories have changed then updates the pull requests of those repositories.
+     * All repositories are updated if nothing is scheduled or, with webhooks, if we have not updated all of the
+     * repositories for the webhook poll period in case we missed any events.
+     */
+    protected ParentContext waitForChanges(Configuration configuration, UpdatePullRequests updatePullRequests, WebhookListener listener, PullRequestScheduler scheduler, long end) throws IOException {
+        long now = System.currentTimeMillis();
+        long wakeTime = Long.MAX_VALUE;
+        if (listener != null) {
+            wakeTime = lastFullUpdateTime + webhookPollTimeMillis;
+        } else if (scheduler.isEmpty()) {
+            wakeTime = now + pollTimeMillis;
+        }
+        if (!scheduler.isEmpty()) {
+            wakeTime = Math.min(wakeTime, scheduler.getNextCheckTime());
+        }
+        if (loopTime > 0) {
+            wakeTime = Math.min(wakeTime, end);
+        }
+        long timeout = Math.max(0, wakeTime - now);
 
-            if (loopTime > 0 && System.currentTimeMillis() > end) {
-                LOG.info("UpdateBot has reached the end of its loop time and is terminating with pending Pull Requests");
-                for (StatusInfo statusInfo : currentStatusMap.values()) {
-                    if (statusInfo.isPending()) {
-                        configuration.info(LOG, statusInfo.description(configuration));
+        Set<String> repositories = new LinkedHashSet<>();
+        List<WebhookEvent> events = new ArrayList<>();
+        try {
+            if (listener == null) {
+                Thread.sleep(timeout);
+            } else {
+                WebhookEvent event = listener.poll(timeout, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    events.add(event);
+                    events.addAll(listener.drain());
+                    for (WebhookEvent webhookEvent : events) {
+                        repositories.add(webhookEvent.getRepository());
+                        if (webhookEvent.getPullRequestNumbers().isEmpty() && webhookEvent.getSha() == null) {
+                            // we cannot tell which pull requests have changed so lets check them all now
+                            scheduler.reset(webhookEvent.getRepository());
+                        }
                     }
                 }
-                return parentContext;
-            }
-            try {
-                Thread.sleep(pollTimeMillis);
-            } catch (InterruptedException e) {
-                // ignore
             }
+        } catch (InterruptedException e) {
+            // ignore
+        }
+        now = System.currentTimeMillis();
+        if (listener != null ? now >= lastFullUpdateTime + webhookPollTimeMillis : scheduler.isEmpty()) {
+            return updateAllPullRequests(configuration, updatePullRequests);
+        }
+        // all of the pull requests of the repositories which are due to be checked are updated whereas only the
+        // pull requests named by the events are updated for the other repositories
+        Set<String> dueRepositories = new HashSet<>();
+        for (String repository : scheduler.pollDueRepositories(now)) {
+            repositories.add(repository);
+            dueRepositories.add(repository.toLowerCase());
+        }
+        events.removeIf(event -> event.getRepository() == null || dueRepositories.contains(event.getRepository().toLowerCase()));
+        if (repositories.isEmpty()) {
+            return new ParentContext();
         }
+        LOG.debug("Updating the pull requests of repositories " + repositories);
+        return updatePullRequests.run(configuration, repositories, events);
+    }
+
+    protected ParentContext updateAllPullRequests(Configuration configuration, UpdatePullRequests updatePullRequests) throws IOException {
+        lastFullUpdateTime = System.currentTimeMillis();
+        return updatePullRequests.run(configuration);
     }
 
     @Override
@@ -135,10 +240,50 @@ public class UpdatePullRequestLoop extends CommandSupport {
 
     }
 
+    protected void logGithubCache(Configuration configuration) {
+        CachingHttpConnector cache = configuration.getGithubCache();
+        if (cache != null) {
+            configuration.info(LOG, cache.describe());
+        }
+    }
+
+    public long getMaxPollTimeMillis() {
+        return maxPollTimeMillis;
+    }
+
+    public void setMaxPollTimeMillis(long maxPollTimeMillis) {
+        this.maxPollTimeMillis = maxPollTimeMillis;
+    }
+
+    public int getWebhookPort() {
+        return webhookPort;
+    }
+
+    public void setWebhookPort(int webhookPort) {
+        this.webhookPort = webhookPort;
+    }
+
+    public String getWebhookSecret() {
+        return webhookSecret;
+    }
+
+    public void setWebhookSecret(String webhookSecret) {
+        this.webhookSecret = webhookSecret;
+    }
+
+    public long getWebhookPollTimeMillis() {
+        return webhookPollTimeMillis;
+    }
+
+    public void setWebhookPollTimeMillis(long webhookPollTimeMillis) {
+        this.webhookPollTimeMillis = webhookPollTimeMillis;
+    }
+
     protected UpdatePullRequests createUpdatePullRequestsCommand() {
         UpdatePullRequests answer = new UpdatePullRequests();
         answer.setMergeOnSuccess(mergeOnSuccess);
         answer.setCheckPrStatus(checkPrStatus);
+        answer.setScheduler(new PullRequestScheduler(pollTimeMillis, maxPollTimeMillis));
         return answer;
     }
 
@@ -20,14 +20,18 @@ import com.beust.jcommander.Parameters;
 import io.jenkins.updatebot.CommandNames;
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.UpdateBot;
+import io.jenkins.updatebot.github.GitHubGraphQLClient;
 import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.GitHubRepositoryInfo;
+import io.jenkins.updatebot.github.PullRequestInfo;
+import io.jenkins.updatebot.github.PullRequestSnapshot;
 import io.jenkins.updatebot.github.PullRequests;
+import io.jenkins.updatebot.github.WebhookEvent;
+import io.jenkins.updatebot.repository.LocalRepository;
 import io.jenkins.updatebot.support.Markdown;
 import io.jenkins.updatebot.support.Strings;
 import io.fabric8.utils.Objects;
 import io.jenkins.updatebot.support.Systems;
-import org.kohsuke.github.GHCommitState;
-import org.kohsuke.github.GHCommitStatus;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHIssueComment;
 import org.kohsuke.github.GHPullRequest;
@@ -37,15 +41,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static io.jenkins.updatebot.EnvironmentVariables.CHECK_PR_STATUS;
 import static io.jenkins.updatebot.EnvironmentVariables.DELETE_MERGED_BRANCHES;
 import static io.jenkins.updatebot.EnvironmentVariables.MERGE;
 import static io.jenkins.updatebot.EnvironmentVariables.MERGE_METHOD;
-import static io.jenkins.updatebot.github.GitHubHelpers.getLastCommitStatus;
-import static io.jenkins.updatebot.github.Issues.getLabels;
+import static io.jenkins.updatebot.github.GitHubHelpers.retryGithub;
 import static io.jenkins.updatebot.github.Issues.isOpen;
 import static io.jenkins.updatebot.support.Markdown.UPDATEBOT;
 
@@ -68,6 +78,12 @@ public class UpdatePullRequests extends CommandSupport {
     @Parameter(names = "--merge-method", description = "merge, rebase or squash. Default is merge", arity = 1)
     private String mergeMethod = Systems.getConfigValue(MERGE_METHOD,"merge");
 
+    private PullRequestSnapshot pullRequestSnapshot;
+    private boolean pullRequestSnapshotLoaded;
+    private List<LocalRepository> pullRequestSnapshotRepositories;
+    private PullRequestScheduler scheduler;
+    private Map<String, List<WebhookEvent>> webhookEvents = Collections.emptyMap();
+
     public boolean isMergeOnSuccess() {
         return mergeOnSuccess;
     }
@@ -100,67 +116,295 @@ public class UpdatePullRequests extends CommandSupport {
         this.mergeMethod = mergeMethod;
     }
 
+    public PullRequestScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Sets the scheduler which is notified of the pull requests we check so that the update loop can decide when to check them again
+     */
+    public void setScheduler(PullRequestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public ParentContext run(Configuration configuration) throws IOException {
+        // lets load a new snapshot of the pull requests on each run
+        resetPullRequestSnapshot(null);
+        setWebhookEvents(Collections.emptyList());
+        return super.run(configuration);
+    }
+
+    /**
+     * Updates the pull requests of just the repositories with the given full names such as when webhook events
+     * tell us which repositories have changed
+     */
+    public ParentContext run(Configuration configuration, Collection<String> repositoryFullNames) throws IOException {
+        return run(configuration, repositoryFullNames, Collections.emptyList());
+    }
+
+    /**
+     * Updates the pull requests of just the repositories with the given full names. If all of the webhook events
+     * of a repository identify the pull requests they affect, by number or head commit, then only those pull
+     * requests are updated
+     */
+    public ParentContext run(Configuration configuration, Collection<String> repositoryFullNames, Collection<WebhookEvent> events) throws IOException {
+        validateConfiguration(configuration);
+
+        Set<String> names = new HashSet<>();
+        for (String name : repositoryFullNames) {
+            names.add(name.toLowerCase());
+        }
+        List<LocalRepository> repositories = new ArrayList<>();
+        for (LocalRepository repository : getLocalRepositories(configuration)) {
+            String fullName = repository.getFullName();
+            if (fullName != null && names.contains(fullName.toLowerCase())) {
+                repositories.add(repository);
+            }
+        }
+        resetPullRequestSnapshot(repositories);
+        setWebhookEvents(events);
+
+        ParentContext parentContext = new ParentContext();
+        int parallelism = configuration.getParallelism();
+        if (parallelism > 1 && repositories.size() > 1) {
+            runInParallel(configuration, parentContext, repositories, parallelism, false);
+        } else {
+            for (LocalRepository repository : repositories) {
+                CommandContext context = createCommandContext(repository, configuration);
+                parentContext.addChild(context);
+                run(context);
+            }
+        }
+        return parentContext;
+    }
+
+    protected synchronized void setWebhookEvents(Collection<WebhookEvent> events) {
+        Map<String, List<WebhookEvent>> map = new HashMap<>();
+        for (WebhookEvent event : events) {
+            if (event.getRepository() != null) {
+                map.computeIfAbsent(event.getRepository().toLowerCase(), key -> new ArrayList<>()).add(event);
+            }
+        }
+        webhookEvents = map;
+    }
+
+    /**
+     * Returns the numbers of the open pull requests of the repository which are affected by the webhook events or
+     * null if all of the pull requests should be updated. We can only tell which pull requests have not changed
+     * if the snapshot contains the repository
+     */
+    protected synchronized Set<Integer> getChangedPullRequestNumbers(String fullName, PullRequestSnapshot snapshot) {
+        List<WebhookEvent> events = webhookEvents.get(fullName.toLowerCase());
+        if (events == null || snapshot == null || !snapshot.contains(fullName)) {
+            return null;
+        }
+        Set<Integer> answer = new HashSet<>();
+        for (WebhookEvent event : events) {
+            if (!event.getPullRequestNumbers().isEmpty()) {
+                answer.addAll(event.getPullRequestNumbers());
+            } else if (event.getSha() != null) {
+                for (PullRequestInfo info : snapshot.getPullRequests(fullName)) {
+                    if (event.getSha().equals(info.getHeadSha())) {
+                        answer.add(info.getNumber());
+                    }
+                }
+            } else {
+                return null;
+            }
+        }
+        return answer;
+    }
+
+    protected synchronized void resetPullRequestSnapshot(List<LocalRepository> repositories) {
+        pullRequestSnapshot = null;
+        pullRequestSnapshotLoaded = false;
+        pullRequestSnapshotRepositories = repositories;
+    }
+
     @Override
     public void run(CommandContext context) throws IOException {
         Status contextStatus = Status.COMPLETE;
-        GHRepository ghRepository = context.gitHubRepository();
+        GitHubRepositoryInfo repositoryInfo = GitHubHelpers.getGitHubRepositoryInfo(context.getRepository());
+        Configuration configuration = context.getConfiguration();
+        PullRequestSnapshot snapshot = repositoryInfo != null ? getPullRequestSnapshot(configuration) : null;
+
+        // avoid loading the repository via the REST API if the snapshot shows there is nothing to do
+        GHRepository ghRepository = null;
+        if (repositoryInfo != null && (snapshot == null || !snapshot.contains(repositoryInfo.getFullName()) ||
+                !snapshot.getPullRequests(repositoryInfo.getFullName()).isEmpty() || snapshot.hasOpenIssues(repositoryInfo.getFullName()))) {
+            ghRepository = context.gitHubRepository();
+        }
 
         if (ghRepository != null) {
 
             // lets look for a pending issue
-            GHIssue issue = getOrFindIssue(context, ghRepository);
-            if (issue != null && isOpen(issue)) {
-                contextStatus = Status.PENDING;
+            if (snapshot == null || snapshot.hasOpenIssues(repositoryInfo.getFullName())) {
+                GHIssue issue = getOrFindIssue(context, ghRepository);
+                if (issue != null && isOpen(issue)) {
+                    contextStatus = Status.PENDING;
+                }
             }
 
-            List<GHPullRequest> pullRequests = PullRequests.getOpenPullRequests(ghRepository, context.getConfiguration());
-            for (GHPullRequest pullRequest : pullRequests) {
-                Configuration configuration = context.getConfiguration();
-                if (GitHubHelpers.hasLabel(getLabels(pullRequest), configuration.getGithubPullRequestLabel())) {
-                    context.setPullRequest(pullRequest);
-
-                    if (!GitHubHelpers.isMergeable(pullRequest) && checkPrStatus) {
-                        // lets re-run the update commands we can find on the PR
-                        CompositeCommand commands = loadCommandsFromPullRequest(context, ghRepository, pullRequest);
-                        if (commands != null) {
-                            commands.run(context, ghRepository, pullRequest);
-                        }
-                    }
-
-                    if (mergeOnSuccess && checkPrStatus) {
-                        try {
-                            GHCommitStatus status = getLastCommitStatus(ghRepository, pullRequest);
-                            ghRepository.getLastCommitStatus(pullRequest.getHead().getSha());
-                            if (status != null) {
-                                GHCommitState state = status.getState();
-                                if (state != null && state.equals(GHCommitState.SUCCESS) && GitHubHelpers.checkCommitStatus(ghRepository,pullRequest,GHCommitState.SUCCESS)) {
-                                    String message = Markdown.UPDATEBOT_ICON + " merging this pull request as its CI was successful";
-                                    mergePr(pullRequest, message);
-                                }
-                            }
-                        } catch (IOException e) {
-                            context.warn(LOG, "Failed to find last commit status for PR " + pullRequest.getHtmlUrl() + " " + e, e);
+            Set<Integer> changedNumbers = getChangedPullRequestNumbers(repositoryInfo.getFullName(), snapshot);
+            if (changedNumbers != null) {
+                for (PullRequestInfo info : snapshot.getPullRequests(repositoryInfo.getFullName())) {
+                    if (!changedNumbers.contains(info.getNumber())) {
+                        // the pull request has not changed so it stays pending and keeps its scheduled check
+                        contextStatus = Status.PENDING;
+                        if (scheduler != null) {
+                            scheduler.unchanged(context.getRepository().getFullName(), info.getNumber());
                         }
                     }
-
-                    //if pr status checks are skipped then just attempt to merge
-                    if (!checkPrStatus) {
-                        try {
-                            String message = Markdown.UPDATEBOT_ICON + " merging this pull request - checks on PR status were skipped";
-                            mergePr(pullRequest,message);
-                        } catch (IOException e) {
-                            context.warn(LOG, "Failed to merge PR " + pullRequest.getHtmlUrl() + " " + e, e);
+                }
+            }
+            if (snapshot != null && snapshot.contains(repositoryInfo.getFullName())) {
+                // the pull requests are only loaded via the REST API if we need to change them
+                for (PullRequestInfo info : snapshot.getPullRequests(repositoryInfo.getFullName())) {
+                    if (changedNumbers == null || changedNumbers.contains(info.getNumber())) {
+                        context.setPullRequest(null);
+                        context.setPullRequestInfo(info);
+                        if (updatePullRequest(context, ghRepository)) {
+                            contextStatus = Status.PENDING;
                         }
                     }
-                    if (isOpen(pullRequest)) {
+                }
+            } else {
+                for (GHPullRequest pullRequest : PullRequests.getOpenPullRequests(ghRepository, configuration)) {
+                    context.setPullRequest(pullRequest);
+                    context.setPullRequestInfo(null);
+                    if (updatePullRequest(context, ghRepository)) {
                         contextStatus = Status.PENDING;
                     }
                 }
             }
         }
+        if (scheduler != null) {
+            scheduler.repositoryChecked(context.getRepository().getFullName(), contextStatus == Status.PENDING);
+        }
         context.setStatus(contextStatus);
     }
 
+    /**
+     * Rebases or merges the current pull request of the context returning true if it is still open. If we only have
+     * the snapshot of the pull request then it is only loaded via the REST API when we need to change it
+     */
+    protected boolean updatePullRequest(CommandContext context, GHRepository ghRepository) throws IOException {
+        PullRequestInfo info = context.getPullRequestInfo();
+        String url = getPullRequestUrl(context);
+        boolean mergeable;
+        if (info != null && info.getMergeable() != null) {
+            mergeable = info.getMergeable();
+        } else {
+            mergeable = GitHubHelpers.isMergeable(getOrLoadPullRequest(context, ghRepository));
+        }
+        if (!mergeable && checkPrStatus) {
+            // lets re-run the update commands we can find on the PR
+            CompositeCommand commands = loadCommandsFromPullRequest(context, ghRepository);
+            if (commands != null) {
+                commands.run(context, ghRepository, getOrLoadPullRequest(context, ghRepository));
+            }
+        }
+
+        if (mergeOnSuccess && checkPrStatus) {
+            try {
+                boolean successful;
+                if (info != null) {
+                    successful = info.isSuccessful();
+                } else {
+                    successful = GitHubHelpers.isCommitStatusSuccessful(ghRepository, context.getPullRequest(), null);
+                }
+                if (successful) {
+                    String message = Markdown.UPDATEBOT_ICON + " merging this pull request as its CI was successful";
+                    mergePr(getOrLoadPullRequest(context, ghRepository), message);
+                }
+            } catch (IOException e) {
+                context.warn(LOG, "Failed to find last commit status for PR " + url + " " + e, e);
+            }
+        }
+
+        //if pr status checks are skipped then just attempt to merge
+        if (!checkPrStatus) {
+            try {
+                String message = Markdown.UPDATEBOT_ICON + " merging this pull request - checks on PR status were skipped";
+                mergePr(getOrLoadPullRequest(context, ghRepository), message);
+            } catch (IOException e) {
+                context.warn(LOG, "Failed to merge PR " + url + " " + e, e);
+            }
+        }
+
+        // the snapshot only contains open pull requests
+        GHPullRequest pullRequest = context.getPullRequest();
+        if (pullRequest != null && !isOpen(pullRequest)) {
+            return false;
+        }
+        if (scheduler != null) {
+            if (info != null) {
+                scheduler.checked(context.getRepository().getFullName(), info);
+            } else {
+                scheduler.checked(context.getRepository().getFullName(), pullRequest, null);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the pull request of the context loading it via the REST API if we only have its snapshot
+     */
+    protected GHPullRequest getOrLoadPullRequest(CommandContext context, GHRepository ghRepository) throws IOException {
+        GHPullRequest pullRequest = context.getPullRequest();
+        if (pullRequest == null) {
+            int number = context.getPullRequestInfo().getNumber();
+            pullRequest = retryGithub(() -> ghRepository.getPullRequest(number));
+            if (pullRequest == null) {
+                throw new IOException("Could not find pull request " + number + " of repository " + ghRepository.getFullName());
+            }
+            context.setPullRequest(pullRequest);
+        }
+        return pullRequest;
+    }
+
+    protected static String getPullRequestUrl(CommandContext context) {
+        GHPullRequest pullRequest = context.getPullRequest();
+        if (pullRequest != null) {
+            return Strings.toString(pullRequest.getHtmlUrl());
+        }
+        PullRequestInfo info = context.getPullRequestInfo();
+        return info != null ? info.getUrl() : null;
+    }
+
+    /**
+     * Lazily loads the open pull requests of all the repositories via the GitHub GraphQL API in batches.
+     * Returns null if GraphQL is disabled or fails in which case the REST API is used for each pull request
+     */
+    protected synchronized PullRequestSnapshot getPullRequestSnapshot(Configuration configuration) {
+        if (!pullRequestSnapshotLoaded) {
+            pullRequestSnapshotLoaded = true;
+            if (configuration.isGithubGraphQL()) {
+                GitHubGraphQLClient client = GitHubGraphQLClient.create(configuration);
+                if (client != null) {
+                    try {
+                        List<String> fullNames = new ArrayList<>();
+                        List<LocalRepository> localRepositories = pullRequestSnapshotRepositories;
+                        if (localRepositories == null) {
+                            localRepositories = getLocalRepositories(configuration);
+                        }
+                        for (LocalRepository repository : localRepositories) {
+                            GitHubRepositoryInfo info = GitHubHelpers.getGitHubRepositoryInfo(repository);
+                            if (info != null) {
+                                fullNames.add(info.getFullName());
+                            }
+                        }
+                        pullRequestSnapshot = PullRequestSnapshot.load(client, fullNames, configuration.getGithubPullRequestLabel());
+                    } catch (IOException e) {
+                        configuration.warn(LOG, "Failed to load the pull requests via GraphQL so using the REST API instead. " + e, e);
+                    }
+                }
+            }
+        }
+        return pullRequestSnapshot;
+    }
+
     public void mergePr(GHPullRequest pullRequest, String message) throws IOException {
         //match merge method to enum, case insensitive
         GHPullRequest.MergeMethod gitMergeMethod = Arrays.stream(GHPullRequest.MergeMethod.values())
@@ -175,17 +419,29 @@ public class UpdatePullRequests extends CommandSupport {
     /**
      * Lets load the old command context from comments on the PullRequest so that we can re-run a command to rebase things.
      */
-    protected CompositeCommand loadCommandsFromPullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
-        List<GHIssueComment> comments = pullRequest.getComments();
+    protected CompositeCommand loadCommandsFromPullRequest(CommandContext context, GHRepository ghRepository) throws IOException {
         String lastCommand = null;
-        for (GHIssueComment comment : comments) {
-            String command = updateBotCommentCommand(context, comment);
-            if (command != null) {
-                lastCommand = command;
+        PullRequestInfo info = context.getPullRequestInfo();
+        if (info != null) {
+            for (PullRequestInfo.Comment comment : info.getComments()) {
+                String command = updateBotCommentCommand(context, comment.getLogin(), comment.getBody());
+                if (command != null) {
+                    lastCommand = command;
+                }
+            }
+        }
+        if (lastCommand == null && (info == null || !info.hasAllComments())) {
+            List<GHIssueComment> comments = getOrLoadPullRequest(context, ghRepository).getComments();
+            for (GHIssueComment comment : comments) {
+                GHUser user = comment.getUser();
+                String command = updateBotCommentCommand(context, user != null ? user.getLogin() : null, comment.getBody());
+                if (command != null) {
+                    lastCommand = command;
+                }
             }
         }
         if (lastCommand == null) {
-            context.warn(LOG, "No UpdateBot comment found on pull request " + pullRequest.getHtmlUrl() + " so cannot rebase!");
+            context.warn(LOG, "No UpdateBot comment found on pull request " + getPullRequestUrl(context) + " so cannot rebase!");
             return null;
         }
         return parseUpdateBotCommandComment(context, lastCommand);
@@ -221,11 +477,9 @@ public class UpdatePullRequests extends CommandSupport {
         }
     }
 
-    private String updateBotCommentCommand(CommandContext context, GHIssueComment comment) throws IOException {
-        GHUser user = comment.getUser();
-        if (user != null) {
-            if (Objects.equal(context.getConfiguration().getGithubUsername(), user.getLogin())) {
-                String body = comment.getBody();
+    private String updateBotCommentCommand(CommandContext context, String login, String body) {
+        if (login != null) {
+            if (Objects.equal(context.getConfiguration().getGithubUsername(), login)) {
                 if (body != null) {
                     body = body.trim();
                     if (body.startsWith(PullRequests.COMMAND_COMMENT_PREFIX)) {
@@ -15,9 +15,6 @@
  */
 package io.jenkins.updatebot.git;
 
-import io.jenkins.updatebot.support.ProcessHelper;
-import io.fabric8.utils.Strings;
-
 import java.io.File;
 import java.io.IOException;
 
@@ -25,19 +22,9 @@ import java.io.IOException;
  */
 public interface GitPlugin {
     /**
-     * Returns true if the given directory has modified files
+     * Returns true if the given directory has modified or untracked files, or if its status could not be found
      */
-    static boolean hasChangedFiles(File dir) {
-        try {
-            String output = ProcessHelper.runCommandCaptureOutput(dir, "git", "status", "-s");
-            if (output != null) {
-                output = output.trim();
-            }
-            return Strings.notEmpty(output);
-        } catch (IOException e) {
-            return false;
-        }
-    }
+    boolean hasChangedFiles(File dir);
 
     void setRemoteURL(File dir, String remoteURL);
 
@@ -47,6 +34,14 @@ public interface GitPlugin {
 
     void clone(File dir, String cloneUrl, String name);
 
+    /**
+     * Clones the given branch of the repository; implementations which do not support single branch clones
+     * can clone the whole repository
+     */
+    default void clone(File dir, String cloneUrl, String name, String branch) {
+        clone(dir, cloneUrl, name);
+    }
+
     void configUserNameAndEmail(File dir);
 
     boolean commitToBranch(File dir, String branch, String commitComment);
@@ -69,5 +64,15 @@ public interface GitPlugin {
 
     String currentBranch(File dir) throws IOException;
 
+    /**
+     * Returns the commit SHA of the local HEAD
+     */
+    String headCommit(File dir) throws IOException;
+
+    /**
+     * Returns the commit SHA of the given branch in the remote repository or null if the branch does not exist
+     */
+    String remoteBranchCommit(File dir, String branch) throws IOException;
+
     void updateSubmodule(File dir);
 }
@@ -28,18 +28,39 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
  */
 public class GitPluginCLI implements GitPlugin {
     private static final transient Logger LOG = LoggerFactory.getLogger(GitPluginCLI.class);
-    private final Configuration configuration;
+    protected final Configuration configuration;
+    private final Object referenceInitLock = new Object();
+    private final Map<String, Object> referenceLocks = new ConcurrentHashMap<>();
 
     public GitPluginCLI(Configuration configuration) {
         this.configuration = configuration;
     }
 
+    @Override
+    public boolean hasChangedFiles(File dir) {
+        try {
+            String output = ProcessHelper.runCommandCaptureOutput(dir, "git", "status", "-s");
+            if (output != null) {
+                output = output.trim();
+            }
+            return Strings.notEmpty(output);
+        } catch (IOException e) {
+            LOG.debug("Failed to find the status of " + dir + " : " + e);
+            return true;
+        }
+    }
+
     @Override
     public void setRemoteURL(File dir, String remoteURL) {
         if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "remote", "set-url", "origin", remoteURL) != 0) {
@@ -62,7 +83,84 @@ public class GitPluginCLI implements GitPlugin {
 
     @Override
     public void clone(File dir, String cloneUrl, String repoName) {
-        ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, "git", "clone", cloneUrl, repoName);
+        clone(dir, cloneUrl, repoName, null);
+    }
+
+    @Override
+    public void clone(File dir, String cloneUrl, String repoName, String branch) {
+        List<String> commands = new ArrayList<>(Arrays.asList("git", "clone"));
+        int depth = configuration.getCloneDepth();
+        if (depth > 0) {
+            commands.add("--depth");
+            commands.add(Integer.toString(depth));
+        }
+        if (configuration.isCloneSingleBranch()) {
+            commands.add("--single-branch");
+        } else if (depth > 0) {
+            // shallow clones default to a single branch
+            commands.add("--no-single-branch");
+        }
+        if (Strings.notEmpty(branch)) {
+            commands.add("--branch");
+            commands.add(branch);
+        }
+        String filter = configuration.getCloneFilter();
+        if (Strings.notEmpty(filter)) {
+            commands.add("--filter=" + filter);
+        }
+        if (configuration.isCloneReference()) {
+            File referenceDir;
+            if (depth > 0 || Strings.notEmpty(filter)) {
+                // fetching the full history into the reference repository would defeat a shallow or partial clone
+                // so lets only reuse the objects already in the reference repository
+                referenceDir = configuration.getCloneReferenceDir();
+                if (!new File(referenceDir, "objects").isDirectory()) {
+                    referenceDir = null;
+                }
+            } else {
+                referenceDir = fetchIntoReferenceRepository(cloneUrl, branch);
+            }
+            if (referenceDir != null) {
+                commands.add("--reference-if-able");
+                commands.add(referenceDir.getPath());
+            }
+        }
+        commands.add(cloneUrl);
+        commands.add(repoName);
+        ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, commands.toArray(new String[commands.size()]));
+    }
+
+    /**
+     * Fetches the branch of the given repository, or its default branch if no branch is given, into the shared
+     * reference repository so that any objects already fetched for other repositories (forks, mirrors etc) do not
+     * need to be downloaded again.
+     * <p>
+     * Returns the reference repository or null if it could not be updated
+     */
+    protected File fetchIntoReferenceRepository(String cloneUrl, String branch) {
+        File referenceDir = configuration.getCloneReferenceDir();
+        synchronized (referenceInitLock) {
+            if (!new File(referenceDir, "objects").isDirectory()) {
+                referenceDir.mkdirs();
+                if (ProcessHelper.runCommandIgnoreOutput(referenceDir, "git", "init", "--bare") != 0) {
+                    configuration.warn(LOG, "Failed to create the reference repository " + referenceDir);
+                    return null;
+                }
+                // clones refer to these objects so we must never prune them
+                ProcessHelper.runCommandIgnoreOutput(referenceDir, "git", "config", "gc.auto", "0");
+            }
+        }
+        // lets use a ref namespace per repository so that objects stay reachable; the URL is passed
+        // explicitly to avoid storing any credentials in the reference repository configuration
+        String name = GitHelper.removeUsernamePassword(cloneUrl).replaceAll("[^A-Za-z0-9._-]+", "-");
+        String refSpec = Strings.notEmpty(branch) ? "+refs/heads/" + branch + ":refs/remotes/" + name + "/" + branch : "+HEAD:refs/remotes/" + name + "/HEAD";
+        // fetches of different repositories update different refs so only need to be serialised per repository
+        synchronized (referenceLocks.computeIfAbsent(name, key -> new Object())) {
+            if (ProcessHelper.runCommandIgnoreOutput(referenceDir, "git", "fetch", "--quiet", cloneUrl, refSpec) != 0) {
+                configuration.warn(LOG, "Failed to fetch " + GitHelper.removeUsernamePassword(cloneUrl) + " into the reference repository " + referenceDir);
+            }
+        }
+        return referenceDir;
     }
 
     @Override
@@ -95,17 +193,24 @@ public class GitPluginCLI implements GitPlugin {
             configuration.warn(LOG, "Failed to load github username and email: " + e, e);
         }
         if (Strings.notEmpty(email)) {
-            ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.email", email);
+            setConfigValue(dir, "user.email", email);
         } else {
             configuration.error(LOG, "No email available for GitHub login!");
         }
         if (Strings.notEmpty(personName)) {
-            ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.name", personName);
+            setConfigValue(dir, "user.name", personName);
         } else {
             configuration.error(LOG, "No name available for GitHub login!");
         }
     }
 
+    /**
+     * Sets a value in the git configuration of the repository such as <code>user.name</code>
+     */
+    protected void setConfigValue(File dir, String name, String value) {
+        ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", name, value);
+    }
+
     @Override
     public boolean commitToBranch(File dir, String branch, String commitComment) {
         if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "checkout", "-b", branch) == 0) {
@@ -178,6 +283,24 @@ public class GitPluginCLI implements GitPlugin {
         return ProcessHelper.runCommandCaptureOutput(dir, "git", "rev-parse", "--abbrev-ref", "HEAD").trim();
     }
 
+    @Override
+    public String headCommit(File dir) throws IOException {
+        return ProcessHelper.runCommandCaptureOutput(dir, "git", "rev-parse", "HEAD").trim();
+    }
+
+    @Override
+    public String remoteBranchCommit(File dir, String branch) throws IOException {
+        String output = ProcessHelper.runCommandCaptureOutput(dir, "git", "ls-remote", "origin", "refs/heads/" + branch);
+        if (output != null) {
+            // the output is of the form: <sha>\t<ref>
+            String[] values = output.trim().split("\\s+");
+            if (values.length > 1) {
+                return values[0];
+            }
+        }
+        return null;
+    }
+
     @Override
     public void updateSubmodule(File dir) {
         ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, "git", "submodule", "update", "--init", "--remote");
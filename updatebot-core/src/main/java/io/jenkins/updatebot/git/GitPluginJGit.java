@@ -0,0 +1,402 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.git;
+
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.support.Strings;
+import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.CreateBranchCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.PullResult;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link GitPlugin} which performs the git operations in process using JGit rather than forking a
+ * <code>git</code> process for each operation.
+ * <p>
+ * The most recently used repositories are kept open so that their object databases are reused across operations;
+ * the least recently used repository is released once more than {@link #MAX_OPEN_REPOSITORIES} are open, though it
+ * is only closed once any operation still using it has completed. Anything JGit
+ * does not support (shallow, partial or reference clones and remote submodule updates) falls back to the
+ * <code>git</code> command line.
+ */
+public class GitPluginJGit extends GitPluginCLI {
+    private static final transient Logger LOG = LoggerFactory.getLogger(GitPluginJGit.class);
+
+    public static final int MAX_OPEN_REPOSITORIES = 50;
+
+    private final int maxOpenRepositories;
+    private final Map<File, Repository> repositories = new LinkedHashMap<File, Repository>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Repository> eldest) {
+            if (size() > maxOpenRepositories) {
+                // this only releases the use by the cache so the repository stays open until all operations close it
+                eldest.getValue().close();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public GitPluginJGit(Configuration configuration) {
+        this(configuration, MAX_OPEN_REPOSITORIES);
+    }
+
+    public GitPluginJGit(Configuration configuration, int maxOpenRepositories) {
+        super(configuration);
+        this.maxOpenRepositories = Math.max(maxOpenRepositories, 1);
+    }
+
+    @Override
+    public boolean hasChangedFiles(File dir) {
+        try (Git git = git(dir)) {
+            return !git.status().call().isClean();
+        } catch (IOException | GitAPIException e) {
+            LOG.debug("Failed to find the status of " + dir + " : " + e);
+            return true;
+        }
+    }
+
+    @Override
+    public void setRemoteURL(File dir, String remoteURL) {
+        try {
+            setConfigValue(dir, "remote", "origin", "url", remoteURL);
+        } catch (IOException e) {
+            configuration.warn(LOG, "Could not set the remote URL of " + remoteURL + ". " + e, e);
+        }
+    }
+
+    @Override
+    public boolean push(File dir, String localBranch) {
+        try (Git git = git(dir)) {
+            Iterable<PushResult> results = git.push().setRemote("origin").setForce(true).
+                    setRefSpecs(createPushRefSpec(localBranch)).
+                    setCredentialsProvider(createCredentialsProvider()).call();
+            for (PushResult result : results) {
+                for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+                    RemoteRefUpdate.Status status = update.getStatus();
+                    if (status != RemoteRefUpdate.Status.OK && status != RemoteRefUpdate.Status.UP_TO_DATE) {
+                        LOG.warn("Failed to push " + update.getRemoteName() + " from " + dir + " : " + status + " " + update.getMessage());
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (IOException | GitAPIException e) {
+            LOG.warn("Failed to push " + localBranch + " from " + dir + " : " + e);
+            return false;
+        }
+    }
+
+    @Override
+    public void pull(File dir, String cloneUrl) {
+        LOG.debug("Pulling: " + dir + " repo: " + cloneUrl);
+        try (Git git = git(dir)) {
+            PullResult result = git.pull().setCredentialsProvider(createCredentialsProvider()).call();
+            if (!result.isSuccessful()) {
+                configuration.error(LOG, "Failed to pull " + dir + " : " + result);
+            }
+        } catch (IOException | GitAPIException e) {
+            configuration.error(LOG, "Failed to pull " + dir + " : " + e, e);
+        }
+    }
+
+    @Override
+    public void clone(File dir, String cloneUrl, String repoName, String branch) {
+        if (configuration.getCloneDepth() > 0 || Strings.notEmpty(configuration.getCloneFilter()) || configuration.isCloneReference()) {
+            // JGit does not support shallow, partial or reference clones
+            super.clone(dir, cloneUrl, repoName, branch);
+            return;
+        }
+        File repoDir = new File(dir, repoName);
+        CloneCommand command = Git.cloneRepository().setURI(cloneUrl).setDirectory(repoDir).
+                setCredentialsProvider(createCredentialsProvider());
+        if (Strings.notEmpty(branch)) {
+            String ref = "refs/heads/" + branch;
+            command.setBranch(ref);
+            if (configuration.isCloneSingleBranch()) {
+                command.setCloneAllBranches(false).setBranchesToClone(Collections.singletonList(ref));
+            }
+        }
+        try {
+            Git git = command.call();
+            cacheRepository(repoDir.getAbsoluteFile(), git.getRepository());
+        } catch (GitAPIException e) {
+            configuration.error(LOG, "Failed to clone " + GitHelper.removeUsernamePassword(cloneUrl) + " : " + e, e);
+        }
+    }
+
+    @Override
+    protected void setConfigValue(File dir, String name, String value) {
+        int idx = name.indexOf('.');
+        try {
+            setConfigValue(dir, name.substring(0, idx), null, name.substring(idx + 1), value);
+        } catch (IOException e) {
+            configuration.error(LOG, "Failed to set git config " + name + " in " + dir + " : " + e, e);
+        }
+    }
+
+    @Override
+    public boolean commitToBranch(File dir, String branch, String commitComment) {
+        try (Git git = git(dir)) {
+            git.checkout().setCreateBranch(true).setName(branch).call();
+        } catch (IOException | GitAPIException e) {
+            LOG.warn("Failed to create branch " + branch + " in " + dir + " : " + e);
+            return false;
+        }
+        return addAndCommit(dir, commitComment);
+    }
+
+    @Override
+    public void deleteBranch(File dir, String localBranch) {
+        try (Git git = git(dir)) {
+            git.branchDelete().setBranchNames(localBranch).setForce(true).call();
+        } catch (IOException | GitAPIException e) {
+            LOG.debug("Failed to delete branch " + localBranch + " in " + dir + " : " + e);
+        }
+    }
+
+    @Override
+    public boolean addAndCommit(File dir, String commitComment) {
+        try (Git git = git(dir)) {
+            git.add().addFilepattern(".").call();
+            // lets also stage any removed files like the git command line does
+            git.add().setUpdate(true).addFilepattern(".").call();
+            Status status = git.status().call();
+            if (status.getAdded().isEmpty() && status.getChanged().isEmpty() && status.getRemoved().isEmpty()) {
+                LOG.warn("Nothing to commit in " + dir);
+                return false;
+            }
+            git.commit().setMessage(commitComment).call();
+            return true;
+        } catch (IOException | GitAPIException e) {
+            LOG.warn("Failed to commit in " + dir + " : " + e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean stashAndCheckoutBranch(File dir, String branch, boolean createNotExist) {
+        try (Git git = git(dir)) {
+            git.stashCreate().call();
+        } catch (IOException | GitAPIException e) {
+            LOG.warn("Failed to checkout and create " + branch + " in " + dir + " : " + e);
+            return false;
+        }
+        return checkoutBranch(dir, branch, createNotExist);
+    }
+
+    @Override
+    public boolean checkoutBranch(File dir, String branch, boolean createNotExist) {
+        try (Git git = git(dir)) {
+            Repository repository = git.getRepository();
+            if (repository.exactRef("refs/heads/" + branch) != null) {
+                git.checkout().setName(branch).call();
+                return true;
+            }
+            if (repository.exactRef("refs/remotes/origin/" + branch) != null) {
+                // lets create a local tracking branch like the git command line does
+                git.checkout().setCreateBranch(true).setName(branch).setStartPoint("origin/" + branch).
+                        setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK).call();
+                return true;
+            }
+            if (createNotExist) {
+                LOG.warn("Failed to checkout " + branch + ". Try to create");
+                git.checkout().setCreateBranch(true).setName(branch).call();
+                return true;
+            }
+        } catch (IOException | GitAPIException e) {
+            LOG.warn("Failed to checkout " + branch + " in " + dir + " : " + e);
+        }
+        return false;
+    }
+
+    @Override
+    public void revertChanges(File dir) throws IOException {
+        try (Git git = git(dir)) {
+            git.stashCreate().call();
+        } catch (GitAPIException e) {
+            throw new IOException("Failed to stash old changes! " + e, e);
+        }
+    }
+
+    @Override
+    public String diff(File dir, String branch) throws IOException {
+        try (Git git = git(dir)) {
+            Repository repository = git.getRepository();
+            ObjectId tree = repository.resolve(branch + "^{tree}");
+            if (tree == null) {
+                throw new IOException("Could not resolve " + branch + " in " + dir);
+            }
+            CanonicalTreeParser oldTree = new CanonicalTreeParser();
+            try (ObjectReader reader = repository.newObjectReader()) {
+                oldTree.reset(reader, tree);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            git.diff().setOldTree(oldTree).setOutputStream(out).call();
+            return out.toString("UTF-8");
+        } catch (GitAPIException e) {
+            throw new IOException("Failed to diff " + dir + " with " + branch + ". " + e, e);
+        }
+    }
+
+    @Override
+    public String currentBranch(File dir) throws IOException {
+        try (Repository repository = repository(dir)) {
+            return repository.getBranch();
+        }
+    }
+
+    @Override
+    public String headCommit(File dir) throws IOException {
+        try (Repository repository = repository(dir)) {
+            ObjectId head = repository.resolve("HEAD");
+            if (head == null) {
+                throw new IOException("No HEAD commit in " + dir);
+            }
+            return head.name();
+        }
+    }
+
+    @Override
+    public String remoteBranchCommit(File dir, String branch) throws IOException {
+        try (Git git = git(dir)) {
+            Map<String, Ref> refs = git.lsRemote().setRemote("origin").setHeads(true).
+                    setCredentialsProvider(createCredentialsProvider()).callAsMap();
+            Ref ref = refs.get("refs/heads/" + branch);
+            if (ref != null && ref.getObjectId() != null) {
+                return ref.getObjectId().name();
+            }
+            return null;
+        } catch (GitAPIException e) {
+            throw new IOException("Failed to list the remote branches of " + dir + ". " + e, e);
+        }
+    }
+
+    @Override
+    public void updateSubmodule(File dir) {
+        // JGit cannot update submodules to their remote branch so lets only use git if there are any submodules
+        if (new File(dir, ".gitmodules").isFile()) {
+            super.updateSubmodule(dir);
+        }
+    }
+
+    // Implementation methods
+    //-------------------------------------------------------------------------
+
+    /**
+     * Returns a {@link Git} for the cached repository of the given directory which must be closed after use
+     */
+    protected Git git(File dir) throws IOException {
+        return new Git(repository(dir)) {
+            @Override
+            public void close() {
+                super.close();
+                getRepository().close();
+            }
+        };
+    }
+
+    /**
+     * Returns the cached repository of the given directory opening it if required. The repository must be closed
+     * after use which only closes it once it is also no longer cached
+     */
+    protected synchronized Repository repository(File dir) throws IOException {
+        File key = dir.getAbsoluteFile();
+        Repository repository = repositories.get(key);
+        if (repository == null) {
+            repository = openRepository(key);
+            repositories.put(key, repository);
+        }
+        repository.incrementOpen();
+        return repository;
+    }
+
+    protected Repository openRepository(File dir) throws IOException {
+        return new FileRepositoryBuilder().setWorkTree(dir).setGitDir(new File(dir, ".git")).setMustExist(true).build();
+    }
+
+    /**
+     * Caches the given open repository closing any repository previously cached for the directory
+     */
+    protected synchronized void cacheRepository(File dir, Repository repository) {
+        Repository old = repositories.put(dir, repository);
+        if (old != null && old != repository) {
+            old.close();
+        }
+    }
+
+    protected void setConfigValue(File dir, String section, String subsection, String name, String value) throws IOException {
+        try (Repository repository = repository(dir)) {
+            StoredConfig config = repository.getConfig();
+            config.setString(section, subsection, name, value);
+            config.save();
+        }
+    }
+
+    protected CredentialsProvider createCredentialsProvider() {
+        String username = configuration.getGithubUsername();
+        String password = configuration.getGithubPassword();
+        String token = configuration.getGithubToken();
+        if (Strings.notEmpty(username) && Strings.notEmpty(password)) {
+            return new UsernamePasswordCredentialsProvider(username, password);
+        } else if (Strings.notEmpty(token)) {
+            return new UsernamePasswordCredentialsProvider(token, "");
+        }
+        return null;
+    }
+
+    /**
+     * Converts the <code>local</code> or <code>local:remote</code> branch names used by the git command line
+     * into a fully qualified {@link RefSpec}
+     */
+    protected static RefSpec createPushRefSpec(String branches) {
+        String local = branches;
+        String remote = branches;
+        int idx = branches.indexOf(':');
+        if (idx > 0) {
+            local = branches.substring(0, idx);
+            remote = branches.substring(idx + 1);
+        }
+        return new RefSpec(qualifyBranch(local) + ":" + qualifyBranch(remote));
+    }
+
+    private static String qualifyBranch(String branch) {
+        return branch.startsWith("refs/") ? branch : "refs/heads/" + branch;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.squareup.okhttp.Cache;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.OkUrlFactory;
+import org.kohsuke.github.HttpConnector;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * A {@link HttpConnector} for the GitHub client which keeps a size bounded cache of responses on disk.
+ * <p>
+ * Every request is revalidated with <code>If-None-Match</code> / <code>If-Modified-Since</code> so that we always see
+ * the current state of pull requests, but a <code>304 Not Modified</code> response is served from the cache and does
+ * not count against the GitHub rate limit.
+ */
+public class CachingHttpConnector implements HttpConnector {
+    private final Cache cache;
+    private final OkUrlFactory urlFactory;
+
+    public CachingHttpConnector(File directory, long maxSizeBytes) {
+        this.cache = new Cache(directory, maxSizeBytes);
+        OkHttpClient client = new OkHttpClient();
+        client.setCache(cache);
+        this.urlFactory = new OkUrlFactory(client);
+    }
+
+    @Override
+    public HttpURLConnection connect(URL url) throws IOException {
+        HttpURLConnection connection = urlFactory.open(url);
+        // GitHub responses are cacheable for 60 seconds so lets force a conditional request each time
+        connection.setRequestProperty("Cache-Control", "max-age=0");
+        return connection;
+    }
+
+    /**
+     * Returns the number of responses which were served from the cache including those revalidated with a 304
+     */
+    public int getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * Returns the number of responses which had to be downloaded
+     */
+    public int getMissCount() {
+        return cache.getNetworkCount() - getConditionalHitCount();
+    }
+
+    public int getRequestCount() {
+        return cache.getRequestCount();
+    }
+
+    /**
+     * Returns the number of responses which were revalidated with a <code>304 Not Modified</code> response
+     */
+    public int getConditionalHitCount() {
+        // OkHttp counts a conditional hit as both a network request and a cache hit
+        return Math.max(0, cache.getHitCount() + cache.getNetworkCount() - cache.getRequestCount());
+    }
+
+    public long getSize() throws IOException {
+        return cache.getSize();
+    }
+
+    public String describe() {
+        return "GitHub cache hits: " + getHitCount() + " (" + getConditionalHitCount() + " not modified) misses: " + getMissCount() + " requests: " + getRequestCount();
+    }
+}
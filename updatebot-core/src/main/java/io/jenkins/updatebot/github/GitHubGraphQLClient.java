@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.support.Strings;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * A minimal client for the <a href="https://developer.github.com/v4/">GitHub GraphQL API</a> which is used to
+ * query lots of repositories in a single round trip
+ */
+public class GitHubGraphQLClient {
+    public static final String GITHUB_API_URL = "https://api.github.com";
+    public static final String DEFAULT_URL = GITHUB_API_URL + "/graphql";
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final transient Logger LOG = LoggerFactory.getLogger(GitHubGraphQLClient.class);
+
+    private final String url;
+    private final String authorization;
+    private final CloseableHttpClient client = HttpClientBuilder.create().build();
+
+    public GitHubGraphQLClient(String url, String authorization) {
+        this.url = url;
+        this.authorization = authorization;
+    }
+
+    /**
+     * Creates a client using the GitHub credentials of the configuration or returns null if there are no credentials
+     * as the GraphQL API does not support anonymous access
+     */
+    public static GitHubGraphQLClient create(Configuration configuration) {
+        String username = configuration.getGithubUsername();
+        String password = configuration.getGithubPassword();
+        String token = configuration.getGithubToken();
+        String authorization;
+        if (Strings.notEmpty(username) && Strings.notEmpty(password)) {
+            String text = username + ":" + password;
+            authorization = "Basic " + Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+        } else if (Strings.notEmpty(token)) {
+            authorization = "bearer " + token;
+        } else {
+            return null;
+        }
+        return new GitHubGraphQLClient(getGraphQLUrl(configuration.getGithubApiUrl()), authorization);
+    }
+
+    /**
+     * Returns the GraphQL endpoint for the given REST API URL; on GitHub Enterprise the REST API is at
+     * <code>/api/v3</code> and the GraphQL API is at <code>/api/graphql</code>
+     */
+    public static String getGraphQLUrl(String apiUrl) {
+        if (Strings.empty(apiUrl)) {
+            return DEFAULT_URL;
+        }
+        String url = apiUrl;
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        if (url.endsWith("/v3")) {
+            url = url.substring(0, url.length() - 3);
+        }
+        return url + "/graphql";
+    }
+
+    /**
+     * Performs the query returning the <code>data</code> of the response
+     *
+     * @throws IOException if the request failed or the response contains errors and no data
+     */
+    public JsonNode query(String query) throws IOException {
+        ObjectNode body = OBJECT_MAPPER.createObjectNode();
+        body.put("query", query);
+
+        HttpPost post = new HttpPost(url);
+        post.setHeader("Authorization", authorization);
+        post.setEntity(new StringEntity(OBJECT_MAPPER.writeValueAsString(body), ContentType.APPLICATION_JSON));
+
+        JsonNode response;
+        try (CloseableHttpResponse httpResponse = client.execute(post)) {
+            int statusCode = httpResponse.getStatusLine().getStatusCode();
+            String text = EntityUtils.toString(httpResponse.getEntity(), StandardCharsets.UTF_8);
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new IOException("GitHub GraphQL query failed with status " + statusCode + ": " + text);
+            }
+            response = OBJECT_MAPPER.readTree(text);
+        }
+        JsonNode data = response.get("data");
+        JsonNode errors = response.get("errors");
+        if (errors != null && errors.size() > 0) {
+            if (data == null || data.isNull()) {
+                throw new IOException("GitHub GraphQL query failed: " + errors);
+            }
+            // missing repositories are reported as errors along with the data for the others
+            LOG.warn("GitHub GraphQL query returned errors: " + errors);
+        }
+        return data;
+    }
+
+    /**
+     * Returns the given text as a quoted GraphQL string literal
+     */
+    public static String quote(String text) throws IOException {
+        return OBJECT_MAPPER.writeValueAsString(text);
+    }
+}
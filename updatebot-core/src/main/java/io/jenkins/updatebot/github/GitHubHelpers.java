@@ -48,14 +48,14 @@ public class GitHubHelpers {
 
     public static void closeOpenUpdateBotIssuesAndPullRequests(String prLabel, List<LocalRepository> repositories) {
         for (LocalRepository repository : repositories) {
-            GHRepository ghRepo = GitHubHelpers.getGitHubRepository(repository);
-            if (ghRepo != null) {
-                try {
+            try {
+                GHRepository ghRepo = GitHubHelpers.getGitHubRepository(repository);
+                if (ghRepo != null) {
                     closePullRequests(PullRequests.getOpenPullRequests(ghRepo, prLabel));
                     closeIssues(Issues.getOpenIssues(ghRepo, prLabel));
-                } catch (IOException e) {
-                    LOG.warn("Failed to close pending open Pull Requests on " + repository.getCloneUrl());
                 }
+            } catch (IOException e) {
+                LOG.warn("Failed to close pending open Pull Requests on " + repository.getCloneUrl());
             }
         }
     }
@@ -75,7 +75,7 @@ public class GitHubHelpers {
     /**
      * Returns the underlying GitHub repository if this repository is on github
      */
-    public static GHRepository getGitHubRepository(LocalRepository repository) {
+    public static GHRepository getGitHubRepository(LocalRepository repository) throws IOException {
         GitRepository repo = repository.getRepo();
         if (repo instanceof GithubRepository) {
             GithubRepository githubRepository = (GithubRepository) repo;
@@ -84,6 +84,18 @@ public class GitHubHelpers {
         return null;
     }
 
+    /**
+     * Returns the cached details of the GitHub repository without calling the GitHub API or null if this
+     * repository is not on github
+     */
+    public static GitHubRepositoryInfo getGitHubRepositoryInfo(LocalRepository repository) {
+        GitRepository repo = repository.getRepo();
+        if (repo instanceof GithubRepository) {
+            return ((GithubRepository) repo).getRepositoryInfo();
+        }
+        return null;
+    }
+
     public static boolean hasLabel(Collection<GHLabel> labels, String label) {
         if (labels != null) {
             for (GHLabel ghLabel : labels) {
@@ -114,6 +126,32 @@ public class GitHubHelpers {
         return canMerge;
     }
 
+    /**
+     * Returns the mergeable flag from the prefetched pull request if its known otherwise looks it up via the REST API
+     */
+    public static boolean isMergeable(GHPullRequest pullRequest, PullRequestInfo info) throws IOException {
+        if (info != null && info.getNumber() == pullRequest.getNumber() && info.getMergeable() != null) {
+            return info.getMergeable();
+        }
+        return isMergeable(pullRequest);
+    }
+
+    /**
+     * Returns true if the last commit of the pull request has a successful status using the prefetched pull request
+     * if available otherwise the REST API
+     */
+    public static boolean isCommitStatusSuccessful(GHRepository repository, GHPullRequest pullRequest, PullRequestInfo info) throws IOException {
+        if (info != null && info.getNumber() == pullRequest.getNumber()) {
+            return info.isSuccessful();
+        }
+        GHCommitStatus status = getLastCommitStatus(repository, pullRequest);
+        if (status != null) {
+            GHCommitState state = status.getState();
+            return state != null && state.equals(GHCommitState.SUCCESS) && checkCommitStatus(repository, pullRequest, GHCommitState.SUCCESS);
+        }
+        return false;
+    }
+
     public static void deleteUpdateBotBranches(List<LocalRepository> localRepositories) throws IOException {
 
         for (LocalRepository localRepository : localRepositories) {
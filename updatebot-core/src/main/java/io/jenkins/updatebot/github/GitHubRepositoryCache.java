@@ -0,0 +1,245 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jenkins.updatebot.Configuration;
+import org.kohsuke.github.GHPerson;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.jenkins.updatebot.github.GitHubGraphQLClient.quote;
+
+/**
+ * A cache of the repositories of a GitHub organisation or user stored in the work directory so that we don't have to
+ * page through all of the repositories of large organisations on every run.
+ * <p>
+ * When the GraphQL API is enabled the cache is refreshed incrementally by querying the repositories ordered by when
+ * they were last pushed until we reach the repositories which have not been pushed since the last refresh.
+ * All of the repositories are loaded again when the cache is older than the time to live which picks up archived,
+ * renamed and deleted repositories.
+ */
+public class GitHubRepositoryCache {
+    public static final String DIRECTORY = "github-repositories";
+    public static final int PAGE_SIZE = 100;
+    private static final transient Logger LOG = LoggerFactory.getLogger(GitHubRepositoryCache.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Avoid refreshing the same organisation for each command run in the same process
+     */
+    static final long MIN_REFRESH_INTERVAL = 60 * 1000;
+
+    /**
+     * Allow for clock skew and repositories being pushed while we query them
+     */
+    static final long PUSHED_AT_SLACK = 5 * 60 * 1000;
+
+    private static final Map<File, GitHubRepositoryCache> caches = new HashMap<>();
+
+    private final File file;
+    private final String owner;
+    private final Map<String, GitHubRepositoryInfo> repositories = new TreeMap<>();
+    private long refreshedAt;
+    private long fullRefreshedAt;
+
+    public GitHubRepositoryCache(File file, String owner) {
+        this.file = file;
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the repositories of the given organisation or user indexed by name or null if the cache is disabled
+     * or the repositories could not be loaded
+     */
+    public static synchronized Map<String, GitHubRepositoryInfo> getRepositories(Configuration configuration, GitHub github, String owner) {
+        long timeToLive = configuration.getGithubRepositoryCacheTtl() * 60 * 1000;
+        if (timeToLive <= 0) {
+            return null;
+        }
+        File file = new File(new File(configuration.getWorkDir(), DIRECTORY), owner.toLowerCase() + ".json").getAbsoluteFile();
+        GitHubRepositoryCache cache = caches.get(file);
+        if (cache == null) {
+            cache = new GitHubRepositoryCache(file, owner);
+            cache.load(configuration);
+            caches.put(file, cache);
+        }
+        try {
+            cache.refresh(configuration, github, timeToLive);
+        } catch (IOException e) {
+            if (cache.fullRefreshedAt == 0) {
+                configuration.warn(LOG, "Failed to load the repositories of " + owner + ". " + e, e);
+                return null;
+            }
+            configuration.warn(LOG, "Failed to refresh the repositories of " + owner + " so using the cached repositories. " + e, e);
+        }
+        return cache.getCachedRepositories();
+    }
+
+    /**
+     * Returns a copy of the cached repositories indexed by name
+     */
+    public synchronized Map<String, GitHubRepositoryInfo> getCachedRepositories() {
+        return new TreeMap<>(repositories);
+    }
+
+    protected synchronized void refresh(Configuration configuration, GitHub github, long timeToLive) throws IOException {
+        long now = currentTimeMillis();
+        if (now - refreshedAt < MIN_REFRESH_INTERVAL) {
+            return;
+        }
+        GitHubGraphQLClient client = configuration.isGithubGraphQL() ? createGraphQLClient(configuration) : null;
+        if (now - fullRefreshedAt > timeToLive) {
+            Map<String, GitHubRepositoryInfo> loaded = null;
+            if (client != null) {
+                try {
+                    loaded = queryRepositories(client, 0);
+                } catch (IOException e) {
+                    configuration.warn(LOG, "Failed to query the repositories of " + owner + " via GraphQL so using the REST API instead. " + e, e);
+                }
+            }
+            if (loaded == null) {
+                loaded = listRepositories(github);
+            }
+            repositories.clear();
+            repositories.putAll(loaded);
+            fullRefreshedAt = now;
+            LOG.debug("Loaded " + repositories.size() + " repositories of " + owner);
+        } else if (client != null) {
+            Map<String, GitHubRepositoryInfo> changed = queryRepositories(client, refreshedAt - PUSHED_AT_SLACK);
+            repositories.putAll(changed);
+            LOG.debug("Refreshed " + changed.size() + " repositories of " + owner);
+        } else {
+            // without GraphQL we can only reload all of the repositories once the cache expires
+            return;
+        }
+        refreshedAt = now;
+        save(configuration);
+    }
+
+    protected GitHubGraphQLClient createGraphQLClient(Configuration configuration) {
+        return GitHubGraphQLClient.create(configuration);
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Queries the repositories ordered by when they were last pushed, stopping at the first repository which has
+     * not been pushed since the given time if it is greater than zero
+     */
+    protected Map<String, GitHubRepositoryInfo> queryRepositories(GitHubGraphQLClient client, long pushedSince) throws IOException {
+        Map<String, GitHubRepositoryInfo> answer = new LinkedHashMap<>();
+        String cursor = null;
+        while (true) {
+            String query = "query { repositoryOwner(login: " + quote(owner) + ") { repositories(first: " + PAGE_SIZE +
+                    (cursor != null ? ", after: " + quote(cursor) : "") +
+                    ", orderBy: {field: PUSHED_AT, direction: DESC}) { pageInfo { hasNextPage endCursor } " +
+                    "nodes { name nameWithOwner url sshUrl isArchived pushedAt defaultBranchRef { name } } } } }";
+            JsonNode data = client.query(query);
+            JsonNode ownerNode = data != null ? data.path("repositoryOwner") : null;
+            if (ownerNode == null || ownerNode.isMissingNode() || ownerNode.isNull()) {
+                throw new IOException("Could not find organisation or user " + owner);
+            }
+            JsonNode repositoriesNode = ownerNode.path("repositories");
+            JsonNode pageInfo = repositoriesNode.path("pageInfo");
+            boolean hasNextPage = pageInfo.path("hasNextPage").asBoolean(false);
+            for (JsonNode node : repositoriesNode.path("nodes")) {
+                GitHubRepositoryInfo info = new GitHubRepositoryInfo(node);
+                if (pushedSince > 0 && info.getPushedAt() < pushedSince) {
+                    hasNextPage = false;
+                    break;
+                }
+                if (info.getName() != null) {
+                    answer.put(info.getName(), info);
+                }
+            }
+            cursor = pageInfo.path("endCursor").asText(null);
+            if (!hasNextPage || cursor == null) {
+                return answer;
+            }
+        }
+    }
+
+    protected Map<String, GitHubRepositoryInfo> listRepositories(GitHub github) throws IOException {
+        GHPerson person = GitHubHelpers.getOrganisationOrUser(github, owner);
+        if (person == null) {
+            throw new IOException("Could not find organisation or user " + owner);
+        }
+        Map<String, GitHubRepositoryInfo> answer = new LinkedHashMap<>();
+        for (Map.Entry<String, GHRepository> entry : person.getRepositories().entrySet()) {
+            answer.put(entry.getKey(), new GitHubRepositoryInfo(entry.getValue()));
+        }
+        return answer;
+    }
+
+    protected void load(Configuration configuration) {
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            JsonNode json = OBJECT_MAPPER.readTree(file);
+            refreshedAt = json.path("refreshedAt").asLong(0);
+            fullRefreshedAt = json.path("fullRefreshedAt").asLong(0);
+            for (JsonNode node : json.path("repositories")) {
+                GitHubRepositoryInfo info = OBJECT_MAPPER.treeToValue(node, GitHubRepositoryInfo.class);
+                if (info.getName() != null) {
+                    repositories.put(info.getName(), info);
+                }
+            }
+        } catch (IOException e) {
+            configuration.warn(LOG, "Ignoring the invalid repository cache " + file + ". " + e, e);
+            repositories.clear();
+            refreshedAt = 0;
+            fullRefreshedAt = 0;
+        }
+    }
+
+    protected void save(Configuration configuration) {
+        ObjectNode json = OBJECT_MAPPER.createObjectNode();
+        json.put("owner", owner);
+        json.put("refreshedAt", refreshedAt);
+        json.put("fullRefreshedAt", fullRefreshedAt);
+        ArrayNode array = json.putArray("repositories");
+        for (GitHubRepositoryInfo info : repositories.values()) {
+            array.add(OBJECT_MAPPER.valueToTree(info));
+        }
+        try {
+            File dir = file.getParentFile();
+            dir.mkdirs();
+            File tmpFile = new File(dir, file.getName() + ".tmp");
+            OBJECT_MAPPER.writeValue(tmpFile, json);
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            configuration.warn(LOG, "Failed to save the repository cache " + file + ". " + e, e);
+        }
+    }
+}
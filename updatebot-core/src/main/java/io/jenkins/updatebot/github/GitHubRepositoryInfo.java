@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.kohsuke.github.GHRepository;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * The details of a GitHub repository which are stored in the {@link GitHubRepositoryCache} so that we can discover
+ * the repositories of an organisation without loading each repository from the GitHub API
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitHubRepositoryInfo {
+    private String name;
+    private String fullName;
+    private String htmlUrl;
+    private String gitTransportUrl;
+    private String httpTransportUrl;
+    private String sshUrl;
+    private String defaultBranch;
+    private boolean archived;
+    private long pushedAt;
+
+    public GitHubRepositoryInfo() {
+    }
+
+    public GitHubRepositoryInfo(GHRepository repository) {
+        this.name = repository.getName();
+        this.fullName = repository.getFullName();
+        URL url = repository.getHtmlUrl();
+        this.htmlUrl = url != null ? url.toString() : null;
+        this.gitTransportUrl = repository.getGitTransportUrl();
+        this.httpTransportUrl = repository.gitHttpTransportUrl();
+        this.sshUrl = repository.getSshUrl();
+        this.defaultBranch = repository.getDefaultBranch();
+        this.archived = repository.isArchived();
+        Date date = repository.getPushedAt();
+        this.pushedAt = date != null ? date.getTime() : 0;
+    }
+
+    /**
+     * Creates the details from a repository node of a GitHub GraphQL query
+     */
+    public GitHubRepositoryInfo(JsonNode node) {
+        this.name = node.path("name").asText(null);
+        this.fullName = node.path("nameWithOwner").asText(null);
+        this.htmlUrl = node.path("url").asText(null);
+        this.sshUrl = node.path("sshUrl").asText(null);
+        this.defaultBranch = node.path("defaultBranchRef").path("name").asText(null);
+        this.archived = node.path("isArchived").asBoolean(false);
+        String pushed = node.path("pushedAt").asText(null);
+        this.pushedAt = pushed != null ? Instant.parse(pushed).toEpochMilli() : 0;
+        if (htmlUrl != null) {
+            this.httpTransportUrl = htmlUrl + ".git";
+            this.gitTransportUrl = htmlUrl.replaceFirst("^https?://", "git://") + ".git";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GitHubRepositoryInfo{" +
+                "fullName='" + fullName + '\'' +
+                ", defaultBranch='" + defaultBranch + '\'' +
+                ", archived=" + archived +
+                '}';
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    /**
+     * Returns the organisation or user which owns the repository
+     */
+    @JsonIgnore
+    public String getOwner() {
+        if (fullName == null) {
+            return null;
+        }
+        int idx = fullName.indexOf('/');
+        return idx > 0 ? fullName.substring(0, idx) : null;
+    }
+
+    public String getHtmlUrl() {
+        return htmlUrl;
+    }
+
+    public void setHtmlUrl(String htmlUrl) {
+        this.htmlUrl = htmlUrl;
+    }
+
+    public String getGitTransportUrl() {
+        return gitTransportUrl;
+    }
+
+    public void setGitTransportUrl(String gitTransportUrl) {
+        this.gitTransportUrl = gitTransportUrl;
+    }
+
+    public String getHttpTransportUrl() {
+        return httpTransportUrl;
+    }
+
+    public void setHttpTransportUrl(String httpTransportUrl) {
+        this.httpTransportUrl = httpTransportUrl;
+    }
+
+    public String getSshUrl() {
+        return sshUrl;
+    }
+
+    public void setSshUrl(String sshUrl) {
+        this.sshUrl = sshUrl;
+    }
+
+    public String getDefaultBranch() {
+        return defaultBranch;
+    }
+
+    public void setDefaultBranch(String defaultBranch) {
+        this.defaultBranch = defaultBranch;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+
+    public long getPushedAt() {
+        return pushedAt;
+    }
+
+    public void setPushedAt(long pushedAt) {
+        this.pushedAt = pushedAt;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.kohsuke.github.GHCommitState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of an open pull request as loaded by a {@link PullRequestSnapshot} so that we do not need to look up
+ * the labels, mergeable flag, commit statuses and comments of each pull request via the REST API
+ */
+public class PullRequestInfo {
+    private final int number;
+    private final String title;
+    private final String url;
+    private final String headRef;
+    private final String headSha;
+    private final String baseRef;
+    private final String updatedAt;
+    private final Boolean mergeable;
+    private final List<String> labels = new ArrayList<>();
+    private final GHCommitState state;
+    private final List<StatusContext> statuses = new ArrayList<>();
+    private final List<Comment> comments = new ArrayList<>();
+    private final int totalComments;
+
+    public PullRequestInfo(JsonNode node) {
+        this.number = node.path("number").asInt();
+        this.title = node.path("title").asText(null);
+        this.url = node.path("url").asText(null);
+        this.headRef = node.path("headRefName").asText(null);
+        this.headSha = node.path("headRefOid").asText(null);
+        this.baseRef = node.path("baseRefName").asText(null);
+        this.updatedAt = node.path("updatedAt").asText(null);
+        this.mergeable = toMergeable(node.path("mergeable").asText(null));
+        for (JsonNode label : node.path("labels").path("nodes")) {
+            labels.add(label.path("name").asText());
+        }
+        JsonNode status = null;
+        for (JsonNode commit : node.path("commits").path("nodes")) {
+            status = commit.path("commit").path("status");
+        }
+        if (status != null && !status.isMissingNode() && !status.isNull()) {
+            this.state = toCommitState(status.path("state").asText(null));
+            for (JsonNode context : status.path("contexts")) {
+                statuses.add(new StatusContext(context.path("context").asText(null), context.path("targetUrl").asText(null), toCommitState(context.path("state").asText(null))));
+            }
+        } else {
+            this.state = null;
+        }
+        JsonNode commentsNode = node.path("comments");
+        this.totalComments = commentsNode.path("totalCount").asInt();
+        for (JsonNode comment : commentsNode.path("nodes")) {
+            comments.add(new Comment(comment.path("author").path("login").asText(null), comment.path("body").asText(null)));
+        }
+    }
+
+    /**
+     * Converts the GraphQL <code>MergeableState</code> into the REST flag; null means GitHub has not computed it yet
+     */
+    protected static Boolean toMergeable(String value) {
+        if ("MERGEABLE".equals(value)) {
+            return Boolean.TRUE;
+        } else if ("CONFLICTING".equals(value)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Converts the GraphQL <code>StatusState</code> into the REST state
+     */
+    protected static GHCommitState toCommitState(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value) {
+            case "SUCCESS":
+                return GHCommitState.SUCCESS;
+            case "FAILURE":
+                return GHCommitState.FAILURE;
+            case "ERROR":
+                return GHCommitState.ERROR;
+            default:
+                return GHCommitState.PENDING;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PullRequestInfo{" +
+                "url='" + url + '\'' +
+                ", mergeable=" + mergeable +
+                ", state=" + state +
+                '}';
+    }
+
+    public boolean hasLabel(String label) {
+        return labels.contains(label);
+    }
+
+    /**
+     * Returns true if the combined status of the last commit is successful and every status with a target URL
+     * is successful; the same rules as {@link GitHubHelpers#checkCommitStatus}
+     */
+    public boolean isSuccessful() {
+        if (!GHCommitState.SUCCESS.equals(state)) {
+            return false;
+        }
+        Map<String, GHCommitState> targetUrlToState = new HashMap<>();
+        for (StatusContext status : statuses) {
+            String key = status.getTargetUrl();
+            if (key != null && targetUrlToState.putIfAbsent(key, status.getState()) == null) {
+                if (!GHCommitState.SUCCESS.equals(status.getState())) {
+                    return false;
+                }
+            }
+        }
+        return !targetUrlToState.isEmpty();
+    }
+
+    /**
+     * Returns true if all of the comments on the pull request were loaded
+     */
+    public boolean hasAllComments() {
+        return comments.size() >= totalComments;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getHeadRef() {
+        return headRef;
+    }
+
+    public String getHeadSha() {
+        return headSha;
+    }
+
+    public String getBaseRef() {
+        return baseRef;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Boolean getMergeable() {
+        return mergeable;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public GHCommitState getState() {
+        return state;
+    }
+
+    public List<StatusContext> getStatuses() {
+        return statuses;
+    }
+
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    public static class StatusContext {
+        private final String context;
+        private final String targetUrl;
+        private final GHCommitState state;
+
+        public StatusContext(String context, String targetUrl, GHCommitState state) {
+            this.context = context;
+            this.targetUrl = targetUrl;
+            this.state = state;
+        }
+
+        public String getContext() {
+            return context;
+        }
+
+        public String getTargetUrl() {
+            return targetUrl;
+        }
+
+        public GHCommitState getState() {
+            return state;
+        }
+    }
+
+    public static class Comment {
+        private final String login;
+        private final String body;
+
+        public Comment(String login, String body) {
+            this.login = login;
+            this.body = body;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.kohsuke.github.GHRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.jenkins.updatebot.github.GitHubGraphQLClient.quote;
+
+/**
+ * A snapshot of the open pull requests and issues with the UpdateBot label for a number of repositories which is
+ * loaded via the GitHub GraphQL API in batches of repositories; one round trip per page of pull requests.
+ * <p>
+ * Repositories are identified by their full name so that the snapshot can be loaded without looking up each
+ * repository via the REST API.
+ */
+public class PullRequestSnapshot {
+    public static final int REPOSITORY_BATCH_SIZE = 20;
+    public static final int PULL_REQUEST_PAGE_SIZE = 25;
+    private static final transient Logger LOG = LoggerFactory.getLogger(PullRequestSnapshot.class);
+
+    private final Map<String, List<PullRequestInfo>> pullRequests = new HashMap<>();
+    private final Map<String, Integer> openIssueCounts = new HashMap<>();
+
+    /**
+     * Loads the open pull requests and the number of open issues with the given label for the repositories
+     * of the given full names in the form <code>owner/name</code>
+     */
+    public static PullRequestSnapshot load(GitHubGraphQLClient client, Collection<String> fullNames, String label) throws IOException {
+        PullRequestSnapshot answer = new PullRequestSnapshot();
+        List<String> list = new ArrayList<>(fullNames);
+        for (int i = 0; i < list.size(); i += REPOSITORY_BATCH_SIZE) {
+            answer.loadBatch(client, list.subList(i, Math.min(i + REPOSITORY_BATCH_SIZE, list.size())), label);
+        }
+        LOG.debug("Loaded the pull requests of " + answer.pullRequests.size() + " repositories");
+        return answer;
+    }
+
+    protected void loadBatch(GitHubGraphQLClient client, List<String> fullNames, String label) throws IOException {
+        Map<String, String> pending = new LinkedHashMap<>();
+        for (int i = 0; i < fullNames.size(); i++) {
+            pending.put("r" + i, fullNames.get(i));
+        }
+        Map<String, String> cursors = new HashMap<>();
+        while (!pending.isEmpty()) {
+            JsonNode data = client.query(createQuery(pending, cursors, label));
+            Map<String, String> nextPage = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : pending.entrySet()) {
+                String alias = entry.getKey();
+                String fullName = entry.getValue();
+                JsonNode repositoryNode = data != null ? data.get(alias) : null;
+                if (repositoryNode == null || repositoryNode.isNull()) {
+                    LOG.warn("No GraphQL results for repository " + fullName);
+                    continue;
+                }
+                List<PullRequestInfo> list = pullRequests.computeIfAbsent(key(fullName), k -> new ArrayList<>());
+                JsonNode issuesNode = repositoryNode.path("issues");
+                if (!issuesNode.isMissingNode()) {
+                    openIssueCounts.put(key(fullName), issuesNode.path("totalCount").asInt());
+                }
+                JsonNode pullRequestsNode = repositoryNode.path("pullRequests");
+                for (JsonNode node : pullRequestsNode.path("nodes")) {
+                    list.add(new PullRequestInfo(node));
+                }
+                JsonNode pageInfo = pullRequestsNode.path("pageInfo");
+                if (pageInfo.path("hasNextPage").asBoolean()) {
+                    cursors.put(alias, pageInfo.path("endCursor").asText());
+                    nextPage.put(alias, fullName);
+                }
+            }
+            pending = nextPage;
+        }
+    }
+
+    protected static String createQuery(Map<String, String> fullNames, Map<String, String> cursors, String label) throws IOException {
+        StringBuilder builder = new StringBuilder("query {\n");
+        for (Map.Entry<String, String> entry : fullNames.entrySet()) {
+            String alias = entry.getKey();
+            String fullName = entry.getValue();
+            int idx = fullName.indexOf('/');
+            if (idx <= 0) {
+                throw new IOException("Invalid repository name " + fullName + " should be of the form owner/name");
+            }
+            String cursor = cursors.get(alias);
+            builder.append("  ").append(alias).append(": repository(owner: ").append(quote(fullName.substring(0, idx))).
+                    append(", name: ").append(quote(fullName.substring(idx + 1))).append(") {\n");
+            if (cursor == null) {
+                builder.append("    issues(states: OPEN, labels: [").append(quote(label)).append("]) { totalCount }\n");
+            }
+            builder.append("    pullRequests(states: OPEN, labels: [").append(quote(label)).append("], first: ").append(PULL_REQUEST_PAGE_SIZE);
+            if (cursor != null) {
+                builder.append(", after: ").append(quote(cursor));
+            }
+            builder.append(") {\n");
+            builder.append("      pageInfo { hasNextPage endCursor }\n");
+            builder.append("      nodes {\n");
+            builder.append("        number title url mergeable headRefName headRefOid baseRefName updatedAt\n");
+            builder.append("        labels(first: 20) { nodes { name } }\n");
+            builder.append("        commits(last: 1) { nodes { commit { status { state contexts { context state targetUrl } } } } }\n");
+            builder.append("        comments(last: 50) { totalCount nodes { author { login } body } }\n");
+            builder.append("      }\n");
+            builder.append("    }\n");
+            builder.append("  }\n");
+        }
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    private static String key(String fullName) {
+        return fullName.toLowerCase();
+    }
+
+    /**
+     * Returns true if this snapshot contains the pull requests of the repository with the given full name
+     */
+    public boolean contains(String fullName) {
+        return pullRequests.containsKey(key(fullName));
+    }
+
+    public boolean contains(GHRepository repository) {
+        return contains(repository.getFullName());
+    }
+
+    /**
+     * Returns the open pull requests of the repository with the given full name or an empty list if the repository
+     * is not in this snapshot
+     */
+    public List<PullRequestInfo> getPullRequests(String fullName) {
+        List<PullRequestInfo> answer = pullRequests.get(key(fullName));
+        return answer != null ? answer : Collections.emptyList();
+    }
+
+    public List<PullRequestInfo> getPullRequests(GHRepository repository) {
+        return getPullRequests(repository.getFullName());
+    }
+
+    /**
+     * Returns the pull request of the given number or null if it is not open with the UpdateBot label
+     */
+    public PullRequestInfo getPullRequest(String fullName, int number) {
+        for (PullRequestInfo pullRequest : getPullRequests(fullName)) {
+            if (pullRequest.getNumber() == number) {
+                return pullRequest;
+            }
+        }
+        return null;
+    }
+
+    public PullRequestInfo getPullRequest(GHRepository repository, int number) {
+        return getPullRequest(repository.getFullName(), number);
+    }
+
+    /**
+     * Returns true if the repository with the given full name has open issues with the UpdateBot label
+     * or it is not in this snapshot
+     */
+    public boolean hasOpenIssues(String fullName) {
+        Integer count = openIssueCounts.get(key(fullName));
+        return count == null || count > 0;
+    }
+}
@@ -56,7 +56,6 @@ public class PullRequests {
         return answer;
     }
 
-
     public static void logOpen(List<GHPullRequest> prs) {
         for (GHPullRequest pr : prs) {
             LOG.info("Open Pull Request " + pr.getHtmlUrl());
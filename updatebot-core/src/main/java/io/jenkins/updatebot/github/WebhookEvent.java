@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a GitHub webhook event which may change the state of an UpdateBot pull request
+ */
+public class WebhookEvent {
+    private final String event;
+    private final String repository;
+    private final String sha;
+    private final List<Integer> pullRequestNumbers = new ArrayList<>();
+
+    public WebhookEvent(String event, String repository, String sha) {
+        this.event = event;
+        this.repository = repository;
+        this.sha = sha;
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookEvent{" +
+                "event='" + event + '\'' +
+                ", repository='" + repository + '\'' +
+                ", sha='" + sha + '\'' +
+                ", pullRequestNumbers=" + pullRequestNumbers +
+                '}';
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the full name of the repository such as <code>owner/name</code>
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    /**
+     * Returns the commit SHA for <code>status</code> and <code>check_suite</code> events
+     */
+    public String getSha() {
+        return sha;
+    }
+
+    public List<Integer> getPullRequestNumbers() {
+        return pullRequestNumbers;
+    }
+
+    public void addPullRequestNumber(int number) {
+        pullRequestNumbers.add(number);
+    }
+}
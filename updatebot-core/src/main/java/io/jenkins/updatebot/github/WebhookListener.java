@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jenkins.updatebot.support.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An embedded HTTP server which receives GitHub webhook payloads for the <code>status</code>,
+ * <code>check_suite</code>, <code>pull_request</code> and <code>issue_comment</code> events and queues them
+ * so that the update loop can process just the repositories which have changed.
+ */
+public class WebhookListener implements Closeable {
+    public static final String EVENT_HEADER = "X-GitHub-Event";
+    public static final String SIGNATURE_HEADER = "X-Hub-Signature";
+    private static final transient Logger LOG = LoggerFactory.getLogger(WebhookListener.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final String secret;
+    private final BlockingQueue<WebhookEvent> events = new LinkedBlockingQueue<>();
+
+    /**
+     * Creates a listener on the given port or on any free port if the port is zero
+     *
+     * @param secret the webhook secret used to verify the payload signatures or null if they are not verified
+     */
+    public WebhookListener(int port, String secret) throws IOException {
+        this.secret = secret;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Parses the webhook payload for the given event type returning null if the event is not relevant
+     */
+    public static WebhookEvent parseEvent(String event, String payload) throws IOException {
+        if (event == null) {
+            return null;
+        }
+        JsonNode json = OBJECT_MAPPER.readTree(payload);
+        String repository = json.path("repository").path("full_name").asText(null);
+        if (Strings.empty(repository)) {
+            return null;
+        }
+        WebhookEvent answer;
+        switch (event) {
+            case "status":
+                answer = new WebhookEvent(event, repository, json.path("sha").asText(null));
+                break;
+            case "check_suite":
+                JsonNode checkSuite = json.path("check_suite");
+                answer = new WebhookEvent(event, repository, checkSuite.path("head_sha").asText(null));
+                for (JsonNode pullRequest : checkSuite.path("pull_requests")) {
+                    answer.addPullRequestNumber(pullRequest.path("number").asInt());
+                }
+                break;
+            case "pull_request":
+                answer = new WebhookEvent(event, repository, null);
+                answer.addPullRequestNumber(json.path("pull_request").path("number").asInt());
+                break;
+            case "issue_comment":
+                answer = new WebhookEvent(event, repository, null);
+                answer.addPullRequestNumber(json.path("issue").path("number").asInt());
+                break;
+            default:
+                return null;
+        }
+        return answer;
+    }
+
+    public void start() {
+        server.start();
+        LOG.debug("Listening for GitHub webhook events on port " + getPort());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Waits up to the given timeout for an event returning null if there was no event
+     */
+    public WebhookEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return events.poll(timeout, unit);
+    }
+
+    /**
+     * Removes all of the currently queued events
+     */
+    public List<WebhookEvent> drain() {
+        List<WebhookEvent> answer = new ArrayList<>();
+        events.drainTo(answer);
+        return answer;
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = readFully(exchange.getRequestBody());
+            if (!isValidSignature(exchange.getRequestHeaders().getFirst(SIGNATURE_HEADER), body)) {
+                LOG.warn("Ignoring webhook payload with an invalid signature");
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            String eventType = exchange.getRequestHeaders().getFirst(EVENT_HEADER);
+            WebhookEvent event;
+            try {
+                event = parseEvent(eventType, new String(body, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                LOG.warn("Failed to parse webhook payload for event " + eventType + ". " + e, e);
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            if (event != null) {
+                LOG.debug("Received " + event);
+                events.add(event);
+                exchange.sendResponseHeaders(202, -1);
+            } else {
+                exchange.sendResponseHeaders(204, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    protected boolean isValidSignature(String signature, byte[] body) {
+        if (Strings.empty(secret)) {
+            return true;
+        }
+        if (signature == null || !signature.startsWith("sha1=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA1");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+            byte[] digest = mac.doFinal(body);
+            StringBuilder builder = new StringBuilder("sha1=");
+            for (byte b : digest) {
+                builder.append(String.format("%02x", b));
+            }
+            return MessageDigest.isEqual(builder.toString().getBytes(StandardCharsets.UTF_8), signature.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            LOG.warn("Failed to verify webhook signature: " + e, e);
+            return false;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) > 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
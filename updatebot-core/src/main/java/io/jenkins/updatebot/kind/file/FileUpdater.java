@@ -62,7 +62,7 @@ public class FileUpdater extends UpdaterSupport implements Updater {
         File file = context.file("pom.xml");
         boolean answer = false;
         if (Files.isFile(file)) {
-            if (PomHelper.updatePomVersionsInPoms(context.getDir(), changes)) {
+            if (PomHelper.updatePomVersionsInPoms(context, changes)) {
                 return true;
             }
         }
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.helm;
+
+import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.kind.helm.model.Chart;
+import io.jenkins.updatebot.kind.helm.model.ChartDependency;
+import io.jenkins.updatebot.kind.helm.model.Requirements;
+import io.jenkins.updatebot.support.MarkupHelper;
+import io.jenkins.updatebot.support.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.jenkins.updatebot.kind.helm.HelmFiles.CHART_YAML;
+import static io.jenkins.updatebot.kind.helm.HelmFiles.REQUIREMENTS_YAML;
+import static io.jenkins.updatebot.kind.helm.HelmFiles.VALUES_YAML;
+
+/**
+ * An index of the helm charts of a repository which maps chart names to their directories and the names of
+ * the requirements and values image references to the charts which use them.
+ * <p>
+ * The <code>Chart.yaml</code>, <code>requirements.yaml</code> and <code>values.yaml</code> files are only parsed
+ * again if they have changed, based on their modification time and size, so that applying version changes to the
+ * same repository again, such as when promoting to each environment, is a lookup rather than a walk of the tree.
+ * <p>
+ * The index is created per command via {@link CommandContext#getHelmChartIndex()} so it never outlives the command.
+ */
+public class HelmChartIndex {
+    public static final String IMAGE_PREFIX = "Image: ";
+    private static final transient Logger LOG = LoggerFactory.getLogger(HelmChartIndex.class);
+
+    private final File dir;
+    private final Map<File, HelmChart> charts = new HashMap<>();
+    private List<HelmChart> currentCharts = Collections.emptyList();
+    private Map<String, List<HelmChart>> chartsByName = Collections.emptyMap();
+    private Map<String, List<HelmChart>> chartsByRequirement = Collections.emptyMap();
+    private Map<String, List<HelmChart>> chartsByImage = Collections.emptyMap();
+
+    public HelmChartIndex(File dir) {
+        this.dir = dir.getAbsoluteFile();
+    }
+
+    /**
+     * Returns the index of the given context refreshing any charts which have changed
+     */
+    public static HelmChartIndex getInstance(CommandContext context) throws IOException {
+        HelmChartIndex answer = context.getHelmChartIndex();
+        answer.refresh(context);
+        return answer;
+    }
+
+    /**
+     * Returns the top level charts, ignoring any charts nested inside another chart directory
+     */
+    public synchronized List<HelmChart> getCharts() {
+        return currentCharts;
+    }
+
+    /**
+     * Returns the charts with the given name in their <code>Chart.yaml</code>
+     */
+    public synchronized List<HelmChart> findChartsNamed(String name) {
+        return chartsByName.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * Returns the charts which have a requirement on the given chart name
+     */
+    public synchronized List<HelmChart> findChartsRequiring(String name) {
+        return chartsByRequirement.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * Returns the charts whose values file has an image line starting with the given name followed by a <code>:</code>
+     */
+    public synchronized List<HelmChart> findChartsWithImage(String name) {
+        return chartsByImage.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * Lets the index know the values file of the chart has been written
+     */
+    public synchronized void valuesUpdated(HelmChart chart) throws IOException {
+        chart.loadValues();
+        index();
+    }
+
+    /**
+     * Lets the index know the requirements of the chart have been saved, or discards them if they could not be saved
+     */
+    public synchronized void requirementsUpdated(HelmChart chart, boolean saved) throws IOException {
+        if (saved) {
+            chart.requirementsStamp = FileStamp.of(chart.getRequirementsFile());
+        } else {
+            chart.loadRequirements();
+        }
+        index();
+    }
+
+    protected synchronized void refresh(CommandContext context) throws IOException {
+        boolean changed = false;
+        List<HelmChart> list = new ArrayList<>();
+        for (File chartDir : findChartDirectories(context)) {
+            HelmChart chart = charts.get(chartDir);
+            if (chart == null) {
+                chart = new HelmChart(chartDir);
+                charts.put(chartDir, chart);
+            }
+            if (chart.refresh()) {
+                changed = true;
+            }
+            list.add(chart);
+        }
+        if (changed || !list.equals(currentCharts)) {
+            currentCharts = Collections.unmodifiableList(list);
+            charts.values().retainAll(list);
+            index();
+        }
+    }
+
+    /**
+     * Returns the directories containing a chart which are not inside another chart directory
+     */
+    protected List<File> findChartDirectories(CommandContext context) {
+        Set<File> dirs = new LinkedHashSet<>();
+        for (File file : context.getFileIndex().findFilesNamed(CHART_YAML)) {
+            dirs.add(file.getAbsoluteFile().getParentFile());
+        }
+        List<File> answer = new ArrayList<>();
+        for (File chartDir : dirs) {
+            boolean nested = false;
+            for (File parent = chartDir.getParentFile(); parent != null && !nested; parent = parent.getParentFile()) {
+                nested = dirs.contains(parent);
+            }
+            if (!nested) {
+                answer.add(chartDir);
+            }
+        }
+        return answer;
+    }
+
+    private void index() {
+        Map<String, List<HelmChart>> byName = new HashMap<>();
+        Map<String, List<HelmChart>> byRequirement = new HashMap<>();
+        Map<String, List<HelmChart>> byImage = new HashMap<>();
+        for (HelmChart chart : currentCharts) {
+            if (Strings.notEmpty(chart.name)) {
+                byName.computeIfAbsent(chart.name, key -> new ArrayList<>()).add(chart);
+            }
+            if (chart.requirements != null && chart.requirements.getDependencies() != null) {
+                Set<String> names = new HashSet<>();
+                for (ChartDependency dependency : chart.requirements.getDependencies()) {
+                    String name = dependency.getName();
+                    if (name != null && names.add(name)) {
+                        byRequirement.computeIfAbsent(name, key -> new ArrayList<>()).add(chart);
+                    }
+                }
+            }
+            for (String image : chart.images) {
+                byImage.computeIfAbsent(image, key -> new ArrayList<>()).add(chart);
+            }
+        }
+        chartsByName = byName;
+        chartsByRequirement = byRequirement;
+        chartsByImage = byImage;
+    }
+
+    @Override
+    public String toString() {
+        return "HelmChartIndex{" +
+                "dir=" + dir +
+                '}';
+    }
+
+    /**
+     * A chart directory along with its parsed requirements and the image names referenced in its values file
+     */
+    public static class HelmChart {
+        private final File dir;
+        private String name;
+        private Requirements requirements;
+        private Set<String> images = Collections.emptySet();
+        private FileStamp chartStamp;
+        private FileStamp requirementsStamp;
+        private FileStamp valuesStamp;
+
+        HelmChart(File dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public String toString() {
+            return "HelmChart{" +
+                    "name='" + name + '\'' +
+                    ", dir=" + dir +
+                    '}';
+        }
+
+        public File getDir() {
+            return dir;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getRequirementsFile() {
+            return new File(dir, REQUIREMENTS_YAML);
+        }
+
+        public File getValuesFile() {
+            return new File(dir, VALUES_YAML);
+        }
+
+        /**
+         * Returns the parsed requirements or null if the chart has no requirements
+         */
+        public Requirements getRequirements() {
+            return requirements;
+        }
+
+        /**
+         * Parses any files which have changed returning true if one did
+         */
+        boolean refresh() throws IOException {
+            boolean answer = false;
+            File chartFile = new File(dir, CHART_YAML);
+            if (!FileStamp.of(chartFile).equals(chartStamp)) {
+                chartStamp = FileStamp.of(chartFile);
+                name = null;
+                try {
+                    Chart chart = MarkupHelper.loadYaml(chartFile, Chart.class);
+                    if (chart != null) {
+                        name = chart.getName();
+                    }
+                } catch (IOException e) {
+                    LOG.warn("Failed to load chart " + chartFile + ". " + e, e);
+                }
+                answer = true;
+            }
+            if (!FileStamp.of(getRequirementsFile()).equals(requirementsStamp)) {
+                loadRequirements();
+                answer = true;
+            }
+            if (!FileStamp.of(getValuesFile()).equals(valuesStamp)) {
+                loadValues();
+                answer = true;
+            }
+            return answer;
+        }
+
+        void loadRequirements() throws IOException {
+            File file = getRequirementsFile();
+            requirementsStamp = FileStamp.of(file);
+            requirements = null;
+            if (file.isFile()) {
+                try {
+                    requirements = MarkupHelper.loadYaml(file, Requirements.class);
+                } catch (IOException e) {
+                    requirementsStamp = null;
+                    throw new IOException("Failed to load chart requirements " + file + ". " + e, e);
+                }
+            }
+        }
+
+        void loadValues() throws IOException {
+            File file = getValuesFile();
+            valuesStamp = FileStamp.of(file);
+            Set<String> set = new HashSet<>();
+            if (file.isFile()) {
+                for (String line : IOHelpers.readLines(file)) {
+                    String text = line.trim();
+                    if (text.startsWith(IMAGE_PREFIX)) {
+                        // index the text before each colon so that names containing a registry port are found
+                        for (int idx = text.indexOf(':', IMAGE_PREFIX.length()); idx > 0; idx = text.indexOf(':', idx + 1)) {
+                            set.add(text.substring(IMAGE_PREFIX.length(), idx));
+                        }
+                    }
+                }
+            }
+            images = set;
+        }
+    }
+
+    /**
+     * The modification time and size of a file used to detect changes
+     */
+    private static class FileStamp {
+        private final long lastModified;
+        private final long length;
+
+        private FileStamp(long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        static FileStamp of(File file) {
+            return new FileStamp(file.lastModified(), file.length());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileStamp that = (FileStamp) o;
+            return lastModified == that.lastModified && length == that.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(lastModified) * 31 + Long.hashCode(length);
+        }
+    }
+}
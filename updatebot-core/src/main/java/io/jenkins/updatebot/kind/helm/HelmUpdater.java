@@ -15,11 +15,11 @@
  */
 package io.jenkins.updatebot.kind.helm;
 
-import io.fabric8.utils.Files;
 import io.fabric8.utils.IOHelpers;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.UpdaterSupport;
+import io.jenkins.updatebot.kind.helm.HelmChartIndex.HelmChart;
 import io.jenkins.updatebot.kind.helm.model.Chart;
 import io.jenkins.updatebot.kind.helm.model.Requirements;
 import io.jenkins.updatebot.model.Dependencies;
@@ -29,10 +29,12 @@ import io.jenkins.updatebot.support.Strings;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.jenkins.updatebot.kind.helm.HelmFiles.CHART_YAML;
-import static io.jenkins.updatebot.kind.helm.HelmFiles.REQUIREMENTS_YAML;
 import static io.jenkins.updatebot.kind.helm.HelmFiles.VALUES_YAML;
 import static io.jenkins.updatebot.support.FileHelper.isFile;
 
@@ -55,35 +57,7 @@ public class HelmUpdater extends UpdaterSupport {
 
     @Override
     public boolean isApplicable(CommandContext context) {
-        boolean answer = isFile(context.file(CHART_YAML));
-        if (!answer) {
-            answer = fileExistsInDir(context.getDir(), CHART_YAML);
-            if (!answer) {
-                return isFile(context.file(VALUES_YAML));
-            }
-        }
-        return answer;
-    }
-
-    protected boolean fileExistsInDir(File dir, String fileName) {
-        if (dir.isFile()) {
-            return dir.getName().equals(fileName);
-        } else if (dir.isDirectory()) {
-            if (isFile(new File(dir, fileName))) {
-                return true;
-            }
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (Files.isDirectory(file)) {
-                        if (fileExistsInDir(file, fileName)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        return isFile(context.file(CHART_YAML)) || context.getFileIndex().hasFileNamed(CHART_YAML) || isFile(context.file(VALUES_YAML));
     }
 
     /**
@@ -116,46 +90,43 @@ public class HelmUpdater extends UpdaterSupport {
 
     @Override
     public boolean pushVersions(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
-        return pushVersionsForDir(context, changes, context.getDir());
-    }
-
-    protected boolean pushVersionsForDir(CommandContext context, List<DependencyVersionChange> changes, File dir) throws IOException {
-        File chartsFile = new File(dir, CHART_YAML);
-        boolean answer = false;
-        if (isFile(chartsFile)) {
-            File valuesFile = new File(dir, VALUES_YAML);
-            if (isFile(valuesFile)) {
-                if (updateValuesFile(context, changes, valuesFile)) {
+        HelmChartIndex index = HelmChartIndex.getInstance(context);
+        synchronized (index) {
+            Map<HelmChart, List<DependencyVersionChange>> valuesChanges = new LinkedHashMap<>();
+            Map<HelmChart, List<DependencyVersionChange>> requirementsChanges = new LinkedHashMap<>();
+            for (DependencyVersionChange change : changes) {
+                for (HelmChart chart : index.findChartsWithImage(change.getDependency())) {
+                    valuesChanges.computeIfAbsent(chart, key -> new ArrayList<>()).add(change);
+                }
+                for (HelmChart chart : index.findChartsRequiring(change.getDependency())) {
+                    requirementsChanges.computeIfAbsent(chart, key -> new ArrayList<>()).add(change);
+                }
+            }
+            boolean answer = false;
+            for (Map.Entry<HelmChart, List<DependencyVersionChange>> entry : valuesChanges.entrySet()) {
+                HelmChart chart = entry.getKey();
+                if (updateValuesFile(context, entry.getValue(), chart.getValuesFile())) {
+                    index.valuesUpdated(chart);
                     answer = true;
                 }
             }
-            File requirementsFile = new File(dir, REQUIREMENTS_YAML);
-            if (isFile(requirementsFile)) {
-                Requirements requirements;
+            for (Map.Entry<HelmChart, List<DependencyVersionChange>> entry : requirementsChanges.entrySet()) {
+                HelmChart chart = entry.getKey();
+                boolean saved;
                 try {
-                    requirements = MarkupHelper.loadYaml(requirementsFile, Requirements.class);
-                } catch (IOException e) {
-                    throw new IOException("Failed to load chart requirements " + requirementsFile + ". " + e, e);
-                }
-                if (requirements != null) {
-                    if (applyRequirementsChanges(context, changes, requirements, requirementsFile)) {
-                        answer = true;
-                    }
+                    saved = applyRequirementsChanges(context, entry.getValue(), chart.getRequirements(), chart.getRequirementsFile());
+                } catch (IOException | RuntimeException e) {
+                    // lets discard any changes which could not be saved
+                    index.requirementsUpdated(chart, false);
+                    throw e;
                 }
-            }
-        } else {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (Files.isDirectory(file)) {
-                        if (pushVersionsForDir(context, changes, file)) {
-                            answer = true;
-                        }
-                    }
+                if (saved) {
+                    index.requirementsUpdated(chart, true);
+                    answer = true;
                 }
             }
+            return answer;
         }
-        return answer;
     }
 
     private boolean updateValuesFile(CommandContext context, List<DependencyVersionChange> changes, File file) throws IOException {
@@ -78,32 +78,16 @@ public class JenkinsXUpdater extends UpdaterSupport {
         return answer;
     }
 
-    private boolean checkDirectory(File dir, PushVersionChangesContext context, String name, String value) throws IOException {
-        boolean answer = false;
-        File[] files = dir.listFiles();
-        for (File file : files) {
-                if (file.isDirectory()) {
-                        boolean newAnswer = checkDirectory(file, context, name, value);
-                        if (!answer) {
-                                answer = newAnswer;
-                        }
-                } else {
-                        String fileName = file.getName();
-                        if (Files.isFile(file) && fileName.equals("jenkins-x.yaml") || fileName.startsWith("jenkins-x-")) {
-                                if (updateJenkinsXfile(context, file, name, value)) {
-                                        answer = true;
-                                }
-                        }
-                }
-        }
-        return answer;
-        }
-
     private boolean doPushVersionChange(PushVersionChangesContext context, String name, String value) throws IOException {
         boolean answer = false;
         File dir = context.getDir();
         if (Files.isDirectory(dir)) {
-            answer = checkDirectory(dir, context, name, value);
+            List<File> files = context.getFileIndex().findFiles(fileName -> fileName.equals("jenkins-x.yaml") || fileName.startsWith("jenkins-x-"));
+            for (File file : files) {
+                if (updateJenkinsXfile(context, file, name, value)) {
+                    answer = true;
+                }
+            }
         }
         return answer;
     }
@@ -85,15 +85,10 @@ public class MakeUpdater extends UpdaterSupport {
         boolean answer = false;
         File dir = context.getDir();
         if (Files.isDirectory(dir)) {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    String fileName = file.getName();
-                    if (Files.isFile(file) && fileName.equals("Makefile") || fileName.startsWith("Makefile.")) {
-                        if (updateMakefile(context, file, name, value)) {
-                            answer = true;
-                        }
-                    }
+            List<File> files = context.getFileIndex().findFiles(fileName -> fileName.equals("Makefile") || fileName.startsWith("Makefile."), false);
+            for (File file : files) {
+                if (updateMakefile(context, file, name, value)) {
+                    answer = true;
                 }
             }
         }
@@ -21,11 +21,9 @@ import io.jenkins.updatebot.kind.Updater;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.model.Dependencies;
 import io.jenkins.updatebot.model.DependencyVersionChange;
-import io.jenkins.updatebot.model.MavenArtifactVersionChange;
-import io.jenkins.updatebot.model.MavenArtifactVersionChanges;
 import io.jenkins.updatebot.support.FileHelper;
-import io.jenkins.updatebot.support.MarkupHelper;
 import io.jenkins.updatebot.support.ProcessHelper;
+import io.jenkins.updatebot.support.ToolCapabilities;
 import io.jenkins.updatebot.support.VersionHelper;
 import io.fabric8.utils.Files;
 import org.slf4j.Logger;
@@ -49,8 +47,9 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
             // lets verify we have a maven install
             Configuration configuration = context.getConfiguration();
             String mvnCommand = configuration.getMvnCommand();
-            int returnCode = ProcessHelper.runCommandIgnoreOutput(context.getDir(), configuration.getMvnEnvironmentVariables(), mvnCommand, "-v");
-            if (returnCode != 0) {
+            ToolCapabilities.Capability capability = ToolCapabilities.probe(context.getDir(), configuration.getMvnEnvironmentVariables(), mvnCommand, "-v");
+            if (!capability.isAvailable()) {
+                int returnCode = capability.getReturnCode();
                 context.warn(LOG, "Could not invoke Maven!. Command failed: " + mvnCommand + " -v => " + returnCode);
                 context.warn(LOG, "Please verify you have `mvn` on your PATH or you have configured Maven property");
                 return false;
@@ -63,10 +62,19 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
     public void addVersionChangesFromSource(CommandContext context, Dependencies dependencyConfig, List<DependencyVersionChange> list) throws IOException {
         File file = context.file("pom.xml");
         if (Files.isFile(file)) {
-            // lets run the maven plugin to generate the export versions file
             Configuration configuration = context.getConfiguration();
+            if (configuration.isMvnExportInProcess()) {
+                List<DependencyVersionChange> changes = PomVersionExporter.exportVersions(configuration, context.getPomCache(), dependencyConfig);
+                if (changes != null) {
+                    addVersionChanges(configuration, changes, list);
+                    return;
+                }
+                context.info(LOG, "Could not resolve the versions from the pom.xml files so running maven to export them");
+            }
+
+            // lets run the maven plugin to generate the export versions file
             String configFile = configuration.getConfigFile();
-            File versionsFile = createVersionsYamlFile(context);
+            File versionsFile = createVersionsFile(context);
             Map<String, String> env = configuration.getMvnEnvironmentVariables();
             String mvnCommand = configuration.getMvnCommand();
             String updateBotPluginVersion = VersionHelper.updateBotVersion();
@@ -79,23 +87,19 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
                     return;
                 }
 
-                MavenArtifactVersionChanges changes;
-                try {
-                    changes = MarkupHelper.loadYaml(versionsFile, MavenArtifactVersionChanges.class);
-                } catch (IOException e) {
-                    throw new IOException("Failed to load " + versionsFile + ". " + e, e);
-                }
-                List<MavenArtifactVersionChange> changeList = changes.getChanges();
-                if (list != null) {
-                    for (MavenArtifactVersionChange change : changeList) {
-                        list.add(change.createDependencyVersionChange());
-                    }
+                List<DependencyVersionChange> changeList = MavenVersionsFile.read(versionsFile);
+                addVersionChanges(configuration, changeList, list);
+            }
+        }
+    }
 
-                    PrintStream printStream = configuration.getPrintStream();
-                    if (!changeList.isEmpty() && printStream != null) {
-                        printStream.println("\n");
-                    }
-                }
+    protected void addVersionChanges(Configuration configuration, List<DependencyVersionChange> changes, List<DependencyVersionChange> list) {
+        if (list != null) {
+            list.addAll(changes);
+
+            PrintStream printStream = configuration.getPrintStream();
+            if (!changes.isEmpty() && printStream != null) {
+                printStream.println("\n");
             }
         }
     }
@@ -105,7 +109,7 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
         File file = context.file("pom.xml");
         boolean answer = false;
         if (Files.isFile(file)) {
-            if (PomHelper.updatePomVersionsInPoms(context.getDir(), changes)) {
+            if (PomHelper.updatePomVersionsInPoms(context, changes)) {
                 return true;
             }
         }
@@ -113,8 +117,8 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
 
     }
 
-    protected File createVersionsYamlFile(CommandContext context) {
-        return new File(context.getDir(), "target/updatebot-versions.yaml");
+    protected File createVersionsFile(CommandContext context) {
+        return new File(context.getDir(), "target/updatebot-versions.txt");
     }
 
 }
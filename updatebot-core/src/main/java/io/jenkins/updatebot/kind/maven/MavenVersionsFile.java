@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.MavenArtifactVersionChange;
+import io.jenkins.updatebot.model.MavenArtifactVersionChanges;
+import io.jenkins.updatebot.support.MarkupHelper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the versions exported from a maven reactor in a compact line based format which can be
+ * written and read a line at a time for large reactors.
+ * <p>
+ * The first line is a header; then each group id is written once as <code>g groupId</code> and given the next index
+ * so that each version is written as <code>scope groupIndex artifactId version</code> where the scope is
+ * <code>a</code> for artifacts, <code>d</code> for dependencies and <code>p</code> for plugins.
+ * <p>
+ * Files which do not start with the header are loaded as the YAML format used by older versions of the maven plugin.
+ */
+public class MavenVersionsFile {
+    public static final String HEADER = "#updatebot-versions 1";
+
+    private static final String GROUP = "g";
+    private static final Map<String, String> SCOPE_CODES = new HashMap<>();
+    private static final Map<String, String> CODE_SCOPES = new HashMap<>();
+
+    static {
+        addScope(MavenScopes.ARTIFACT, "a");
+        addScope(MavenScopes.DEPENDENCY, "d");
+        addScope(MavenScopes.PLUGIN, "p");
+    }
+
+    private static void addScope(String scope, String code) {
+        SCOPE_CODES.put(scope, code);
+        CODE_SCOPES.put(code, scope);
+    }
+
+    public static void write(File file, Iterable<MavenArtifactVersionChange> changes) throws IOException {
+        file.getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            write(writer, changes);
+        }
+    }
+
+    public static void write(Writer writer, Iterable<MavenArtifactVersionChange> changes) throws IOException {
+        Map<String, Integer> groups = new HashMap<>();
+        writer.write(HEADER);
+        writer.write('\n');
+        for (MavenArtifactVersionChange change : changes) {
+            String groupId = change.getGroupId();
+            Integer index = groups.get(groupId);
+            if (index == null) {
+                index = groups.size();
+                groups.put(groupId, index);
+                writer.write(GROUP + " " + groupId + "\n");
+            }
+            String scope = change.getScope();
+            String code = SCOPE_CODES.getOrDefault(scope, scope);
+            writer.write(code + " " + index + " " + change.getArtifactId() + " " + change.getVersion() + "\n");
+        }
+    }
+
+    /**
+     * Loads the version changes from the given file in either the line based or YAML format
+     */
+    public static List<DependencyVersionChange> read(File file) throws IOException {
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                if (line != null && line.trim().equals(HEADER)) {
+                    return read(reader);
+                }
+            }
+            return readYaml(file);
+        } catch (IOException e) {
+            throw new IOException("Failed to load " + file + ". " + e, e);
+        }
+    }
+
+    /**
+     * Loads the version changes from the lines after the header
+     */
+    public static List<DependencyVersionChange> read(BufferedReader reader) throws IOException {
+        List<DependencyVersionChange> answer = new ArrayList<>();
+        List<String> groups = new ArrayList<>();
+        int lineNumber = 1;
+        while (true) {
+            String line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] values = line.split("\\s+");
+            if (values.length == 2 && values[0].equals(GROUP)) {
+                groups.add(values[1]);
+                continue;
+            }
+            if (values.length != 4) {
+                throw new IOException("Invalid line " + lineNumber + ": " + line);
+            }
+            int index;
+            try {
+                index = Integer.parseInt(values[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid group index on line " + lineNumber + ": " + line);
+            }
+            if (index < 0 || index >= groups.size()) {
+                throw new IOException("Unknown group index on line " + lineNumber + ": " + line);
+            }
+            String scope = CODE_SCOPES.getOrDefault(values[0], values[0]);
+            answer.add(new DependencyVersionChange(Kind.MAVEN, groups.get(index) + ":" + values[2], values[3], scope));
+        }
+        return answer;
+    }
+
+    protected static List<DependencyVersionChange> readYaml(File file) throws IOException {
+        MavenArtifactVersionChanges changes = MarkupHelper.loadYaml(file, MavenArtifactVersionChanges.class);
+        List<DependencyVersionChange> answer = new ArrayList<>();
+        if (changes != null) {
+            for (MavenArtifactVersionChange change : changes.getChanges()) {
+                answer.add(change.createDependencyVersionChange());
+            }
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import de.pdark.decentxml.Document;
+import de.pdark.decentxml.Element;
+import io.jenkins.updatebot.support.DecentXmlHelper;
+import io.jenkins.updatebot.support.FileIndex;
+import io.jenkins.updatebot.support.Strings;
+import io.jenkins.updatebot.support.ThreadPools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.AntPathMatcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Caches the parsed <code>pom.xml</code> files of a repository along with their modules so that POMs which have
+ * not changed since they were last parsed, based on their modification time and size, are neither listed nor
+ * parsed again when we update the same repository again in the same command. POMs may be parsed concurrently.
+ * <p>
+ * When not following modules the POMs are found using the {@link FileIndex} of the command so that the directory
+ * tree is only walked once. The cache is created per command via {@link io.jenkins.updatebot.commands.CommandContext#getPomCache()}.
+ */
+public class PomCache {
+    private static final transient Logger LOG = LoggerFactory.getLogger(PomCache.class);
+
+    private final File dir;
+    private final FileIndex fileIndex;
+    private final Map<File, PomEntry> entries = new ConcurrentHashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher("/");
+
+    public PomCache(File dir) {
+        this(new FileIndex(dir));
+    }
+
+    /**
+     * Creates a cache which uses the given index to find the <code>pom.xml</code> files when not following modules
+     */
+    public PomCache(FileIndex fileIndex) {
+        this.fileIndex = fileIndex;
+        this.dir = normalize(fileIndex.getDir());
+    }
+
+    /**
+     * Returns the POM files to update. If we follow modules and there is a root <code>pom.xml</code> then
+     * these are the POMs in the reactor found by following the <code>modules</code> of the root POM and any profiles
+     * otherwise all the <code>pom.xml</code> files in the directory tree. Any directories which match the ignore
+     * patterns are skipped.
+     */
+    public List<File> findPomFiles(boolean followModules, Collection<String> ignorePatterns) throws IOException {
+        return findPomFiles(followModules, ignorePatterns, null);
+    }
+
+    /**
+     * Returns the POM files to update as {@link #findPomFiles(boolean, Collection)} using the given executor,
+     * if it is not null, to parse the modules of the reactor concurrently
+     */
+    public List<File> findPomFiles(boolean followModules, Collection<String> ignorePatterns, ExecutorService executor) throws IOException {
+        File rootPom = new File(dir, "pom.xml");
+        if (followModules && rootPom.isFile()) {
+            return findReactorPomFiles(rootPom, ignorePatterns, executor);
+        }
+        return walkPomFiles(ignorePatterns);
+    }
+
+    /**
+     * Returns the parsed document for the given POM file, parsing it again only if it has changed
+     */
+    public Document getDocument(File pom) throws IOException {
+        return getEntry(pom).doc;
+    }
+
+    /**
+     * Removes the given POM from the cache such as when its document has been modified
+     */
+    public void invalidate(File pom) {
+        entries.remove(normalize(pom));
+    }
+
+    protected List<File> findReactorPomFiles(File rootPom, Collection<String> ignorePatterns, ExecutorService executor) throws IOException {
+        Set<File> answer = new LinkedHashSet<>();
+        List<File> level = Collections.singletonList(normalize(rootPom));
+        while (!level.isEmpty()) {
+            // lets parse each level of modules concurrently
+            List<Callable<PomEntry>> tasks = new ArrayList<>();
+            for (File pom : level) {
+                answer.add(pom);
+                tasks.add(() -> {
+                    try {
+                        return getEntry(pom);
+                    } catch (IOException e) {
+                        LOG.warn("Failed to parse " + pom + ". " + e, e);
+                        return null;
+                    }
+                });
+            }
+            List<PomEntry> levelEntries = ThreadPools.invokeAll(executor, tasks);
+
+            List<File> nextLevel = new ArrayList<>();
+            for (int i = 0; i < level.size(); i++) {
+                File pom = level.get(i);
+                PomEntry entry = levelEntries.get(i);
+                if (entry == null) {
+                    continue;
+                }
+                for (String module : entry.modules) {
+                    File moduleFile = new File(pom.getParentFile(), module);
+                    File modulePom = normalize(moduleFile.isDirectory() ? new File(moduleFile, "pom.xml") : moduleFile);
+                    if (answer.contains(modulePom) || nextLevel.contains(modulePom)) {
+                        continue;
+                    }
+                    if (!modulePom.isFile()) {
+                        LOG.debug("Ignoring missing module " + module + " of " + pom);
+                    } else if (isIgnored(modulePom.getParentFile(), ignorePatterns)) {
+                        LOG.debug("Ignoring module " + module + " of " + pom);
+                    } else {
+                        nextLevel.add(modulePom);
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return new ArrayList<>(answer);
+    }
+
+    protected List<File> walkPomFiles(Collection<String> ignorePatterns) {
+        List<File> answer = new ArrayList<>();
+        for (File file : fileIndex.findFilesNamed("pom.xml")) {
+            File pom = normalize(file);
+            if (!isIgnoredFile(pom, ignorePatterns)) {
+                answer.add(pom);
+            }
+        }
+        // lets make sure the root pom is first
+        answer.sort((a, b) -> Integer.compare(a.getPath().length(), b.getPath().length()));
+        return answer;
+    }
+
+    /**
+     * Returns true if any of the directories containing the file matches the ignore patterns
+     */
+    protected boolean isIgnoredFile(File file, Collection<String> ignorePatterns) {
+        for (File parent = file.getParentFile(); parent != null && !parent.equals(dir); parent = parent.getParentFile()) {
+            if (isIgnored(parent, ignorePatterns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean isIgnored(File directory, Collection<String> ignorePatterns) {
+        if (ignorePatterns == null || ignorePatterns.isEmpty()) {
+            return false;
+        }
+        String path = dir.toPath().relativize(directory.getAbsoluteFile().toPath().normalize()).toString().replace(File.separatorChar, '/');
+        if (path.isEmpty() || path.startsWith("..")) {
+            return false;
+        }
+        for (String pattern : ignorePatterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static File normalize(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+    protected PomEntry getEntry(File pom) throws IOException {
+        pom = normalize(pom);
+        long lastModified = pom.lastModified();
+        long length = pom.length();
+        PomEntry entry = entries.get(pom);
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            entry = new PomEntry(DecentXmlHelper.parseXmlFile(pom), lastModified, length);
+            entries.put(pom, entry);
+        }
+        return entry;
+    }
+
+    private static class PomEntry {
+        private final Document doc;
+        private final long lastModified;
+        private final long length;
+        private final List<String> modules = new ArrayList<>();
+
+        PomEntry(Document doc, long lastModified, long length) {
+            this.doc = doc;
+            this.lastModified = lastModified;
+            this.length = length;
+            Element project = doc.getRootElement();
+            addModules(project);
+            Element profiles = DecentXmlHelper.firstChild(project, "profiles");
+            if (profiles != null) {
+                for (Element profile : profiles.getChildren("profile")) {
+                    addModules(profile);
+                }
+            }
+        }
+
+        private void addModules(Element element) {
+            Element modulesElement = DecentXmlHelper.firstChild(element, "modules");
+            if (modulesElement != null) {
+                for (Element module : modulesElement.getChildren("module")) {
+                    String name = module.getTrimmedText();
+                    if (Strings.notEmpty(name) && !modules.contains(name)) {
+                        modules.add(name);
+                    }
+                }
+            }
+        }
+    }
+}
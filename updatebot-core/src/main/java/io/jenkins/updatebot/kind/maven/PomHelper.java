@@ -17,19 +17,27 @@ package io.jenkins.updatebot.kind.maven;
 
 import de.pdark.decentxml.Document;
 import de.pdark.decentxml.Element;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.MavenArtifactKey;
 import io.jenkins.updatebot.support.DecentXmlHelper;
 import io.jenkins.updatebot.support.Strings;
+import io.jenkins.updatebot.support.ThreadPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import static io.jenkins.updatebot.kind.maven.MavenDependencyVersionChange.elementProcessor;
 import static io.jenkins.updatebot.model.MavenArtifactKey.fromString;
@@ -40,108 +48,123 @@ public class PomHelper {
     private static final transient Logger LOG = LoggerFactory.getLogger(PomHelper.class);
 
 
+    public static final List<String> DEFAULT_IGNORE_PATTERNS = Collections.unmodifiableList(Arrays.asList(
+            "**/.git", "**/target", "**/node_modules", "**/src/test/resources"));
+
     public static boolean updatePomVersionsInPoms(File dir, List<DependencyVersionChange> changes) throws IOException {
+        return updatePomVersionsInPoms(new PomCache(dir), changes, false, DEFAULT_IGNORE_PATTERNS, null);
+    }
+
+    public static boolean updatePomVersionsInPoms(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
+        Configuration configuration = context.getConfiguration();
+        return updatePomVersionsInPoms(context.getPomCache(), changes, configuration.isPomFollowModules(), configuration.getPomIgnorePatterns(), configuration.getPomExecutor());
+    }
+
+    /**
+     * Updates the versions in the pom.xml files of the given cache. If an executor is given then the POMs are
+     * parsed, updated and saved concurrently using it
+     */
+    public static boolean updatePomVersionsInPoms(PomCache cache, List<DependencyVersionChange> changes, boolean followModules, Collection<String> ignorePatterns, ExecutorService executor) throws IOException {
         List<PomUpdateStatus> pomsToChange = new ArrayList<>();
-        addPomFiles(dir, pomsToChange);
-        return updatePomVersions(pomsToChange, changes);
+        try {
+            List<File> files = cache.findPomFiles(followModules, ignorePatterns, executor);
+            addPomFiles(cache, files, pomsToChange, executor);
+            return updatePomVersions(pomsToChange, changes, executor);
+        } finally {
+            // the cached documents of any updated poms have been modified
+            for (PomUpdateStatus status : pomsToChange) {
+                if (status.isUpdated()) {
+                    cache.invalidate(status.getPom());
+                }
+            }
+        }
     }
 
     public static boolean updatePomVersions(List<PomUpdateStatus> pomsToChange, List<DependencyVersionChange> changes) throws IOException {
-        Map<String, String> propertyChanges = new TreeMap<>();
+        return updatePomVersions(pomsToChange, changes, null);
+    }
+
+    /**
+     * Updates the versions of the given POMs using the executor, if it is not null, to update and save the POMs
+     * concurrently. The property changes found in each POM are merged in the order of the POMs so that the result
+     * is the same as updating them sequentially.
+     */
+    public static boolean updatePomVersions(List<PomUpdateStatus> pomsToChange, List<DependencyVersionChange> changes, ExecutorService executor) throws IOException {
+        List<Callable<Map<String, String>>> updateTasks = new ArrayList<>();
         for (PomUpdateStatus status : pomsToChange) {
-            status.updateVersions(changes, propertyChanges);
+            updateTasks.add(() -> {
+                Map<String, String> pomPropertyChanges = new TreeMap<>();
+                status.updateVersions(changes, pomPropertyChanges);
+                return pomPropertyChanges;
+            });
+        }
+        Map<String, String> propertyChanges = new TreeMap<>();
+        for (Map<String, String> pomPropertyChanges : ThreadPools.invokeAll(executor, updateTasks)) {
+            propertyChanges.putAll(pomPropertyChanges);
         }
 
         if (!propertyChanges.isEmpty()) {
+            List<Callable<Void>> propertyTasks = new ArrayList<>();
             for (PomUpdateStatus status : pomsToChange) {
-                status.updateProperties(propertyChanges);
+                propertyTasks.add(() -> {
+                    status.updateProperties(propertyChanges);
+                    return null;
+                });
             }
+            ThreadPools.invokeAll(executor, propertyTasks);
         }
-        boolean answer = false;
+        List<Callable<Boolean>> saveTasks = new ArrayList<>();
         for (PomUpdateStatus status : pomsToChange) {
-            if (status.saveIfChanged()) {
+            saveTasks.add(status::saveIfChanged);
+        }
+        boolean answer = false;
+        for (Boolean saved : ThreadPools.invokeAll(executor, saveTasks)) {
+            if (saved) {
                 answer = true;
             }
         }
         return answer;
     }
 
-    protected static void addPomFiles(File file, List<PomUpdateStatus> pomsToChange) {
-        if (file.isFile()) {
-            if (file.getName().equals("pom.xml")) {
+    protected static void addPomFiles(PomCache cache, List<File> files, List<PomUpdateStatus> pomsToChange, ExecutorService executor) throws IOException {
+        List<Callable<PomUpdateStatus>> tasks = new ArrayList<>();
+        for (File file : files) {
+            tasks.add(() -> {
                 try {
-                    PomUpdateStatus updateStatus = PomUpdateStatus.createPomUpdateStatus(file);
-                    if (pomsToChange.isEmpty()) {
-                        updateStatus.setRootPom(true);
-                    }
-                    pomsToChange.add(updateStatus);
+                    return new PomUpdateStatus(file, cache.getDocument(file));
                 } catch (Exception e) {
                     LOG.warn("Failed to parse " + file + ". " + e, e);
+                    return null;
                 }
-            }
-        } else if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (File child : files) {
-                    addPomFiles(child, pomsToChange);
+            });
+        }
+        for (PomUpdateStatus updateStatus : ThreadPools.invokeAll(executor, tasks)) {
+            if (updateStatus != null) {
+                if (pomsToChange.isEmpty()) {
+                    updateStatus.setRootPom(true);
                 }
+                pomsToChange.add(updateStatus);
             }
         }
     }
+
     public static boolean updateParentVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges){
-        Element rootElement = doc.getRootElement();
-        List<Element> parents = DecentXmlHelper.findElementsWithName(rootElement, "parent");
+        return updateParentVersion(new PomIndex(doc), change, propertyChanges);
+    }
 
-        boolean found = false;
-        String newVersion = change.getVersion();
-        boolean update = false;
-        for (Element element : parents) {
-            String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
-            String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
-            if (change.matches(groupId, artifactId)) {
-                found = true;
-                String version = DecentXmlHelper.firstChildTextContent(element, "version");
-                if (Strings.notEmpty(version)) {
-                    if (version.startsWith("${") && version.endsWith("}")) {
-                        String versionProperty = version.substring(2, version.length() - 1);
-                        propertyChanges.put(versionProperty, newVersion);
-                    } else {
-                        if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
-                            update = true;
-                        }
-                    }
-                }
-            }
-        }
-        return update;
+    public static boolean updateParentVersion(PomIndex index, DependencyVersionChange change, Map<String, String> propertyChanges){
+        return updateVersions(index.getParents(change.getDependency()), change.getVersion(), propertyChanges);
     }
 
     public static boolean updatePluginVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges, boolean lazyAdd) {
-        Element rootElement = doc.getRootElement();
-        List<Element> plugins = DecentXmlHelper.findElementsWithName(rootElement, "plugin");
+        return updatePluginVersion(new PomIndex(doc), change, propertyChanges, lazyAdd);
+    }
 
-        boolean found = false;
-        String newVersion = change.getVersion();
-        boolean update = false;
-        for (Element element : plugins) {
-            String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
-            String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
-            if (change.matches(groupId, artifactId)) {
-                found = true;
-                String version = DecentXmlHelper.firstChildTextContent(element, "version");
-                if (Strings.notEmpty(version)) {
-                    if (version.startsWith("${") && version.endsWith("}")) {
-                        String versionProperty = version.substring(2, version.length() - 1);
-                        propertyChanges.put(versionProperty, newVersion);
-                    } else {
-                        if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
-                            update = true;
-                        }
-                    }
-                }
-            }
-        }
-        if (lazyAdd && !found) {
+    public static boolean updatePluginVersion(PomIndex index, DependencyVersionChange change, Map<String, String> propertyChanges, boolean lazyAdd) {
+        List<Element> plugins = index.getPlugins(change.getDependency());
+        boolean update = updateVersions(plugins, change.getVersion(), propertyChanges);
+        if (lazyAdd && plugins.isEmpty()) {
+            Element rootElement = index.getDocument().getRootElement();
             MavenArtifactKey key = fromString(change.getDependency());
             // lets add the plugin
             // lets add a new fmp plugin element
@@ -164,6 +187,7 @@ public class PomHelper {
             if (processor != null) {
                 processor.process(plugin, separator);
             }
+            index.addPlugin(plugin);
             update = true;
         }
         return update;
@@ -171,23 +195,28 @@ public class PomHelper {
 
 
     public static boolean updateDependencyVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges) {
-        Element rootElement = doc.getRootElement();
-        List<Element> dependencies = DecentXmlHelper.findElementsWithName(rootElement, "dependency");
-        String newVersion = change.getVersion();
+        return updateDependencyVersion(new PomIndex(doc), change, propertyChanges);
+    }
+
+    public static boolean updateDependencyVersion(PomIndex index, DependencyVersionChange change, Map<String, String> propertyChanges) {
+        return updateVersions(index.getDependencies(change.getDependency()), change.getVersion(), propertyChanges);
+    }
+
+    /**
+     * Updates the version of the given parent, dependency or plugin elements or if the version is a property expression
+     * adds the new version to the property changes
+     */
+    protected static boolean updateVersions(List<Element> elements, String newVersion, Map<String, String> propertyChanges) {
         boolean update = false;
-        for (Element element : dependencies) {
-            String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
-            String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
-            if (change.matches(groupId, artifactId)) {
-                String version = DecentXmlHelper.firstChildTextContent(element, "version");
-                if (Strings.notEmpty(version)) {
-                    if (version.startsWith("${") && version.endsWith("}")) {
-                        String versionProperty = version.substring(2, version.length() - 1);
-                        propertyChanges.put(versionProperty, newVersion);
-                    } else {
-                        if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
-                            update = true;
-                        }
+        for (Element element : elements) {
+            String version = DecentXmlHelper.firstChildTextContent(element, "version");
+            if (Strings.notEmpty(version)) {
+                if (version.startsWith("${") && version.endsWith("}")) {
+                    String versionProperty = version.substring(2, version.length() - 1);
+                    propertyChanges.put(versionProperty, newVersion);
+                } else {
+                    if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
+                        update = true;
                     }
                 }
             }
@@ -196,16 +225,17 @@ public class PomHelper {
     }
 
     public static boolean updateProperties(Document doc, Map<String, String> propertyChanges) {
-        Element rootElement = doc.getRootElement();
+        return updateProperties(new PomIndex(doc), propertyChanges);
+    }
+
+    public static boolean updateProperties(PomIndex index, Map<String, String> propertyChanges) {
         boolean update = false;
-        Element properties = DecentXmlHelper.firstChild(rootElement, "properties");
-        if (properties != null) {
-            for (Map.Entry<String, String> entry : propertyChanges.entrySet()) {
-                String propertyName = entry.getKey();
-                String propertyVersion = entry.getValue();
-                if (DecentXmlHelper.updateFirstChild(properties, propertyName, propertyVersion)) {
-                    update = true;
-                }
+        for (Map.Entry<String, String> entry : propertyChanges.entrySet()) {
+            Element property = index.getProperty(entry.getKey());
+            String propertyVersion = entry.getValue();
+            if (property != null && !propertyVersion.equals(property.getText())) {
+                property.setText(propertyVersion);
+                update = true;
             }
         }
         return update;
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import de.pdark.decentxml.Document;
+import de.pdark.decentxml.Element;
+import io.jenkins.updatebot.model.MavenArtifactKey;
+import io.jenkins.updatebot.support.DecentXmlHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the parent, dependency and plugin elements of a <code>pom.xml</code> by their
+ * <code>groupId:artifactId</code> along with the properties by name so that we can apply lots of
+ * version changes to a POM with hash lookups rather than searching the whole document for each change.
+ * <p>
+ * The index is built with a single walk of the document which finds the same elements as
+ * {@link DecentXmlHelper#findElementsWithName(Element, String)} does for each element name.
+ */
+public class PomIndex {
+    public static final String PARENT = "parent";
+    public static final String DEPENDENCY = "dependency";
+    public static final String PLUGIN = "plugin";
+
+    private final Document doc;
+    private final Map<String, List<Element>> parents = new HashMap<>();
+    private final Map<String, List<Element>> dependencies = new HashMap<>();
+    private final Map<String, List<Element>> plugins = new HashMap<>();
+    private final Map<String, Element> properties = new HashMap<>();
+
+    public PomIndex(Document doc) {
+        this.doc = doc;
+        Element rootElement = doc.getRootElement();
+        indexChildren(rootElement, Collections.emptySet());
+        Element propertiesElement = DecentXmlHelper.firstChild(rootElement, "properties");
+        if (propertiesElement != null) {
+            for (Element property : propertiesElement.getChildren()) {
+                properties.putIfAbsent(property.getName(), property);
+            }
+        }
+    }
+
+    /**
+     * Returns the key used to index an element with the given <code>groupId</code> and <code>artifactId</code>
+     * which defaults the group to the default maven plugin group like
+     * {@link io.jenkins.updatebot.model.DependencyVersionChange#matches(String, String)}
+     */
+    public static String key(String groupId, String artifactId) {
+        if (groupId == null) {
+            groupId = MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP;
+        }
+        return groupId + ":" + artifactId;
+    }
+
+    public Document getDocument() {
+        return doc;
+    }
+
+    public List<Element> getParents(String dependency) {
+        return find(parents, dependency);
+    }
+
+    public List<Element> getDependencies(String dependency) {
+        return find(dependencies, dependency);
+    }
+
+    public List<Element> getPlugins(String dependency) {
+        return find(plugins, dependency);
+    }
+
+    public Element getProperty(String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * Indexes a plugin element which has been added to the document
+     */
+    public void addPlugin(Element element) {
+        add(plugins, element);
+    }
+
+    protected void indexChildren(Element element, Set<String> ignoreNames) {
+        for (Element child : element.getChildren()) {
+            String name = child.getName();
+            Map<String, List<Element>> map = indexFor(name);
+            if (map != null && !ignoreNames.contains(name)) {
+                add(map, child);
+                // like findElementsWithName we don't look for elements nested inside an element of the same name
+                Set<String> childIgnoreNames = new HashSet<>(ignoreNames);
+                childIgnoreNames.add(name);
+                indexChildren(child, childIgnoreNames);
+            } else {
+                indexChildren(child, ignoreNames);
+            }
+        }
+    }
+
+    protected Map<String, List<Element>> indexFor(String name) {
+        switch (name) {
+            case PARENT:
+                return parents;
+            case DEPENDENCY:
+                return dependencies;
+            case PLUGIN:
+                return plugins;
+            default:
+                return null;
+        }
+    }
+
+    private static void add(Map<String, List<Element>> map, Element element) {
+        String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
+        String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
+        map.computeIfAbsent(key(groupId, artifactId), k -> new ArrayList<>()).add(element);
+    }
+
+    private static List<Element> find(Map<String, List<Element>> map, String dependency) {
+        List<Element> answer = map.get(dependency);
+        return answer != null ? answer : Collections.emptyList();
+    }
+}
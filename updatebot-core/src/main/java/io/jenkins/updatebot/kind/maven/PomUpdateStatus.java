@@ -36,6 +36,7 @@ public class PomUpdateStatus {
 
     private final File pom;
     private final Document doc;
+    private PomIndex index;
     private boolean updated;
     private boolean rootPom;
 
@@ -49,6 +50,21 @@ public class PomUpdateStatus {
         return new PomUpdateStatus(file, doc);
     }
 
+    /**
+     * Returns the index of the elements of the pom which is built on first use so that all of the
+     * version changes are applied with lookups rather than searching the document for each change
+     */
+    public PomIndex getIndex() {
+        if (index == null) {
+            index = new PomIndex(doc);
+        }
+        return index;
+    }
+
+    public File getPom() {
+        return pom;
+    }
+
     public boolean isUpdated() {
         return updated;
     }
@@ -101,10 +117,10 @@ public class PomUpdateStatus {
             if (Objects.equal(MavenScopes.PLUGIN, scope)) {
                 updatePluginVersion(change, lazyAdd, propertyChanges);
             } else {
-                if (PomHelper.updateParentVersion(doc, change,propertyChanges)){
+                if (PomHelper.updateParentVersion(getIndex(), change, propertyChanges)) {
                     updated = true;
                 }
-                if (PomHelper.updateDependencyVersion(doc, change, propertyChanges)) {
+                if (PomHelper.updateDependencyVersion(getIndex(), change, propertyChanges)) {
                     updated = true;
                 }
                 // TODO check for BOM
@@ -118,13 +134,13 @@ public class PomUpdateStatus {
     }
 
     public void updatePluginVersion(DependencyVersionChange change, boolean lazyAdd, Map<String, String> propertyChanges) {
-        if (PomHelper.updatePluginVersion(doc, change, propertyChanges, lazyAdd)) {
+        if (PomHelper.updatePluginVersion(getIndex(), change, propertyChanges, lazyAdd)) {
             updated = true;
         }
     }
 
     public void updateProperties(Map<String, String> propertyChanges) {
-        if (PomHelper.updateProperties(doc, propertyChanges)) {
+        if (PomHelper.updateProperties(getIndex(), propertyChanges)) {
             updated = true;
         }
 
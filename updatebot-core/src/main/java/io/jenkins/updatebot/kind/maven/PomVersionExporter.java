@@ -0,0 +1,683 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import de.pdark.decentxml.Element;
+import io.fabric8.utils.Filter;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.MavenArtifactKey;
+import io.jenkins.updatebot.model.MavenArtifactVersionChange;
+import io.jenkins.updatebot.model.MavenDependencyFilter;
+import io.jenkins.updatebot.support.DecentXmlHelper;
+import io.jenkins.updatebot.support.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Exports the versions of the artifacts of a maven reactor and the dependencies, build plugins and managed dependencies
+ * matching the push configuration by reading the <code>pom.xml</code> files directly, the same way as the <code>export</code> goal of the
+ * updatebot maven plugin does but without having to run maven.
+ * <p>
+ * Only the POMs in the reactor and any imported BOMs, along with their parents, found in the local maven repository are
+ * used so if any of the exported versions depend on something else, such as properties or managed versions from a parent
+ * POM outside of the reactor, then we return null so that the caller can fall back to running the maven plugin which
+ * resolves the full model. Likewise we fall back if a profile could be activated by the environment or if a plugin bound
+ * to the default lifecycle of a project matches the filter without its version being managed in the reactor, as its
+ * version then depends on the version of maven.
+ */
+public class PomVersionExporter {
+    private static final transient Logger LOG = LoggerFactory.getLogger(PomVersionExporter.class);
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)\\}");
+    private static final int MAX_INTERPOLATION_DEPTH = 10;
+    private static final int MAX_IMPORT_DEPTH = 10;
+    private static final Map<String, List<String>> LIFECYCLE_PLUGINS = new HashMap<>();
+
+    static {
+        addLifecyclePlugins("pom", "maven-install-plugin", "maven-deploy-plugin");
+        addLifecyclePlugins("jar", "maven-resources-plugin", "maven-compiler-plugin", "maven-surefire-plugin", "maven-jar-plugin", "maven-install-plugin", "maven-deploy-plugin");
+        addLifecyclePlugins("ejb", "maven-resources-plugin", "maven-compiler-plugin", "maven-surefire-plugin", "maven-ejb-plugin", "maven-install-plugin", "maven-deploy-plugin");
+        addLifecyclePlugins("war", "maven-resources-plugin", "maven-compiler-plugin", "maven-surefire-plugin", "maven-war-plugin", "maven-install-plugin", "maven-deploy-plugin");
+        addLifecyclePlugins("ear", "maven-ear-plugin", "maven-resources-plugin", "maven-install-plugin", "maven-deploy-plugin");
+        addLifecyclePlugins("maven-plugin", "maven-resources-plugin", "maven-compiler-plugin", "maven-plugin-plugin", "maven-surefire-plugin", "maven-jar-plugin", "maven-install-plugin", "maven-deploy-plugin");
+    }
+
+    private final Map<String, ReactorProject> projects = new LinkedHashMap<>();
+    private final Map<String, Map<MavenArtifactKey, String>> boms = new HashMap<>();
+    private final File localRepository;
+
+    public PomVersionExporter() {
+        this(getDefaultLocalRepository());
+    }
+
+    public PomVersionExporter(File localRepository) {
+        this.localRepository = localRepository;
+    }
+
+    private static void addLifecyclePlugins(String packaging, String... artifactIds) {
+        List<String> list = new ArrayList<>(Arrays.asList(artifactIds));
+        // the clean and site lifecycles are bound for all packagings
+        list.add("maven-clean-plugin");
+        list.add("maven-site-plugin");
+        LIFECYCLE_PLUGINS.put(packaging, list);
+    }
+
+    /**
+     * Returns the local maven repository used to find imported BOMs
+     */
+    public static File getDefaultLocalRepository() {
+        String path = System.getProperty("maven.repo.local");
+        if (Strings.notEmpty(path)) {
+            return new File(path);
+        }
+        return new File(System.getProperty("user.home"), ".m2/repository");
+    }
+
+    /**
+     * Returns the version changes for the reactor in the given directory or null if the versions could not be resolved
+     * without the full maven model
+     */
+    public static List<DependencyVersionChange> exportVersions(Configuration configuration, File dir, Dependencies dependencyConfig) throws IOException {
+        return exportVersions(configuration, new PomCache(dir), dependencyConfig);
+    }
+
+    /**
+     * Returns the version changes for the reactor of the POMs in the given cache or null if the versions could not
+     * be resolved without the full maven model
+     */
+    public static List<DependencyVersionChange> exportVersions(Configuration configuration, PomCache cache, Dependencies dependencyConfig) throws IOException {
+        return exportVersions(configuration, cache, dependencyConfig, getDefaultLocalRepository());
+    }
+
+    /**
+     * Returns the version changes for the reactor of the POMs in the given cache using the given local maven repository
+     * to find imported BOMs or null if the versions could not be resolved without the full maven model
+     */
+    public static List<DependencyVersionChange> exportVersions(Configuration configuration, PomCache cache, Dependencies dependencyConfig, File localRepository) throws IOException {
+        Filter<MavenArtifactKey> dependencyFilter = MavenDependencyFilter.createFilter(dependencyConfig != null ? dependencyConfig.getMaven() : null);
+        PomVersionExporter exporter = new PomVersionExporter(localRepository);
+        for (File file : cache.findPomFiles(true, configuration.getPomIgnorePatterns())) {
+            exporter.addProject(new ReactorProject(cache.getDocument(file).getRootElement()));
+        }
+        Map<MavenArtifactKey, MavenArtifactVersionChange> exportVersions = exporter.exportVersions(dependencyFilter);
+        if (exportVersions == null) {
+            return null;
+        }
+        List<DependencyVersionChange> answer = new ArrayList<>();
+        for (MavenArtifactVersionChange change : exportVersions.values()) {
+            answer.add(change.createDependencyVersionChange());
+        }
+        return answer;
+    }
+
+    /**
+     * Adds a project to the reactor; the first project added is the root project
+     */
+    public void addProject(ReactorProject project) {
+        projects.put(project.key(), project);
+    }
+
+    /**
+     * Returns the exported versions or null if any of them could not be resolved
+     */
+    public Map<MavenArtifactKey, MavenArtifactVersionChange> exportVersions(Filter<MavenArtifactKey> dependencyFilter) {
+        for (ReactorProject project : projects.values()) {
+            project.parent = projects.get(project.parentKey);
+            if (project.hasConditionalProfiles()) {
+                LOG.debug("The profiles of " + project + " need to be activated by maven");
+                return null;
+            }
+        }
+        Map<MavenArtifactKey, MavenArtifactVersionChange> exportVersions = new TreeMap<>();
+        boolean root = true;
+        for (ReactorProject project : projects.values()) {
+            String groupId = project.interpolate(project.groupId);
+            String artifactId = project.interpolate(project.artifactId);
+            String version = project.interpolate(project.version);
+            if (groupId == null || artifactId == null || version == null) {
+                LOG.debug("Could not resolve the coordinates of " + project);
+                return null;
+            }
+            MavenArtifactKey artifactKey = new MavenArtifactKey(groupId, artifactId);
+            if (root) {
+                root = false;
+                // like the export goal we only export the root project if its a pom and not its dependencies
+                if ("pom".equals(project.packaging)) {
+                    addArtifact(exportVersions, artifactKey, version, MavenScopes.ARTIFACT);
+                }
+                continue;
+            }
+            addArtifact(exportVersions, artifactKey, version, MavenScopes.ARTIFACT);
+
+            Map<MavenArtifactKey, String> importedVersions = getImportedVersions(project);
+            if (importedVersions == null) {
+                return null;
+            }
+
+            // the dependencies and plugins of a project override those of the same key inherited from its parents
+            Set<MavenArtifactKey> dependencyKeys = new HashSet<>();
+            for (Element dependency : project.getDependencies()) {
+                String dependencyGroupId = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "groupId"));
+                String dependencyArtifactId = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "artifactId"));
+                if (dependencyGroupId == null || dependencyArtifactId == null) {
+                    LOG.debug("Could not resolve dependency " + dependency.toXML() + " of " + project);
+                    return null;
+                }
+                MavenArtifactKey dependencyKey = new MavenArtifactKey(dependencyGroupId, dependencyArtifactId);
+                if (dependencyKeys.add(dependencyKey) && dependencyFilter.matches(dependencyKey)) {
+                    String dependencyVersion = DecentXmlHelper.firstChildTextContent(dependency, "version");
+                    if (Strings.empty(dependencyVersion)) {
+                        dependencyVersion = project.getManagedVersion(dependencyKey);
+                    }
+                    if (Strings.empty(dependencyVersion)) {
+                        dependencyVersion = importedVersions.get(dependencyKey);
+                    } else {
+                        dependencyVersion = project.interpolate(dependencyVersion);
+                    }
+                    if (dependencyVersion == null) {
+                        LOG.debug("Could not resolve the version of dependency " + dependencyKey + " of " + project);
+                        return null;
+                    }
+                    addArtifact(exportVersions, dependencyKey, dependencyVersion, MavenScopes.DEPENDENCY);
+                }
+            }
+
+            Set<MavenArtifactKey> pluginKeys = new HashSet<>();
+            for (Element plugin : project.getPlugins()) {
+                MavenArtifactKey pluginKey = project.getPluginKey(plugin);
+                if (pluginKey == null) {
+                    LOG.debug("Could not resolve plugin " + plugin.toXML() + " of " + project);
+                    return null;
+                }
+                if (pluginKeys.add(pluginKey) && dependencyFilter.matches(pluginKey)) {
+                    String pluginVersion = DecentXmlHelper.firstChildTextContent(plugin, "version");
+                    if (Strings.empty(pluginVersion)) {
+                        pluginVersion = project.getManagedPluginVersion(pluginKey);
+                    }
+                    pluginVersion = project.interpolate(pluginVersion);
+                    if (pluginVersion == null) {
+                        LOG.debug("Could not resolve the version of plugin " + pluginKey + " of " + project);
+                        return null;
+                    }
+                    addArtifact(exportVersions, pluginKey, pluginVersion, MavenScopes.PLUGIN);
+                }
+            }
+
+            // maven adds the plugins bound to the lifecycle of the packaging to the build plugins
+            List<String> lifecyclePlugins = LIFECYCLE_PLUGINS.get(project.packaging);
+            if (lifecyclePlugins == null) {
+                if (matchesLifecyclePlugin(dependencyFilter)) {
+                    LOG.debug("The plugins bound to the lifecycle of packaging " + project.packaging + " of " + project + " need to be resolved by maven");
+                    return null;
+                }
+                lifecyclePlugins = Collections.emptyList();
+            }
+            for (String lifecyclePlugin : lifecyclePlugins) {
+                MavenArtifactKey pluginKey = new MavenArtifactKey(MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP, lifecyclePlugin);
+                if (pluginKeys.add(pluginKey) && dependencyFilter.matches(pluginKey)) {
+                    String pluginVersion = project.interpolate(project.getManagedPluginVersion(pluginKey));
+                    if (pluginVersion == null) {
+                        LOG.debug("The version of lifecycle plugin " + pluginKey + " of " + project + " depends on the version of maven");
+                        return null;
+                    }
+                    addArtifact(exportVersions, pluginKey, pluginVersion, MavenScopes.PLUGIN);
+                }
+            }
+
+            for (Element dependency : project.getManagedDependencies()) {
+                if ("import".equals(DecentXmlHelper.firstChildTextContent(dependency, "scope"))) {
+                    continue;
+                }
+                String dependencyGroupId = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "groupId"));
+                String dependencyArtifactId = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "artifactId"));
+                if (dependencyGroupId == null || dependencyArtifactId == null) {
+                    LOG.debug("Could not resolve managed dependency " + dependency.toXML() + " of " + project);
+                    return null;
+                }
+                MavenArtifactKey dependencyKey = new MavenArtifactKey(dependencyGroupId, dependencyArtifactId);
+                if (dependencyFilter.matches(dependencyKey)) {
+                    String dependencyVersion = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "version"));
+                    if (dependencyVersion == null) {
+                        LOG.debug("Could not resolve the version of managed dependency " + dependencyKey + " of " + project);
+                        return null;
+                    }
+                    // artifacts, dependencies and plugins take precedence over managed dependencies
+                    addManagedArtifact(exportVersions, dependencyKey, dependencyVersion);
+                }
+            }
+            // the versions managed by the project take precedence over those of imported BOMs
+            for (Map.Entry<MavenArtifactKey, String> entry : importedVersions.entrySet()) {
+                if (dependencyFilter.matches(entry.getKey())) {
+                    addManagedArtifact(exportVersions, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return exportVersions;
+    }
+
+    /**
+     * Returns the versions managed by the BOMs imported by the project or its parents in the reactor or null if
+     * any of the BOMs could not be found in the local repository
+     */
+    protected Map<MavenArtifactKey, String> getImportedVersions(ReactorProject project) {
+        Map<MavenArtifactKey, String> answer = new LinkedHashMap<>();
+        if (!addImportedVersions(answer, project, 0)) {
+            return null;
+        }
+        return answer;
+    }
+
+    private boolean addImportedVersions(Map<MavenArtifactKey, String> answer, ReactorProject project, int depth) {
+        for (Element dependency : project.getManagedDependencies()) {
+            if (!"import".equals(DecentXmlHelper.firstChildTextContent(dependency, "scope"))) {
+                continue;
+            }
+            String groupId = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "groupId"));
+            String artifactId = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "artifactId"));
+            String version = project.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "version"));
+            if (groupId == null || artifactId == null || version == null) {
+                LOG.debug("Could not resolve imported BOM " + dependency.toXML() + " of " + project);
+                return false;
+            }
+            Map<MavenArtifactKey, String> versions = getBomVersions(groupId, artifactId, version, depth);
+            if (versions == null) {
+                return false;
+            }
+            for (Map.Entry<MavenArtifactKey, String> entry : versions.entrySet()) {
+                answer.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the versions managed by the given BOM or null if it or its parents are not in the local repository
+     */
+    protected Map<MavenArtifactKey, String> getBomVersions(String groupId, String artifactId, String version, int depth) {
+        String key = groupId + ":" + artifactId + ":" + version;
+        if (boms.containsKey(key)) {
+            return boms.get(key);
+        }
+        Map<MavenArtifactKey, String> answer = null;
+        if (depth < MAX_IMPORT_DEPTH) {
+            ReactorProject bom = loadRepositoryProject(groupId, artifactId, version);
+            if (bom != null) {
+                answer = new LinkedHashMap<>();
+                for (Element dependency : bom.getManagedDependencies()) {
+                    if ("import".equals(DecentXmlHelper.firstChildTextContent(dependency, "scope"))) {
+                        continue;
+                    }
+                    String dependencyGroupId = bom.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "groupId"));
+                    String dependencyArtifactId = bom.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "artifactId"));
+                    String dependencyVersion = bom.interpolate(DecentXmlHelper.firstChildTextContent(dependency, "version"));
+                    if (dependencyGroupId == null || dependencyArtifactId == null || dependencyVersion == null) {
+                        LOG.debug("Could not resolve managed dependency " + dependency.toXML() + " of BOM " + key);
+                        answer = null;
+                        break;
+                    }
+                    answer.putIfAbsent(new MavenArtifactKey(dependencyGroupId, dependencyArtifactId), dependencyVersion);
+                }
+                if (answer != null && !addImportedVersions(answer, bom, depth + 1)) {
+                    answer = null;
+                }
+            }
+        }
+        boms.put(key, answer);
+        return answer;
+    }
+
+    /**
+     * Loads the POM of the given artifact along with its parents from the local repository or returns null if
+     * any of them could not be found
+     */
+    protected ReactorProject loadRepositoryProject(String groupId, String artifactId, String version) {
+        if (Strings.empty(groupId) || Strings.empty(artifactId) || Strings.empty(version)) {
+            return null;
+        }
+        groupId = groupId.trim();
+        artifactId = artifactId.trim();
+        version = version.trim();
+        File file = new File(localRepository, groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + ".pom");
+        if (!file.isFile()) {
+            LOG.debug("Could not find " + file + " in the local repository");
+            return null;
+        }
+        ReactorProject answer;
+        try {
+            answer = new ReactorProject(DecentXmlHelper.parseXmlFile(file).getRootElement());
+        } catch (IOException e) {
+            LOG.debug("Failed to parse " + file + ". " + e);
+            return null;
+        }
+        if (answer.parentKey != null) {
+            answer.parent = loadRepositoryProject(answer.parentGroupId, answer.parentArtifactId, answer.parentVersion);
+            if (answer.parent == null) {
+                return null;
+            }
+        }
+        return answer;
+    }
+
+    private static boolean matchesLifecyclePlugin(Filter<MavenArtifactKey> dependencyFilter) {
+        for (List<String> list : LIFECYCLE_PLUGINS.values()) {
+            for (String artifactId : list) {
+                if (dependencyFilter.matches(new MavenArtifactKey(MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP, artifactId))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected static void addArtifact(Map<MavenArtifactKey, MavenArtifactVersionChange> exportVersions, MavenArtifactKey artifactKey, String version, String scope) {
+        exportVersions.put(artifactKey, new MavenArtifactVersionChange(artifactKey, version, scope));
+    }
+
+    protected static void addManagedArtifact(Map<MavenArtifactKey, MavenArtifactVersionChange> exportVersions, MavenArtifactKey artifactKey, String version) {
+        exportVersions.putIfAbsent(artifactKey, new MavenArtifactVersionChange(artifactKey, version, MavenScopes.DEPENDENCY));
+    }
+
+    /**
+     * A project in the reactor along with its parent if the parent is also in the reactor
+     */
+    public static class ReactorProject {
+        private static final List<String> PROFILE_SECTIONS = Arrays.asList("properties", "dependencies", "dependencyManagement", "build");
+
+        private final Element project;
+        /**
+         * The profiles which are active by default followed by the project which they override
+         */
+        private final List<Element> models = new ArrayList<>();
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+        private final String packaging;
+        private final String parentKey;
+        private final String parentGroupId;
+        private final String parentArtifactId;
+        private final String parentVersion;
+        private final Map<String, String> properties = new HashMap<>();
+        private ReactorProject parent;
+
+        public ReactorProject(Element project) {
+            this.project = project;
+            Element parentElement = DecentXmlHelper.firstChild(project, "parent");
+            if (parentElement != null) {
+                parentGroupId = DecentXmlHelper.firstChildTextContent(parentElement, "groupId");
+                parentArtifactId = DecentXmlHelper.firstChildTextContent(parentElement, "artifactId");
+                parentVersion = DecentXmlHelper.firstChildTextContent(parentElement, "version");
+                parentKey = parentGroupId + ":" + parentArtifactId;
+            } else {
+                parentGroupId = null;
+                parentArtifactId = null;
+                parentVersion = null;
+                parentKey = null;
+            }
+            String groupId = DecentXmlHelper.firstChildTextContent(project, "groupId");
+            String version = DecentXmlHelper.firstChildTextContent(project, "version");
+            this.groupId = Strings.notEmpty(groupId) ? groupId.trim() : parentGroupId;
+            this.artifactId = DecentXmlHelper.firstChildTextContent(project, "artifactId");
+            this.version = Strings.notEmpty(version) ? version.trim() : parentVersion;
+            String packaging = DecentXmlHelper.firstChildTextContent(project, "packaging");
+            this.packaging = Strings.notEmpty(packaging) ? packaging.trim() : "jar";
+            for (Element profile : getProfiles()) {
+                Element activation = DecentXmlHelper.firstChild(profile, "activation");
+                if (activation != null && "true".equals(DecentXmlHelper.firstChildTextContent(activation, "activeByDefault"))) {
+                    models.add(profile);
+                }
+            }
+            models.add(project);
+            for (Element model : models) {
+                Element propertiesElement = DecentXmlHelper.firstChild(model, "properties");
+                if (propertiesElement != null) {
+                    for (Element property : propertiesElement.getChildren()) {
+                        properties.putIfAbsent(property.getName(), property.getTrimmedText());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns true if this project has a profile which changes the model and is activated by the environment,
+         * or deactivates the profiles which are active by default, so that we cannot tell which profiles are active
+         */
+        public boolean hasConditionalProfiles() {
+            for (Element profile : getProfiles()) {
+                Element activation = DecentXmlHelper.firstChild(profile, "activation");
+                if (activation == null) {
+                    // only activated explicitly which the export goal never does
+                    continue;
+                }
+                for (Element condition : activation.getChildren()) {
+                    if (!condition.getName().equals("activeByDefault") && changesModel(profile)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean changesModel(Element profile) {
+            for (String section : PROFILE_SECTIONS) {
+                if (DecentXmlHelper.firstChild(profile, section) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<Element> getProfiles() {
+            Element profiles = DecentXmlHelper.firstChild(project, "profiles");
+            if (profiles == null) {
+                return Collections.emptyList();
+            }
+            return profiles.getChildren("profile");
+        }
+
+        @Override
+        public String toString() {
+            return "ReactorProject{" + key() + "}";
+        }
+
+        /**
+         * Returns the key of this project which is used to find the parent of projects
+         */
+        public String key() {
+            return groupId + ":" + artifactId;
+        }
+
+        /**
+         * Returns the dependencies of this project along with those inherited from parents in the reactor
+         */
+        public List<Element> getDependencies() {
+            List<Element> answer = new ArrayList<>();
+            for (ReactorProject p = this; p != null; p = p.parent) {
+                for (Element model : p.models) {
+                    Element dependencies = DecentXmlHelper.firstChild(model, "dependencies");
+                    if (dependencies != null) {
+                        answer.addAll(dependencies.getChildren("dependency"));
+                    }
+                }
+            }
+            return answer;
+        }
+
+        /**
+         * Returns the build plugins of this project along with those inherited from parents in the reactor
+         */
+        public List<Element> getPlugins() {
+            List<Element> answer = new ArrayList<>();
+            for (ReactorProject p = this; p != null; p = p.parent) {
+                for (Element model : p.models) {
+                    answer.addAll(getPluginElements(DecentXmlHelper.firstChild(model, "build")));
+                }
+            }
+            return answer;
+        }
+
+        /**
+         * Returns the managed dependencies of this project along with those inherited from parents in the reactor
+         */
+        public List<Element> getManagedDependencies() {
+            List<Element> answer = new ArrayList<>();
+            for (ReactorProject p = this; p != null; p = p.parent) {
+                for (Element model : p.models) {
+                    answer.addAll(getManagedDependencyElements(model));
+                }
+            }
+            return answer;
+        }
+
+        /**
+         * Returns the key of the given plugin element defaulting the group id or null if it could not be resolved
+         */
+        public MavenArtifactKey getPluginKey(Element plugin) {
+            String groupId = DecentXmlHelper.firstChildTextContent(plugin, "groupId");
+            groupId = Strings.empty(groupId) ? MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP : interpolate(groupId);
+            String artifactId = interpolate(DecentXmlHelper.firstChildTextContent(plugin, "artifactId"));
+            if (groupId == null || artifactId == null) {
+                return null;
+            }
+            return new MavenArtifactKey(groupId, artifactId);
+        }
+
+        /**
+         * Returns the version of the given plugin from the plugin management of this project or its parents
+         * in the reactor or null if it is not managed in the reactor
+         */
+        public String getManagedPluginVersion(MavenArtifactKey key) {
+            for (ReactorProject p = this; p != null; p = p.parent) {
+                for (Element model : p.models) {
+                    Element build = DecentXmlHelper.firstChild(model, "build");
+                    Element pluginManagement = build != null ? DecentXmlHelper.firstChild(build, "pluginManagement") : null;
+                    for (Element plugin : getPluginElements(pluginManagement)) {
+                        String version = DecentXmlHelper.firstChildTextContent(plugin, "version");
+                        if (key.equals(getPluginKey(plugin)) && Strings.notEmpty(version)) {
+                            return version;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the managed version of the given dependency from the dependency management of this project
+         * or its parents in the reactor or null if it is not managed in the reactor
+         */
+        public String getManagedVersion(MavenArtifactKey key) {
+            for (Element dependency : getManagedDependencies()) {
+                String groupId = interpolate(DecentXmlHelper.firstChildTextContent(dependency, "groupId"));
+                String artifactId = interpolate(DecentXmlHelper.firstChildTextContent(dependency, "artifactId"));
+                if (key.getGroupId().equals(groupId) && key.getArtifactId().equals(artifactId)) {
+                    String version = DecentXmlHelper.firstChildTextContent(dependency, "version");
+                    if (Strings.notEmpty(version)) {
+                        return version;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static List<Element> getManagedDependencyElements(Element model) {
+            Element dependencyManagement = DecentXmlHelper.firstChild(model, "dependencyManagement");
+            Element dependencies = dependencyManagement != null ? DecentXmlHelper.firstChild(dependencyManagement, "dependencies") : null;
+            if (dependencies == null) {
+                return Collections.emptyList();
+            }
+            return dependencies.getChildren("dependency");
+        }
+
+        private static List<Element> getPluginElements(Element container) {
+            Element plugins = container != null ? DecentXmlHelper.firstChild(container, "plugins") : null;
+            if (plugins == null) {
+                return new ArrayList<>();
+            }
+            return plugins.getChildren("plugin");
+        }
+
+        /**
+         * Replaces any expressions in the given text returning null if the text is empty or any expression
+         * could not be resolved from the reactor
+         */
+        public String interpolate(String text) {
+            if (Strings.empty(text)) {
+                return null;
+            }
+            String answer = text.trim();
+            for (int i = 0; i < MAX_INTERPOLATION_DEPTH && answer.contains("${"); i++) {
+                Matcher matcher = EXPRESSION.matcher(answer);
+                StringBuffer buffer = new StringBuffer();
+                while (matcher.find()) {
+                    String value = getProperty(matcher.group(1));
+                    if (value == null) {
+                        return null;
+                    }
+                    matcher.appendReplacement(buffer, Matcher.quoteReplacement(value));
+                }
+                matcher.appendTail(buffer);
+                answer = buffer.toString();
+            }
+            return answer.contains("${") ? null : answer;
+        }
+
+        protected String getProperty(String name) {
+            switch (name) {
+                case "project.version":
+                case "pom.version":
+                case "version":
+                    return version;
+                case "project.groupId":
+                case "pom.groupId":
+                case "groupId":
+                    return groupId;
+                case "project.artifactId":
+                case "pom.artifactId":
+                case "artifactId":
+                    return artifactId;
+                case "project.parent.version":
+                case "parent.version":
+                    return parentVersion;
+                case "project.parent.groupId":
+                case "parent.groupId":
+                    return parentGroupId;
+            }
+            for (ReactorProject p = this; p != null; p = p.parent) {
+                String value = p.properties.get(name);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.utils.Files;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.support.JsonNodes;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the npm dependency tree from the <code>npm-shrinkwrap.json</code> or <code>package-lock.json</code> file
+ * without running <code>npm install</code> or needing network access.
+ * <p>
+ * The generated file has the same shape as the output of <code>npm list -json</code>. Each installed package
+ * expands its dependencies only the first time it is visited, which keeps every dependency edge while avoiding cycles.
+ * If there is no lock file then the fallback generator is used.
+ */
+public class LockfileNpmDependencyTreeGenerator implements NpmDependencyTreeGenerator {
+    private static final transient Logger LOG = LoggerFactory.getLogger(LockfileNpmDependencyTreeGenerator.class);
+
+    public static final String[] LOCK_FILES = {"npm-shrinkwrap.json", "package-lock.json"};
+
+    private static final String NODE_MODULES = "node_modules/";
+    private static final String[] PACKAGE_DEPENDENCY_KEYS = {
+            NpmDependencyKinds.DEPENDENCIES, NpmDependencyKinds.DEV_DEPENDENCIES, "optionalDependencies", NpmDependencyKinds.PEER_DEPENDENCIES
+    };
+
+    private final NpmDependencyTreeGenerator fallback;
+
+    public LockfileNpmDependencyTreeGenerator() {
+        this(new DefaultNpmDependencyTreeGenerator());
+    }
+
+    public LockfileNpmDependencyTreeGenerator(NpmDependencyTreeGenerator fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void generateDependencyTree(CommandContext context, String dependencyFileName) throws IOException {
+        File dir = context.getDir();
+        File lockFile = findLockFile(dir);
+        if (lockFile == null) {
+            if (fallback != null) {
+                context.info(LOG, "No npm lock file in " + dir + " so installing the dependencies to generate the dependency tree");
+                fallback.generateDependencyTree(context, dependencyFileName);
+            } else {
+                context.warn(LOG, "No npm lock file in " + dir + " so cannot generate the dependency tree");
+            }
+            return;
+        }
+        context.info(LOG, "Generating dependency tree file " + dependencyFileName + " from " + lockFile.getName() + " in " + dir);
+        JsonNode packageJson = null;
+        File packageJsonFile = new File(dir, "package.json");
+        if (Files.isFile(packageJsonFile)) {
+            packageJson = MarkupHelper.loadJson(packageJsonFile);
+        }
+        ObjectNode tree = createDependencyTree(packageJson, MarkupHelper.loadJson(lockFile));
+        MarkupHelper.savePrettyJson(new File(dir, dependencyFileName), tree);
+    }
+
+    /**
+     * Returns the lock file in the given directory or null if there is none
+     */
+    public static File findLockFile(File dir) {
+        for (String name : LOCK_FILES) {
+            File file = new File(dir, name);
+            if (Files.isFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the <code>npm list -json</code> style tree from the package.json and lock file
+     */
+    public static ObjectNode createDependencyTree(JsonNode packageJson, JsonNode lockJson) {
+        Map<String, LockedPackage> packages = new LinkedHashMap<>();
+        JsonNode packagesNode = lockJson.get("packages");
+        if (packagesNode instanceof ObjectNode) {
+            addPackages(packages, (ObjectNode) packagesNode);
+        } else {
+            addLegacyDependencies(packages, "", lockJson.get("dependencies"));
+        }
+        LockedPackage root = packages.get("");
+        if (root == null) {
+            root = new LockedPackage(JsonNodes.textValue(lockJson, "version"));
+            packages.put("", root);
+        }
+        if (packageJson != null) {
+            for (String key : PACKAGE_DEPENDENCY_KEYS) {
+                addRequires(root, packageJson.get(key));
+            }
+        } else if (root.requires.isEmpty()) {
+            // without the package.json treat the top level packages as the direct dependencies
+            for (String path : packages.keySet()) {
+                if (path.startsWith(NODE_MODULES) && path.lastIndexOf(NODE_MODULES) == 0) {
+                    root.requires.add(path.substring(NODE_MODULES.length()));
+                }
+            }
+        }
+
+        ObjectNode answer = JsonNodeFactory.instance.objectNode();
+        String name = packageJson != null ? JsonNodes.textValue(packageJson, "name") : JsonNodes.textValue(lockJson, "name");
+        if (name != null) {
+            answer.put("name", name);
+        }
+        if (root.version != null) {
+            answer.put("version", root.version);
+        }
+        addDependencies(answer, packages, "", root, new HashSet<>());
+        return answer;
+    }
+
+    private static void addDependencies(ObjectNode node, Map<String, LockedPackage> packages, String path, LockedPackage lockedPackage, Set<String> visited) {
+        ObjectNode dependencies = null;
+        for (String dependency : lockedPackage.requires) {
+            String dependencyPath = resolve(packages, path, dependency);
+            if (dependencyPath == null) {
+                LOG.debug("Could not resolve " + dependency + " from " + (path.isEmpty() ? "the root package" : path));
+                continue;
+            }
+            LockedPackage resolved = packages.get(dependencyPath);
+            if (dependencies == null) {
+                dependencies = node.putObject(NpmDependencyKinds.DEPENDENCIES);
+            }
+            ObjectNode dependencyNode = dependencies.putObject(dependency);
+            if (resolved.version != null) {
+                dependencyNode.put("version", resolved.version);
+            }
+            if (visited.add(dependencyPath)) {
+                addDependencies(dependencyNode, packages, dependencyPath, resolved, visited);
+            }
+        }
+    }
+
+    /**
+     * Resolves the path of the given dependency the same way node does by looking in the <code>node_modules</code>
+     * of the package and then of each of its parents
+     */
+    private static String resolve(Map<String, LockedPackage> packages, String path, String dependency) {
+        String dir = path;
+        while (true) {
+            String candidate = (dir.isEmpty() ? "" : dir + "/") + NODE_MODULES + dependency;
+            LockedPackage lockedPackage = packages.get(candidate);
+            if (lockedPackage != null) {
+                if (lockedPackage.link != null && packages.containsKey(lockedPackage.link)) {
+                    return lockedPackage.link;
+                }
+                return candidate;
+            }
+            if (dir.isEmpty()) {
+                return null;
+            }
+            int idx = dir.lastIndexOf(NODE_MODULES);
+            dir = idx > 0 ? dir.substring(0, idx - 1) : "";
+        }
+    }
+
+    /**
+     * Adds the packages from the <code>packages</code> object of lock file version 2 or later
+     */
+    private static void addPackages(Map<String, LockedPackage> packages, ObjectNode packagesNode) {
+        Iterator<Map.Entry<String, JsonNode>> iter = packagesNode.fields();
+        while (iter.hasNext()) {
+            Map.Entry<String, JsonNode> entry = iter.next();
+            JsonNode properties = entry.getValue();
+            LockedPackage lockedPackage = new LockedPackage(JsonNodes.textValue(properties, "version"));
+            if (properties.path("link").asBoolean()) {
+                lockedPackage.link = JsonNodes.textValue(properties, "resolved");
+            }
+            for (String key : PACKAGE_DEPENDENCY_KEYS) {
+                if (!entry.getKey().isEmpty() && key.equals(NpmDependencyKinds.DEV_DEPENDENCIES)) {
+                    // only the dev dependencies of the root package are installed
+                    continue;
+                }
+                addRequires(lockedPackage, properties.get(key));
+            }
+            packages.put(entry.getKey(), lockedPackage);
+        }
+    }
+
+    /**
+     * Adds the nested <code>dependencies</code> objects of lock file version 1 using the same paths as later versions
+     */
+    private static void addLegacyDependencies(Map<String, LockedPackage> packages, String path, JsonNode dependencies) {
+        if (!(dependencies instanceof ObjectNode)) {
+            return;
+        }
+        Iterator<Map.Entry<String, JsonNode>> iter = dependencies.fields();
+        while (iter.hasNext()) {
+            Map.Entry<String, JsonNode> entry = iter.next();
+            JsonNode properties = entry.getValue();
+            String dependencyPath = (path.isEmpty() ? "" : path + "/") + NODE_MODULES + entry.getKey();
+            LockedPackage lockedPackage = new LockedPackage(JsonNodes.textValue(properties, "version"));
+            addRequires(lockedPackage, properties.get("requires"));
+            packages.put(dependencyPath, lockedPackage);
+            addLegacyDependencies(packages, dependencyPath, properties.get("dependencies"));
+        }
+    }
+
+    private static void addRequires(LockedPackage lockedPackage, JsonNode requires) {
+        if (requires instanceof ObjectNode) {
+            Iterator<String> iter = requires.fieldNames();
+            while (iter.hasNext()) {
+                lockedPackage.requires.add(iter.next());
+            }
+        }
+    }
+
+    private static class LockedPackage {
+        private final String version;
+        private final Set<String> requires = new LinkedHashSet<>();
+        private String link;
+
+        LockedPackage(String version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Rewrites the dependency versions of a <code>package.json</code> file by streaming over the JSON tokens and only
+ * replacing the text of the version strings which change so that the rest of the file keeps its formatting.
+ */
+public class PackageJsonRewriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Set<String> DEPENDENCY_KEYS = new HashSet<>(Arrays.asList(NpmDependencyKinds.DEPENDENCY_KEYS));
+
+    /**
+     * Returns the new version of a dependency or null if it should not change
+     */
+    public interface VersionUpdater {
+        String updateVersion(String dependencyKey, String name, String version);
+    }
+
+    /**
+     * Returns the updated JSON text or null if no versions were changed
+     */
+    public static String updateVersions(String json, VersionUpdater updater) throws IOException {
+        StringBuilder buffer = null;
+        int copied = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.VALUE_STRING) {
+                    continue;
+                }
+                String dependencyKey = getDependencyKey(parser.getParsingContext());
+                if (dependencyKey == null) {
+                    continue;
+                }
+                String name = parser.getCurrentName();
+                String version = parser.getText();
+                String newVersion = updater.updateVersion(dependencyKey, name, version);
+                if (newVersion == null || newVersion.equals(version)) {
+                    continue;
+                }
+                int start = (int) parser.getTokenLocation().getCharOffset();
+                int end = findStringEnd(json, start);
+                if (buffer == null) {
+                    buffer = new StringBuilder(json.length() + 32);
+                }
+                buffer.append(json, copied, start);
+                buffer.append('"').append(JsonStringEncoder.getInstance().quoteAsString(newVersion)).append('"');
+                copied = end;
+            }
+        }
+        if (buffer == null) {
+            return null;
+        }
+        buffer.append(json, copied, json.length());
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the dependency key if the context is a value of one of the dependency objects of the root object
+     */
+    private static String getDependencyKey(JsonStreamContext context) {
+        if (!context.inObject()) {
+            return null;
+        }
+        JsonStreamContext dependencies = context.getParent();
+        if (dependencies == null || !dependencies.inObject() || dependencies.getParent() == null || !dependencies.getParent().inRoot()) {
+            return null;
+        }
+        String key = dependencies.getCurrentName();
+        return DEPENDENCY_KEYS.contains(key) ? key : null;
+    }
+
+    /**
+     * Returns the index after the closing quote of the string token starting at the given index
+     */
+    private static int findStringEnd(String json, int start) throws IOException {
+        if (start < 0 || start >= json.length() || json.charAt(start) != '"') {
+            throw new IOException("Could not find the string token at offset " + start);
+        }
+        for (int i = start + 1, size = json.length(); i < size; i++) {
+            char ch = json.charAt(i);
+            if (ch == '\\') {
+                i++;
+            } else if (ch == '"') {
+                return i + 1;
+            }
+        }
+        throw new IOException("Unterminated string at offset " + start);
+    }
+}
@@ -34,9 +34,11 @@ import io.jenkins.updatebot.support.FileHelper;
 import io.jenkins.updatebot.support.JsonNodes;
 import io.jenkins.updatebot.support.MarkupHelper;
 import io.jenkins.updatebot.support.ProcessHelper;
+import io.jenkins.updatebot.support.ToolCapabilities;
 import io.jenkins.updatebot.support.Strings;
 import io.fabric8.utils.Files;
 import io.fabric8.utils.Filter;
+import io.fabric8.utils.IOHelpers;
 import io.fabric8.utils.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +46,9 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -62,8 +66,9 @@ public class PackageJsonUpdater implements Updater {
             // lets verify we have a npm install
             Configuration configuration = context.getConfiguration();
             String npmCommand = configuration.getNpmCommand();
-            int returnCode = ProcessHelper.runCommandIgnoreOutput(context.getDir(), configuration.getNpmEnvironmentVariables(), npmCommand, "-v");
-            if (returnCode != 0) {
+            ToolCapabilities.Capability capability = ToolCapabilities.probe(context.getDir(), configuration.getNpmEnvironmentVariables(), npmCommand, "-v");
+            if (!capability.isAvailable()) {
+                int returnCode = capability.getReturnCode();
                 context.warn(LOG, "Could not invoke NodeJS!. Command failed: " + npmCommand + " -v => " + returnCode);
                 context.warn(LOG, "Please verify you have `npm` on your PATH or you have configured NodeJS property");
                 return false;
@@ -73,35 +78,27 @@ public class PackageJsonUpdater implements Updater {
     }
 
     protected boolean pushVersions(PushVersionChangesContext context) throws IOException {
-        File file = context.file("package.json");
-        JsonNode tree = MarkupHelper.loadJson(file);
-        boolean answer = false;
-        for (String dependencyKey : NpmDependencyKinds.DEPENDENCY_KEYS) {
-            JsonNode dependencies = tree.get(dependencyKey);
-            if (dependencies instanceof ObjectNode) {
-                ObjectNode objectNode = (ObjectNode) dependencies;
-                if (doPushVersionChange(dependencyKey, objectNode, context)) {
-                    answer = true;
-                }
-            }
-        }
-        if (answer) {
-            MarkupHelper.savePrettyJson(file, tree);
-            context.updatedFile(file);
-        }
-        return answer;
+        Map<String, PushVersionChangesContext> contexts = new HashMap<>();
+        contexts.put(context.getName(), context);
+        return pushVersions(context.file("package.json"), contexts);
     }
 
     @Override
     public boolean pushVersions(CommandContext parentContext, List<DependencyVersionChange> changes) throws IOException {
         boolean answer = false;
         if (isApplicable(parentContext)) {
+            // lets apply all the changes to the file in one pass; if a dependency is changed more than once the last change wins
+            Map<String, PushVersionChangesContext> contexts = new LinkedHashMap<>();
             for (DependencyVersionChange step : changes) {
                 PushVersionChangesContext context = new PushVersionChangesContext(parentContext, step);
-                boolean updated = pushVersions(context);
-                if (updated) {
-                    answer = true;
-                } else {
+                PushVersionChangesContext old = contexts.put(context.getName(), context);
+                if (old != null) {
+                    parentContext.removeChild(old);
+                }
+            }
+            answer = pushVersions(parentContext.file("package.json"), contexts);
+            for (PushVersionChangesContext context : contexts.values()) {
+                if (context.getChanges().isEmpty()) {
                     parentContext.removeChild(context);
                 }
             }
@@ -109,6 +106,36 @@ public class PackageJsonUpdater implements Updater {
         return answer;
     }
 
+    /**
+     * Updates the versions of the dependencies in the given file for the contexts indexed by dependency name
+     * writing the file at most once
+     */
+    protected boolean pushVersions(File file, Map<String, PushVersionChangesContext> contexts) throws IOException {
+        String json = IOHelpers.readFully(file);
+        String updatedJson = PackageJsonRewriter.updateVersions(json, (dependencyKey, name, version) -> {
+            PushVersionChangesContext context = contexts.get(name);
+            if (context == null) {
+                return null;
+            }
+            String value = context.getValue();
+            if (Objects.equal(version, value)) {
+                return null;
+            }
+            context.updatedVersion(dependencyKey, name, value, version);
+            return value;
+        });
+        if (updatedJson == null) {
+            return false;
+        }
+        IOHelpers.writeFully(file, updatedJson);
+        for (PushVersionChangesContext context : contexts.values()) {
+            if (!context.getChanges().isEmpty()) {
+                context.updatedFile(file);
+            }
+        }
+        return true;
+    }
+
     /**
      * Adds the list of possible dependency update steps from the given source context that we can then apply to
      * other repositories
@@ -159,23 +186,25 @@ public class PackageJsonUpdater implements Updater {
         Map<String, DependencyCheck> failedChecks = new TreeMap<>();
 
         String dependencyFileName = ".dependency-tree.json";
-        JsonNode json = null;
+        DependencyTree dependencyTree = null;
         File file = new File(context.getDir(), dependencyFileName);
         try (FileDeleter ignore = new FileDeleter(file)) {
             generateDependencyTree(context, dependencyFileName);
-            json = getJsonFile(context, dependencyFileName);
+            if (Files.isFile(file)) {
+                dependencyTree = DependencyTree.parseTree(file);
+            }
         } catch (IOException e) {
             LOG.warn("Caught " + e, e);
         }
-        if (json != null) {
-            DependencyTree dependencyTree = DependencyTree.parseTree(json);
+        if (dependencyTree != null) {
             for (DependencyVersionChange change : changes) {
-                DependencyCheck dependencyCheck = dependencyTree.dependencyCheck(change.getDependency());
-                if (dependencyCheck.isValid()) {
+                String dependency = change.getDependency();
+                // only create the full check with the conflicting links for the dependencies which fail
+                if (!dependencyTree.hasConflicts(dependency)) {
                     validChanges.add(change);
                 } else {
                     invalidChanges.add(change);
-                    failedChecks.put(change.getDependency(), dependencyCheck);
+                    failedChecks.put(dependency, dependencyTree.dependencyCheck(dependency));
                 }
             }
         }
@@ -227,20 +256,4 @@ public class PackageJsonUpdater implements Updater {
         File dir = context.getRepository().getDir();
         return ProcessHelper.runCommandAndLogOutput(context.getConfiguration(), LOG, dir, "ncu", "--upgrade");
     }
-
-
-    protected boolean doPushVersionChange(String dependencyKey, ObjectNode dependencies, PushVersionChangesContext context) {
-        String name = context.getName();
-        String value = context.getValue();
-        JsonNode dependency = dependencies.get(name);
-        if (dependency != null && dependency.isTextual()) {
-            String old = dependency.textValue();
-            if (!Objects.equal(old, value)) {
-                dependencies.put(name, value);
-                context.updatedVersion(dependencyKey, name, value, old);
-                return true;
-            }
-        }
-        return false;
-    }
 }
@@ -15,45 +15,116 @@
  */
 package io.jenkins.updatebot.kind.npm.dependency;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import io.jenkins.updatebot.support.JsonNodes;
 
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static io.jenkins.updatebot.kind.npm.NpmDependencyKinds.DEPENDENCY_KEYS;
 
 /**
+ * The dependency tree of an npm project stored compactly so that large trees can be checked quickly.
+ * <p>
+ * Each dependency name and version is interned to an integer id. Each dependency link is stored as a parent, child,
+ * version and kind in parallel int arrays. Once the tree is parsed, a reverse index from each dependency to the links
+ * which depend on it is built, along with the set of dependencies whose links use a version other than the direct one.
+ * A check is then a lookup, and the {@link DependencyInfo} is only created for the dependencies which are checked.
  */
 public class DependencyTree {
-    private Map<String, DependencyInfo> dependencies = new LinkedHashMap<>();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int NO_PARENT = -1;
+    private static final int NO_VERSION = -1;
 
-    public static DependencyTree parseTree(JsonNode tree) {
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> versionIds = new HashMap<>();
+    private final List<String> versions = new ArrayList<>();
+    private int[] directVersions = new int[64];
+
+    private int linkCount;
+    private int[] linkParents = new int[256];
+    private int[] linkChildren = new int[256];
+    private int[] linkVersions = new int[256];
+    private byte[] linkKinds = new byte[256];
+
+    private int[] reverseOffsets;
+    private int[] reverseLinks;
+    private final BitSet conflicts = new BitSet();
+
+    public static DependencyTree parseTree(JsonNode tree) throws IOException {
+        try (JsonParser parser = tree.traverse()) {
+            return parseTree(parser);
+        }
+    }
+
+    /**
+     * Parses the tree from the output of <code>npm list -json</code> in the given file without loading the JSON into memory
+     */
+    public static DependencyTree parseTree(File file) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(file)) {
+            return parseTree(parser);
+        }
+    }
+
+    protected static DependencyTree parseTree(JsonParser parser) throws IOException {
         DependencyTree dependencyTree = new DependencyTree();
-        dependencyTree.parse(tree, null);
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            dependencyTree.parseObject(parser, NO_PARENT);
+        }
+        dependencyTree.buildIndex();
         return dependencyTree;
     }
 
-    protected void parse(JsonNode tree, DependencyInfo parent) {
-        for (String dependencyKey : DEPENDENCY_KEYS) {
-            JsonNode deps = tree.get(dependencyKey);
-            if (deps instanceof ObjectNode) {
-                ObjectNode objectNode = (ObjectNode) deps;
-                Iterator<String> iter = objectNode.fieldNames();
-                while (iter.hasNext()) {
-                    String field = iter.next();
-                    JsonNode properties = objectNode.get(field);
-                    String version = JsonNodes.textValue(properties, "version");
-                    DependencyInfo dependencyInfo = getOrCreateDependencyInfo(field);
-                    if (parent == null) {
-                        dependencyInfo.setVersion(version);
-                    } else {
-                        dependencyInfo.addDependency(parent, version, dependencyKey);
-                    }
-                    parse(properties, dependencyInfo);
+    /**
+     * Parses the fields of an object whose start token has been read
+     */
+    protected void parseObject(JsonParser parser, int parent) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int kind = dependencyKind(parser.getCurrentName());
+            JsonToken token = parser.nextToken();
+            if (kind >= 0 && token == JsonToken.START_OBJECT) {
+                parseDependencies(parser, parent, kind);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    protected void parseDependencies(JsonParser parser, int parent, int kind) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int child = nameId(parser.getCurrentName());
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            int version = NO_VERSION;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("version".equals(field) && token == JsonToken.VALUE_STRING) {
+                    version = versionId(parser.getText());
+                    continue;
                 }
+                int childKind = dependencyKind(field);
+                if (childKind >= 0 && token == JsonToken.START_OBJECT) {
+                    parseDependencies(parser, child, childKind);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parent == NO_PARENT) {
+                directVersions[child] = version;
+            } else if (version != NO_VERSION) {
+                addLink(parent, child, version, kind);
             }
         }
     }
@@ -66,17 +137,124 @@ public class DependencyTree {
         return info.dependencyCheck();
     }
 
-    protected DependencyInfo getOrCreateDependencyInfo(String dependency) {
-        DependencyInfo answer = getDependencyInfo(dependency);
-        if (answer == null) {
-            answer = new DependencyInfo(dependency);
-            dependencies.put(dependency, answer);
+    /**
+     * Returns true if the given dependency is used with a different version to the direct dependency
+     */
+    public boolean hasConflicts(String dependency) {
+        Integer id = nameIds.get(dependency);
+        return id != null && conflicts.get(id);
+    }
+
+    /**
+     * Returns the dependency info for the given dependency along with the links from the dependencies which use it
+     * or null if it is not in the tree
+     */
+    public DependencyInfo getDependencyInfo(String dependency) {
+        Integer id = nameIds.get(dependency);
+        if (id == null) {
+            return null;
+        }
+        DependencyInfo answer = createDependencyInfo(id);
+        Map<Integer, DependencyInfo> parents = new HashMap<>();
+        for (int i = reverseOffsets[id], end = reverseOffsets[id + 1]; i < end; i++) {
+            int link = reverseLinks[i];
+            DependencyInfo parent = parents.computeIfAbsent(linkParents[link], this::createDependencyInfo);
+            answer.addDependency(parent, versions.get(linkVersions[link]), DEPENDENCY_KEYS[linkKinds[link]]);
         }
         return answer;
+    }
 
+    public int getDependencyCount() {
+        return names.size();
     }
 
-    public DependencyInfo getDependencyInfo(String dependency) {
-        return dependencies.get(dependency);
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    protected DependencyInfo createDependencyInfo(int id) {
+        DependencyInfo answer = new DependencyInfo(names.get(id));
+        int version = directVersions[id];
+        if (version != NO_VERSION) {
+            answer.setVersion(versions.get(version));
+        }
+        return answer;
+    }
+
+    /**
+     * Builds the reverse index of links by child dependency and finds the dependencies with conflicting versions
+     */
+    protected void buildIndex() {
+        int count = names.size();
+        reverseOffsets = new int[count + 1];
+        for (int i = 0; i < linkCount; i++) {
+            reverseOffsets[linkChildren[i] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        reverseLinks = new int[linkCount];
+        int[] positions = Arrays.copyOf(reverseOffsets, count);
+        for (int i = 0; i < linkCount; i++) {
+            int child = linkChildren[i];
+            reverseLinks[positions[child]++] = i;
+            if (linkVersions[i] != directVersions[child]) {
+                conflicts.set(child);
+            }
+        }
+        // lets release the spare capacity now the tree is complete
+        directVersions = Arrays.copyOf(directVersions, count);
+        linkParents = Arrays.copyOf(linkParents, linkCount);
+        linkChildren = null;
+        linkVersions = Arrays.copyOf(linkVersions, linkCount);
+        linkKinds = Arrays.copyOf(linkKinds, linkCount);
+    }
+
+    private void addLink(int parent, int child, int version, int kind) {
+        if (linkCount == linkParents.length) {
+            int size = linkCount * 2;
+            linkParents = Arrays.copyOf(linkParents, size);
+            linkChildren = Arrays.copyOf(linkChildren, size);
+            linkVersions = Arrays.copyOf(linkVersions, size);
+            linkKinds = Arrays.copyOf(linkKinds, size);
+        }
+        linkParents[linkCount] = parent;
+        linkChildren[linkCount] = child;
+        linkVersions[linkCount] = version;
+        linkKinds[linkCount] = (byte) kind;
+        linkCount++;
+    }
+
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = names.size();
+            nameIds.put(name, id);
+            names.add(name);
+            if (id == directVersions.length) {
+                directVersions = Arrays.copyOf(directVersions, id * 2);
+            }
+            directVersions[id] = NO_VERSION;
+        }
+        return id;
+    }
+
+    private int versionId(String version) {
+        Integer id = versionIds.get(version);
+        if (id == null) {
+            id = versions.size();
+            versionIds.put(version, id);
+            versions.add(version);
+        }
+        return id;
+    }
+
+    private static int dependencyKind(String name) {
+        for (int i = 0; i < DEPENDENCY_KEYS.length; i++) {
+            if (DEPENDENCY_KEYS[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
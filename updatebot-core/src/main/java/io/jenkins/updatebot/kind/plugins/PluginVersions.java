@@ -15,40 +15,31 @@
  */
 package io.jenkins.updatebot.kind.plugins;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import io.jenkins.updatebot.model.DtoSupport;
-
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 /**
+ * The latest versions of the plugins in the Jenkins update center indexed by plugin name
  */
-@JsonIgnoreProperties(ignoreUnknown = true)
-public class PluginVersions extends DtoSupport {
-    private Map<String, PluginVersion> plugins = new HashMap<>();
+public class PluginVersions {
+    private final Map<String, String> versions;
+
+    public PluginVersions(Map<String, String> versions) {
+        this.versions = Collections.unmodifiableMap(versions);
+    }
 
     @Override
     public String toString() {
         return "PluginVersions{" +
-                "plugins=" + plugins +
+                "versions=" + versions.size() +
                 '}';
     }
 
     public String getVersion(String artifactId) {
-        if (plugins != null) {
-            PluginVersion plugin = plugins.get(artifactId);
-            if (plugin != null) {
-                return plugin.getVersion();
-            }
-        }
-        return null;
-    }
-
-    public Map<String, PluginVersion> getPlugins() {
-        return plugins;
+        return versions.get(artifactId);
     }
 
-    public void setPlugins(Map<String, PluginVersion> plugins) {
-        this.plugins = plugins;
+    public Map<String, String> getVersions() {
+        return versions;
     }
 }
@@ -23,19 +23,16 @@ import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.GitRepositoryConfig;
 import io.jenkins.updatebot.model.PluginsDependencies;
 import io.jenkins.updatebot.support.FileMatcher;
-import io.jenkins.updatebot.support.MarkupHelper;
 import io.fabric8.utils.IOHelpers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Updates any <code>plugins.txt</code>` files with new jenkins plugin versions
@@ -72,7 +69,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
             if (!plugins.isEmpty()) {
                 hasMatcher = true;
             }
-            List<File> files = fileMatcher.matchFiles(context.getDir());
+            List<File> files = fileMatcher.matchFiles(context.getFileIndex());
             for (File file : files) {
                 if (pullVersionsInFile(context, file, getPluginVersions(context))) {
                     updated = true;
@@ -82,7 +79,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
         if (!hasMatcher) {
             plugins = createDefaultPluginsDependencies();
             FileMatcher fileMatcher = plugins.createFileMatcher();
-            List<File> files = fileMatcher.matchFiles(context.getDir());
+            List<File> files = fileMatcher.matchFiles(context.getFileIndex());
             for (File file : files) {
                 if (pullVersionsInFile(context, file, getPluginVersions(context))) {
                     updated = true;
@@ -102,17 +99,13 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
     public PluginVersions getPluginVersions(CommandContext context) throws IOException {
         if (pluginVersions == null) {
             pluginVersions = loadNewPluginVersions(context);
-            Set<Map.Entry<String, PluginVersion>> entries = pluginVersions.getPlugins().entrySet();
-            for (Map.Entry<String, PluginVersion> entry : entries) {
-                LOG.info("Plugin " + entry.getKey() + " version: " + entry.getValue().getVersion());
-            }
+            LOG.debug("Loaded " + pluginVersions.getVersions().size() + " plugin versions");
         }
         return pluginVersions;
     }
 
     protected PluginVersions loadNewPluginVersions(CommandContext context) throws IOException {
-        URL url = new URL("http://ftp-chi.osuosl.org/pub/jenkins/updates/current/update-center.actual.json");
-        return MarkupHelper.loadJson(url, PluginVersions.class);
+        return UpdateCenterCache.getPluginVersions(context.getConfiguration());
     }
 
     @Override
@@ -121,7 +114,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
         PluginsDependencies plugins = getPlugins(context);
         if (plugins != null) {
             FileMatcher fileMatcher = plugins.createFileMatcher();
-            List<File> files = fileMatcher.matchFiles(context.getDir());
+            List<File> files = fileMatcher.matchFiles(context.getFileIndex());
             for (File file : files) {
                 if (updateVersionsInFile(context, file, plugins, changes)) {
                     updated = true;
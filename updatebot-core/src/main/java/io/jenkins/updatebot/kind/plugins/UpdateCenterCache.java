@@ -0,0 +1,278 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.plugins;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.support.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A cache of the latest plugin versions from the Jenkins update center stored in the work directory.
+ * <p>
+ * Only the name and version of each plugin is kept. Once the time to live has expired the update center is
+ * revalidated using the <code>ETag</code> and <code>Last-Modified</code> headers of the last response so that
+ * it is only downloaded again when it has changed.
+ */
+public class UpdateCenterCache {
+    public static final String DIRECTORY = "update-center";
+    private static final transient Logger LOG = LoggerFactory.getLogger(UpdateCenterCache.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int CONNECT_TIMEOUT = 30 * 1000;
+    private static final int READ_TIMEOUT = 60 * 1000;
+
+    private static final Map<File, UpdateCenterCache> caches = new HashMap<>();
+
+    private final File file;
+    private final URL url;
+    private CacheEntry entry;
+
+    public UpdateCenterCache(File file, URL url) {
+        this.file = file;
+        this.url = url;
+    }
+
+    /**
+     * Returns the latest plugin versions indexed by plugin name
+     */
+    public static PluginVersions getPluginVersions(Configuration configuration) throws IOException {
+        URL url = toURL(configuration.getPluginsUpdateCenterUrl());
+        String name = url.toExternalForm().replaceAll("[^a-zA-Z0-9.-]+", "_");
+        File file = new File(new File(configuration.getWorkDir(), DIRECTORY), name + ".json").getAbsoluteFile();
+        UpdateCenterCache cache = getCache(file, url);
+        // only callers of the same update center wait for it to be downloaded
+        synchronized (cache) {
+            return new PluginVersions(cache.refresh(configuration, configuration.getPluginsUpdateCenterTtl() * 60 * 1000));
+        }
+    }
+
+    private static synchronized UpdateCenterCache getCache(File file, URL url) {
+        UpdateCenterCache cache = caches.get(file);
+        if (cache == null) {
+            cache = new UpdateCenterCache(file, url);
+            cache.load();
+            caches.put(file, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Discards the caches loaded in this JVM so that they are loaded again from the work directory
+     */
+    static synchronized void clearCaches() {
+        caches.clear();
+    }
+
+    /**
+     * Returns the URL of the update center which can also be a local file name
+     */
+    protected static URL toURL(String location) throws MalformedURLException {
+        if (location.contains("://") || location.startsWith("file:")) {
+            return new URL(location);
+        }
+        return new File(location).getAbsoluteFile().toURI().toURL();
+    }
+
+    protected Map<String, String> refresh(Configuration configuration, long timeToLive) throws IOException {
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.getFetchedAt() < timeToLive) {
+            return entry.getVersions();
+        }
+        try {
+            CacheEntry loaded = download();
+            if (loaded == null) {
+                LOG.debug("Update center " + url + " has not changed");
+                entry.setFetchedAt(now);
+            } else {
+                LOG.debug("Loaded " + loaded.getVersions().size() + " plugin versions from " + url);
+                loaded.setFetchedAt(now);
+                entry = loaded;
+            }
+        } catch (IOException e) {
+            if (entry == null) {
+                throw new IOException("Failed to load the update center " + url + ". " + e, e);
+            }
+            configuration.warn(LOG, "Failed to refresh the update center " + url + " so using the cached plugin versions. " + e, e);
+            return entry.getVersions();
+        }
+        save(configuration);
+        return entry.getVersions();
+    }
+
+    /**
+     * Downloads the update center returning null if it has not changed since the cached entry
+     */
+    protected CacheEntry download() throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            if (entry != null) {
+                if (Strings.notEmpty(entry.getEtag())) {
+                    http.setRequestProperty("If-None-Match", entry.getEtag());
+                }
+                if (Strings.notEmpty(entry.getLastModified())) {
+                    http.setRequestProperty("If-Modified-Since", entry.getLastModified());
+                }
+            }
+            int code = http.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                http.disconnect();
+                return null;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                http.disconnect();
+                throw new IOException("Unexpected response code " + code);
+            }
+        }
+        CacheEntry answer = new CacheEntry();
+        answer.setUrl(url.toExternalForm());
+        answer.setEtag(connection.getHeaderField("ETag"));
+        answer.setLastModified(connection.getHeaderField("Last-Modified"));
+        try (InputStream in = connection.getInputStream()) {
+            answer.setVersions(parseVersions(in));
+        }
+        return answer;
+    }
+
+    /**
+     * Parses the name and version of each plugin from the update center JSON skipping everything else
+     */
+    public static Map<String, String> parseVersions(InputStream in) throws IOException {
+        Map<String, String> answer = new TreeMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("The update center is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT || !"plugins".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String property = parser.getCurrentName();
+                        JsonToken token = parser.nextToken();
+                        if ("version".equals(property) && token == JsonToken.VALUE_STRING) {
+                            answer.put(name, parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+        return answer;
+    }
+
+    protected void load() {
+        if (file.isFile()) {
+            try {
+                CacheEntry loaded = OBJECT_MAPPER.readValue(file, CacheEntry.class);
+                if (url.toExternalForm().equals(loaded.getUrl()) && loaded.getVersions() != null) {
+                    entry = loaded;
+                }
+            } catch (IOException e) {
+                LOG.warn("Ignoring invalid update center cache " + file + ". " + e, e);
+            }
+        }
+    }
+
+    protected void save(Configuration configuration) {
+        try {
+            file.getParentFile().mkdirs();
+            OBJECT_MAPPER.writeValue(file, entry);
+        } catch (IOException e) {
+            configuration.warn(LOG, "Failed to save the update center cache " + file + ". " + e, e);
+        }
+    }
+
+    /**
+     * The cached plugin versions along with the headers used to revalidate them
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CacheEntry {
+        private String url;
+        private String etag;
+        private String lastModified;
+        private long fetchedAt;
+        private Map<String, String> versions;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public void setEtag(String etag) {
+            this.etag = etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public void setLastModified(String lastModified) {
+            this.lastModified = lastModified;
+        }
+
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+
+        public void setFetchedAt(long fetchedAt) {
+            this.fetchedAt = fetchedAt;
+        }
+
+        public Map<String, String> getVersions() {
+            return versions;
+        }
+
+        public void setVersions(Map<String, String> versions) {
+            this.versions = versions;
+        }
+    }
+}
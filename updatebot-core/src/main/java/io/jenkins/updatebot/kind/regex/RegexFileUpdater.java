@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.regex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.fabric8.utils.Strings;
+
+/**
+ * Replaces the first group of each line matching any of the regular expressions with a value.
+ * <p>
+ * The patterns are compiled once and applied in order to each line in a single streaming pass over the file.
+ * The output is written to a temporary file in the same directory which then atomically replaces the file
+ * only if a line changed, so that large files never have to be held in memory. Lines keep their original
+ * line terminators.
+ */
+public class RegexFileUpdater {
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final Pattern previousLinePattern;
+    private final String value;
+
+    public RegexFileUpdater(List<String> regexes, String previousLinePattern, String value) {
+        if (regexes != null) {
+            for (String regex : regexes) {
+                this.patterns.add(Pattern.compile(regex));
+            }
+        }
+        this.previousLinePattern = Strings.isNotBlank(previousLinePattern) ? Pattern.compile(previousLinePattern) : null;
+        this.value = value;
+    }
+
+    /**
+     * Updates the file returning true if it was changed
+     */
+    public boolean updateFile(File file) throws IOException {
+        if (!file.isFile() || patterns.isEmpty()) {
+            return false;
+        }
+        Path path = file.toPath();
+        Path tempFile = Files.createTempFile(path.toAbsolutePath().getParent(), "." + file.getName(), ".tmp");
+        boolean answer = false;
+        try {
+            try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8);
+                 Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                answer = update(reader, writer);
+            }
+            if (answer) {
+                copyPermissions(path, tempFile);
+                try {
+                    Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return answer;
+    }
+
+    /**
+     * Copies the lines from the reader to the writer replacing any matches, returning true if any line changed
+     */
+    public boolean update(Reader reader, Writer writer) throws IOException {
+        LineReader in = new LineReader(reader);
+        // the previous line as it was after each pattern was applied to it
+        String[] previousLines = null;
+        String[] currentLines = new String[patterns.size()];
+        StringBuilder buffer = new StringBuilder();
+        boolean answer = false;
+        while (true) {
+            boolean newLine = in.readLine(buffer);
+            if (!newLine && buffer.length() == 0) {
+                break;
+            }
+            String line = buffer.toString();
+            for (int i = 0, size = patterns.size(); i < size; i++) {
+                Matcher m = patterns.get(i).matcher(line);
+                if (m.matches() && (previousLinePattern == null || (previousLines != null && previousLinePattern.matcher(previousLines[i]).matches()))) {
+                    String updatedLine = line.substring(0, m.start(1)) + value + line.substring(m.end(1));
+                    if (!line.equals(updatedLine)) {
+                        line = updatedLine;
+                        answer = true;
+                    }
+                }
+                currentLines[i] = line;
+            }
+            writer.write(line);
+            if (newLine) {
+                writer.write('\n');
+            }
+            if (previousLinePattern != null) {
+                String[] tmp = previousLines != null ? previousLines : new String[currentLines.length];
+                previousLines = currentLines;
+                currentLines = tmp;
+            }
+            if (!newLine) {
+                break;
+            }
+        }
+        return answer;
+    }
+
+    private static void copyPermissions(Path from, Path to) {
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException | IOException e) {
+            // not a posix file system
+        }
+    }
+
+    /**
+     * Reads lines into a reusable buffer using a block read rather than a call per character
+     */
+    private static class LineReader {
+        private final Reader reader;
+        private final char[] chars = new char[8192];
+        private int position;
+        private int limit;
+
+        LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the next line without its <code>\n</code> terminator into the buffer returning true if the terminator was read
+         */
+        boolean readLine(StringBuilder buffer) throws IOException {
+            buffer.setLength(0);
+            while (true) {
+                if (position >= limit) {
+                    limit = reader.read(chars);
+                    position = 0;
+                    if (limit < 0) {
+                        limit = 0;
+                        return false;
+                    }
+                }
+                for (int i = position; i < limit; i++) {
+                    if (chars[i] == '\n') {
+                        buffer.append(chars, position, i - position);
+                        position = i + 1;
+                        return true;
+                    }
+                }
+                buffer.append(chars, position, limit - position);
+                position = limit;
+            }
+        }
+    }
+}
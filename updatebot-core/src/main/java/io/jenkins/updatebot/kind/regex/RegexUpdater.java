@@ -16,27 +16,23 @@
 package io.jenkins.updatebot.kind.regex;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.fabric8.utils.Files;
-import io.fabric8.utils.IOHelpers;
-import io.fabric8.utils.Strings;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.commands.PushRegexChanges;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.model.Dependencies;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.support.FileMatcher;
+import io.jenkins.updatebot.support.ThreadPools;
 
 /**
  */
@@ -68,61 +64,45 @@ public class RegexUpdater extends UpdaterSupport {
         LOG.info("Checking for matches against files {}", command.getFiles());
 
         FileMatcher matcher = new FileMatcher(command.getFiles(), excludeFiles);
-        List<File> files = matcher.matchFiles(context.getDir());
+        List<File> files = matcher.matchFiles(context.getFileIndex());
         if (files.isEmpty()) {
             LOG.warn("Unable to match any files using '{}'", command.getFiles());
         } else {
             LOG.info("Found {} matching file(s)", files.size());
         }
         
-        boolean answer = false;
-        
+        RegexFileUpdater updater = new RegexFileUpdater(command.getRegex(), command.getPreviousLinePattern(), command.getValue());
+        List<Callable<Boolean>> tasks = new ArrayList<>(files.size());
         for (File file : files) {
-            LOG.info("Updating {}", file);
-            for (String regex : command.getRegex()) {
-                if (doPushRegex(command, context, file, regex)) {
+            tasks.add(() -> updateFile(context, updater, file));
+        }
+        int parallelism = Math.min(context.getConfiguration().getRegexParallelism(), files.size());
+        ExecutorService executor = parallelism > 1 ? ThreadPools.newFixedThreadPool("updatebot-regex", parallelism) : null;
+        long start = System.currentTimeMillis();
+        boolean answer = false;
+        try {
+            for (Boolean updated : ThreadPools.invokeAll(executor, tasks)) {
+                if (updated != null && updated) {
                     answer = true;
                 }
             }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
-        
+        LOG.info("Processed {} file(s) in {} millis", files.size(), System.currentTimeMillis() - start);
         return answer;
     }
 
-    protected boolean doPushRegex(PushRegexChanges command, CommandContext context, File file, String regex) throws IOException {
-        LOG.info("doPushRegex {}", regex);
-        boolean answer = false;
-        Pattern previousLinePattern = null;
-        String previousLinePatternText = command.getPreviousLinePattern();
-        if (Strings.isNotBlank(previousLinePatternText)) {
-            previousLinePattern = Pattern.compile(previousLinePatternText);
-        }
-        
-        if (Files.isFile(file)) {
-            String text = IOHelpers.readFully(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
-            String[] lines = text.split("\n");
-            String value = command.getValue();
-
-            Pattern pattern = Pattern.compile(regex);
-            for (int i = 0, size = lines.length; i < size; i++) {
-                String line = lines[i];
-                Matcher m = pattern.matcher(line);
-                if (m.matches() && (previousLinePattern == null || (i > 0 && previousLinePattern.matcher(lines[i-1]).matches()))) {
-                    int start = m.start(1);
-                    int end = m.end(1);
-                    String newLine = line.substring(0, start) + value + line.substring(end);
-                    if (!line.equals(newLine)) {
-                        lines[i] = newLine;
-                        answer = true;
-                    }
-                }
-            }
-            if (answer) {
-                String updatedText = String.join(System.lineSeparator(), lines);
-                Files.writeToFile(file, updatedText, StandardCharsets.UTF_8);
-            }
+    protected boolean updateFile(CommandContext context, RegexFileUpdater updater, File file) throws IOException {
+        LOG.info("Updating {}", file);
+        long start = System.currentTimeMillis();
+        boolean answer = updater.updateFile(file);
+        if (answer) {
+            context.updatedFile(file);
         }
+        LOG.info("{} {} in {} millis", answer ? "Updated" : "No changes to", file, System.currentTimeMillis() - start);
         return answer;
     }
-
 }
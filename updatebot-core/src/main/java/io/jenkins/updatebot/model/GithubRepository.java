@@ -16,28 +16,49 @@
 package io.jenkins.updatebot.model;
 
 import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.GitHubRepositoryInfo;
 import io.jenkins.updatebot.support.Strings;
 import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 
 /**
  */
 public class GithubRepository extends GitRepository {
-    private final GHRepository repository;
+    private final GitHub github;
+    private final GitHubRepositoryInfo info;
+    private GHRepository repository;
 
     public GithubRepository(GHRepository repository) {
+        this(null, new GitHubRepositoryInfo(repository));
         this.repository = repository;
-        URL htmlUrl = repository.getHtmlUrl();
-        if (htmlUrl != null) {
-            setHtmlUrl(htmlUrl.toString());
-        }
-        setName(repository.getName());
-        setCloneUrl(repository.getGitTransportUrl());
     }
 
     public GithubRepository(GHRepository ghRepository, GitRepositoryConfig details) {
         this(ghRepository);
+        setDetails(details);
+    }
+
+    /**
+     * Creates a repository from the cached details which lazily loads the underlying GitHub repository when required
+     */
+    public GithubRepository(GitHub github, GitHubRepositoryInfo info) {
+        this.github = github;
+        this.info = info;
+        setHtmlUrl(info.getHtmlUrl());
+        setName(info.getName());
+        setCloneUrl(info.getGitTransportUrl());
+    }
+
+    public GithubRepository(GitHub github, GitHubRepositoryInfo info, GitRepositoryConfig details) {
+        this(github, info);
+        setDetails(details);
+    }
+
+    private void setDetails(GitRepositoryConfig details) {
         setRepositoryDetails(details);
         if (details.getExcludeUpdateLoop() != null) {
             setExcludeUpdateLoop(details.getExcludeUpdateLoop());
@@ -52,13 +73,41 @@ public class GithubRepository extends GitRepository {
                 '}';
     }
 
-    public GHRepository getRepository() {
+    /**
+     * Returns the underlying GitHub repository, loading it if this repository was created from cached details
+     */
+    public synchronized GHRepository getRepository() throws IOException {
+        if (repository == null && github != null) {
+            repository = github.getRepository(info.getFullName());
+        }
         return repository;
     }
 
+    /**
+     * Returns the cached details of the repository which do not require a call to the GitHub API
+     */
+    public GitHubRepositoryInfo getRepositoryInfo() {
+        return info;
+    }
+
+    /**
+     * Returns the name of the organisation or user which owns the repository
+     */
+    public String getOwner() {
+        return info.getOwner();
+    }
+
+    public String getDefaultBranch() {
+        return info.getDefaultBranch();
+    }
+
+    public boolean isArchived() {
+        return info.isArchived();
+    }
+
     @Override
     public String getFullName() {
-        return repository.getFullName();
+        return info.getFullName();
 
     }
 
@@ -68,11 +117,10 @@ public class GithubRepository extends GitRepository {
             return true;
         }
         return Strings.equalAnyValue(url,
-                repository.getGitTransportUrl(),
-                repository.gitHttpTransportUrl(),
-                repository.getSshUrl(),
-                repository.getUrl(),
-                repository.getSvnUrl());
+                info.getGitTransportUrl(),
+                info.getHttpTransportUrl(),
+                info.getSshUrl(),
+                info.getHtmlUrl());
     }
 
     @Override
@@ -86,7 +134,12 @@ public class GithubRepository extends GitRepository {
                 throw new IllegalArgumentException("Missing githubPassword in configuration!");
             }
 
-            URL url = repository.getHtmlUrl();
+            URL url;
+            try {
+                url = new URL(info.getHtmlUrl());
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid html URL for repository " + getFullName() + ": " + e, e);
+            }
             String host = username + ":" + password + "@" + url.getHost();
             String file = url.getFile();
             if (!file.startsWith("/")) {
@@ -98,7 +151,7 @@ public class GithubRepository extends GitRepository {
             }
             return answer;
         } else {
-            return repository.getSshUrl();
+            return info.getSshUrl();
         }
     }
 }
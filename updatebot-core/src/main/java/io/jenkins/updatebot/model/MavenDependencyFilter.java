@@ -65,6 +65,20 @@ public class MavenDependencyFilter {
         return Filters.or(filters);
     }
 
+    /**
+     * Returns the filter of the dependencies to export for the given maven push configuration which
+     * does not match any dependencies if there is no configuration
+     */
+    public static Filter<MavenArtifactKey> createFilter(MavenDependencies mavenDependencies) {
+        if (mavenDependencies != null) {
+            List<MavenDependencyFilter> dependencies = mavenDependencies.getDependencies();
+            if (dependencies != null) {
+                return createFilter(dependencies);
+            }
+        }
+        return Filters.falseFilter();
+    }
+
     public String getGroupInclude() {
         return groupInclude;
     }
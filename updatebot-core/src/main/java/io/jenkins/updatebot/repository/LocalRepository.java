@@ -18,7 +18,6 @@ package io.jenkins.updatebot.repository;
 import io.fabric8.utils.Files;
 import io.fabric8.utils.Objects;
 import io.jenkins.updatebot.Configuration;
-import io.jenkins.updatebot.github.GitHubHelpers;
 import io.jenkins.updatebot.model.*;
 import io.jenkins.updatebot.support.Strings;
 import org.kohsuke.github.GHRepository;
@@ -194,10 +193,7 @@ public class LocalRepository {
             return config.getBranch();
         } // Try detect Github repository and use its default branch
         else if (repo instanceof GithubRepository) {
-            GHRepository ghRepository = GitHubHelpers.getGitHubRepository(this);
-            if (ghRepository != null) {
-                config.setBranch(ghRepository.getDefaultBranch());
-            }
+            config.setBranch(((GithubRepository) repo).getDefaultBranch());
         }
 
         // Fallback to master branch for Git repositories
@@ -17,7 +17,10 @@ package io.jenkins.updatebot.repository;
 
 import io.fabric8.utils.Filter;
 import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.git.GitPlugin;
 import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.GitHubRepositoryCache;
+import io.jenkins.updatebot.github.GitHubRepositoryInfo;
 import io.jenkins.updatebot.model.*;
 import io.jenkins.updatebot.phab.ConduitAPIClient;
 import io.jenkins.updatebot.phab.PhabHelper;
@@ -32,6 +35,8 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  */
@@ -47,6 +52,17 @@ public class Repositories {
         return repositories;
     }
 
+    /**
+     * Clones or pulls the given repository on the given executor returning a future which completes with the
+     * repository once it is ready to be processed
+     */
+    public static CompletableFuture<LocalRepository> cloneOrPullRepositoryAsync(Configuration configuration, LocalRepository repository, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            cloneOrPullRepository(configuration, repository);
+            return repository;
+        }, executor);
+    }
+
     public static void cloneOrPullRepository(Configuration configuration, LocalRepository repository) {
         File dir = repository.getDir();
         String secureCloneUrl = repository.getRepo().secureCloneUrl(configuration);
@@ -56,6 +72,12 @@ public class Repositories {
             // Let's resolve clone branch from local repository
             String branch = repository.resolveRemoteBranch();
 
+            if (!configuration.isPullDisabled() && isUpToDate(configuration, dir, branch)) {
+                configuration.info(LOG, "Branch: " + branch + " from " + repository.getFullName() + " is up to date in " + FileHelper.getRelativePathToCurrentDir(dir));
+                configuration.getGit().configUserNameAndEmail(dir);
+                return;
+            }
+
             configuration.info(LOG, "Checkout branch: " + branch + " from " + repository.getFullName() + " in " + FileHelper.getRelativePathToCurrentDir(dir));
             if (configuration.getGit().stashAndCheckoutBranch(dir, branch)) {
                 if (!configuration.isPullDisabled()) {
@@ -69,13 +91,41 @@ public class Repositories {
             parentDir.mkdirs();
 
             configuration.info(LOG, "Cloning: " + repository.getFullName() + " to " + FileHelper.getRelativePathToCurrentDir(dir));
-            configuration.getGit().clone(parentDir, secureCloneUrl, dir.getName());
+            if (configuration.isCloneSingleBranch()) {
+                configuration.getGit().clone(parentDir, secureCloneUrl, dir.getName(), repository.resolveRemoteBranch());
+            } else {
+                configuration.getGit().clone(parentDir, secureCloneUrl, dir.getName());
+            }
 
             configuration.getGit().configUserNameAndEmail(dir);
         }
     }
 
-    protected static List<LocalRepository> findRepositories(Configuration configuration, RepositoryConfig repositoryConfig) throws IOException {
+    /**
+     * Returns true if the local clone is on the given branch without any local changes and its HEAD matches the
+     * head of the remote branch so that we can avoid the stash, checkout and pull
+     */
+    protected static boolean isUpToDate(Configuration configuration, File dir, String branch) {
+        GitPlugin git = configuration.getGit();
+        try {
+            if (!branch.equals(git.currentBranch(dir))) {
+                return false;
+            }
+            String remoteCommit = git.remoteBranchCommit(dir, branch);
+            if (Strings.empty(remoteCommit) || !remoteCommit.equals(git.headCommit(dir))) {
+                return false;
+            }
+            return !git.hasChangedFiles(dir);
+        } catch (IOException e) {
+            LOG.debug("Could not compare " + dir + " with the remote branch " + branch + ". " + e, e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the local repositories for the given configuration without cloning or pulling them
+     */
+    public static List<LocalRepository> findRepositories(Configuration configuration, RepositoryConfig repositoryConfig) throws IOException {
         String workDirPath = configuration.getWorkDir();
         File workDir = new File(workDirPath);
         if (!workDir.isAbsolute()) {
@@ -128,6 +178,10 @@ public class Repositories {
             LOG.info("Ignoring repository " + gitRepository.getFullName() + " as it configured to be excluded from the update-loop");
             return;
         }
+        if (gitRepository instanceof GithubRepository && ((GithubRepository) gitRepository).isArchived()) {
+            LOG.info("Ignoring repository " + gitRepository.getFullName() + " as it is archived");
+            return;
+        }
         LOG.info("repository " + gitRepository.getFullName() + " has excludeUpdateLoop: " + gitRepository.getExcludeUpdateLoop());
         LocalRepository localRepository = new LocalRepository(gitRepository, new File(gitDir, gitRepository.getName()));
         map.putIfAbsent(localRepository.getCloneUrl(), localRepository);
@@ -137,6 +191,38 @@ public class Repositories {
         String orgName = organisation.getName();
         Filter<String> filter = organisation.createFilter();
 
+        Map<String, GitHubRepositoryInfo> cachedRepositories = GitHubRepositoryCache.getRepositories(configuration, github, orgName);
+        if (cachedRepositories != null) {
+            Set<String> foundNames = new TreeSet<>();
+            List<GitRepositoryConfig> namedRepositories = organisation.getRepositories();
+            if (namedRepositories != null) {
+                for (GitRepositoryConfig namedRepository : namedRepositories) {
+                    String name = namedRepository.getName();
+                    if (Strings.notEmpty(name) && foundNames.add(name)) {
+                        GitHubRepositoryInfo info = cachedRepositories.get(name);
+                        if (info != null) {
+                            addRepository(configuration, map, file, new GithubRepository(github, info, namedRepository));
+                        } else {
+                            // the repository may have been created since the cache was refreshed
+                            try {
+                                GHRepository ghRepository = github.getRepository(orgName + "/" + name);
+                                addRepository(configuration, map, file, new GithubRepository(ghRepository, namedRepository));
+                            } catch (IOException e) {
+                                LOG.warn("Github repository " + orgName + "/" + name + " not found: " + e);
+                            }
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, GitHubRepositoryInfo> entry : cachedRepositories.entrySet()) {
+                String repoName = entry.getKey();
+                if (filter.matches(repoName) && foundNames.add(repoName)) {
+                    addRepository(configuration, map, file, new GithubRepository(github, entry.getValue()));
+                }
+            }
+            return;
+        }
+
         GHPerson person = GitHubHelpers.getOrganisationOrUser(github, orgName);
         if (person != null) {
             try {
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * An index of the files in a repository which is created with a single walk of the directory tree and then
+ * shared by all of the updaters of a command so that they don't each have to list the whole tree.
+ * <p>
+ * Directories such as <code>.git</code> and <code>node_modules</code> are not indexed. Updating the content of a file
+ * does not change the index but any files created or deleted by an updater should be passed to {@link #fileWritten(File)}
+ * or {@link #invalidate()}.
+ */
+public class FileIndex {
+    public static final List<String> IGNORED_DIRECTORIES = Collections.unmodifiableList(Arrays.asList(".git", "node_modules", "target", "vendor"));
+    private static final transient Logger LOG = LoggerFactory.getLogger(FileIndex.class);
+
+    private final File dir;
+    private final Set<String> ignoredDirectories;
+    private List<IndexedFile> files;
+    private Map<String, List<IndexedFile>> filesByName;
+
+    public FileIndex(File dir) {
+        this(dir, IGNORED_DIRECTORIES);
+    }
+
+    public FileIndex(File dir, Collection<String> ignoredDirectories) {
+        this.dir = dir.getAbsoluteFile();
+        this.ignoredDirectories = new HashSet<>(ignoredDirectories);
+    }
+
+    @Override
+    public String toString() {
+        return "FileIndex{" +
+                "dir=" + dir +
+                '}';
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Returns all of the indexed files
+     */
+    public List<IndexedFile> getFiles() {
+        return index();
+    }
+
+    /**
+     * Returns the files with the given name anywhere in the directory tree
+     */
+    public synchronized List<File> findFilesNamed(String name) {
+        index();
+        List<IndexedFile> list = filesByName.get(name);
+        List<File> answer = new ArrayList<>();
+        if (list != null) {
+            for (IndexedFile file : list) {
+                answer.add(file.getFile());
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the files whose name matches the given predicate anywhere in the directory tree
+     */
+    public List<File> findFiles(Predicate<String> namePredicate) {
+        return findFiles(namePredicate, true);
+    }
+
+    /**
+     * Returns the files whose name matches the given predicate either anywhere in the directory tree or only
+     * in the root directory
+     */
+    public List<File> findFiles(Predicate<String> namePredicate, boolean recursive) {
+        List<File> answer = new ArrayList<>();
+        for (IndexedFile file : index()) {
+            if ((recursive || file.isInRootDirectory()) && namePredicate.test(file.getName())) {
+                answer.add(file.getFile());
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the files whose path relative to the directory, using <code>/</code> as the separator, matches the predicate
+     */
+    public List<File> findFilesByPath(Predicate<String> pathPredicate) {
+        List<File> answer = new ArrayList<>();
+        for (IndexedFile file : index()) {
+            if (pathPredicate.test(file.getPath())) {
+                answer.add(file.getFile());
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the files matching the given ant style pattern of the path relative to the directory
+     */
+    public List<File> findFilesByGlob(String pattern) {
+        return FileMatcher.createFileMatcher(Collections.singletonList(pattern), Collections.emptyList()).matchFiles(this);
+    }
+
+    /**
+     * Returns true if there is a file with the given name anywhere in the directory tree
+     */
+    public boolean hasFileNamed(String name) {
+        return !findFilesNamed(name).isEmpty();
+    }
+
+    /**
+     * Returns true if there is a file with the given extension, without the dot, anywhere in the directory tree
+     */
+    public boolean hasExtension(String extension) {
+        String suffix = "." + extension;
+        for (IndexedFile file : index()) {
+            if (file.getName().endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lets the index know that a file has been written so that its added if it was created
+     */
+    public synchronized void fileWritten(File file) {
+        if (files == null) {
+            return;
+        }
+        File absoluteFile = file.getAbsoluteFile();
+        String path = relativePath(absoluteFile);
+        if (path == null || isIgnoredPath(path)) {
+            return;
+        }
+        List<IndexedFile> list = filesByName.get(absoluteFile.getName());
+        if (list != null) {
+            for (IndexedFile indexedFile : list) {
+                if (indexedFile.getPath().equals(path)) {
+                    return;
+                }
+            }
+        }
+        if (absoluteFile.isFile()) {
+            addFile(files, filesByName, new IndexedFile(absoluteFile, path));
+        }
+    }
+
+    /**
+     * Clears the index so that the directory tree is walked again the next time it is used
+     */
+    public synchronized void invalidate() {
+        files = null;
+        filesByName = null;
+    }
+
+    protected synchronized List<IndexedFile> index() {
+        if (files == null) {
+            List<IndexedFile> list = new ArrayList<>();
+            Map<String, List<IndexedFile>> map = new HashMap<>();
+            long start = System.currentTimeMillis();
+            walk(list, map);
+            LOG.debug("Indexed " + list.size() + " files in " + dir + " in " + (System.currentTimeMillis() - start) + " millis");
+            files = list;
+            filesByName = map;
+        }
+        // lets copy so that callers can iterate while other files are written
+        return new ArrayList<>(files);
+    }
+
+    private void walk(List<IndexedFile> list, Map<String, List<IndexedFile>> map) {
+        if (!dir.isDirectory()) {
+            return;
+        }
+        Path root = dir.toPath();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                    if (!path.equals(root) && ignoredDirectories.contains(path.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        String relativePath = root.relativize(path).toString().replace(File.separatorChar, '/');
+                        addFile(list, map, new IndexedFile(path.toFile(), relativePath));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException e) {
+                    LOG.debug("Could not read " + path + ". " + e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOG.warn("Failed to index the files in " + dir + ". " + e, e);
+        }
+    }
+
+    private static void addFile(List<IndexedFile> list, Map<String, List<IndexedFile>> map, IndexedFile file) {
+        list.add(file);
+        map.computeIfAbsent(file.getName(), name -> new ArrayList<>(1)).add(file);
+    }
+
+    private String relativePath(File file) {
+        String root = dir.getPath() + File.separator;
+        String path = file.getPath();
+        if (!path.startsWith(root)) {
+            return null;
+        }
+        return path.substring(root.length()).replace(File.separatorChar, '/');
+    }
+
+    private boolean isIgnoredPath(String path) {
+        String[] names = path.split("/");
+        for (int i = 0; i < names.length - 1; i++) {
+            if (ignoredDirectories.contains(names[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A file in the index along with its path relative to the indexed directory using <code>/</code> as the separator
+     */
+    public static class IndexedFile {
+        private final File file;
+        private final String path;
+
+        public IndexedFile(File file, String path) {
+            this.file = file;
+            this.path = path;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getName() {
+            return file.getName();
+        }
+
+        public boolean isInRootDirectory() {
+            return path.indexOf('/') < 0;
+        }
+    }
+}
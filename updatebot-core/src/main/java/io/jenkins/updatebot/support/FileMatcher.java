@@ -17,23 +17,37 @@ package io.jenkins.updatebot.support;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.springframework.util.AntPathMatcher;
 
-import io.fabric8.utils.Files;
-
 /**
+ * Matches the files in a directory against ant style include and exclude patterns.
+ * <p>
+ * The patterns are matched against the whole path relative to the directory with the same semantics as
+ * {@link AntPathMatcher} using the platform path separator, so <code>*</code> can also match across directories.
+ * They are compiled once into a single regular expression for the includes and one for the excludes, and the
+ * literal prefix of each include is used to skip directories which cannot contain any matching files.
  */
 public class FileMatcher {
-    private final List<String> includes;
-    private final List<String> excludes;
-    private AntPathMatcher pathMatcher = new AntPathMatcher(File.pathSeparator);
+    private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+
+    private final CompiledPatterns includePatterns;
+    private final CompiledPatterns excludePatterns;
 
     public FileMatcher(List<String> includes, List<String> excludes) {
-        this.includes = includes;
-        this.excludes = excludes;
+        this.includePatterns = new CompiledPatterns(includes);
+        this.excludePatterns = new CompiledPatterns(excludes);
     }
 
     public static FileMatcher createFileMatcher(List<String> includes, List<String> excludes) {
@@ -42,34 +56,174 @@ public class FileMatcher {
 
     public List<File> matchFiles(File dir) throws IOException {
         List<File> answer = new ArrayList<>();
-        addMatchFiles(answer, dir, dir);
+        if (!dir.isDirectory()) {
+            return answer;
+        }
+        Path root = dir.toPath();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                if (path.equals(root) || includePatterns.canMatchDirectory(root.relativize(path).toString())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                if (!attrs.isDirectory() && matches(root.relativize(path).toString())) {
+                    answer.add(path.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
         return answer;
     }
 
-    private void addMatchFiles(List<File> answer, File rootDir, File file) throws IOException {
-        if (file.isDirectory()) {
-            File[] children = file.listFiles();
-            if (children != null) {
-                for (File child : children) {
-                    addMatchFiles(answer, rootDir, child);
-                }
+    /**
+     * Returns the files in the index which match the patterns
+     */
+    public List<File> matchFiles(FileIndex index) {
+        List<File> answer = new ArrayList<>();
+        for (FileIndex.IndexedFile file : index.getFiles()) {
+            String path = file.getPath();
+            if (File.separatorChar != '/') {
+                path = path.replace('/', File.separatorChar);
+            }
+            if (matches(path)) {
+                answer.add(file.getFile());
             }
-        } else {
-            String path = Files.getRelativePath(rootDir, file);
-            path = Strings.trimAllPrefix(path, File.separator);
-            if (matchesPatterns(path, includes) && !matchesPatterns(path, excludes)) {
-                answer.add(file);
+        }
+        return answer;
+    }
+
+    /**
+     * Returns true if the path relative to the directory matches an include and no excludes
+     */
+    public boolean matches(String path) {
+        return includePatterns.matches(path) && !excludePatterns.matches(path);
+    }
+
+    /**
+     * Converts an ant style pattern into a regular expression the same way as {@link AntPathMatcher}
+     * does for a single path segment
+     */
+    protected static String toRegex(String pattern) {
+        StringBuilder buffer = new StringBuilder();
+        Matcher matcher = GLOB_PATTERN.matcher(pattern);
+        int end = 0;
+        while (matcher.find()) {
+            buffer.append(quote(pattern, end, matcher.start()));
+            String match = matcher.group();
+            if ("?".equals(match)) {
+                buffer.append('.');
+            } else if ("*".equals(match)) {
+                buffer.append(".*");
+            } else {
+                int colonIdx = match.indexOf(':');
+                if (colonIdx < 0) {
+                    buffer.append("(.*)");
+                } else {
+                    buffer.append('(').append(match, colonIdx + 1, match.length() - 1).append(')');
+                }
             }
+            end = matcher.end();
         }
+        buffer.append(quote(pattern, end, pattern.length()));
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the text before the first wildcard of the pattern
+     */
+    protected static String literalPrefix(String pattern) {
+        Matcher matcher = GLOB_PATTERN.matcher(pattern);
+        return matcher.find() ? pattern.substring(0, matcher.start()) : pattern;
+    }
+
+    private static String quote(String text, int start, int end) {
+        return start == end ? "" : Pattern.quote(text.substring(start, end));
     }
 
-    protected boolean matchesPatterns(String path, Iterable<String> patterns) {
-        boolean matchesInclude = false;
-        for (String include : patterns) {
-            if (pathMatcher.match(include, path)) {
-                matchesInclude = true;
+    /**
+     * A list of patterns compiled into one regular expression along with the literal prefixes used to prune directories
+     */
+    private static class CompiledPatterns {
+        private final Set<String> literals = new HashSet<>();
+        private final List<String> prefixes = new ArrayList<>();
+        private final List<String> antPatterns = new ArrayList<>();
+        private final AntPathMatcher pathMatcher = new AntPathMatcher(File.pathSeparator);
+        private Pattern regex;
+        private boolean matchesAnyDirectory;
+
+        CompiledPatterns(Iterable<String> patterns) {
+            StringBuilder buffer = new StringBuilder();
+            if (patterns != null) {
+                for (String pattern : patterns) {
+                    if (pattern == null || pattern.isEmpty()) {
+                        continue;
+                    }
+                    if (pattern.contains(File.pathSeparator)) {
+                        // patterns with more than one segment need the full ant path semantics
+                        antPatterns.add(pattern);
+                        matchesAnyDirectory = true;
+                        continue;
+                    }
+                    String prefix = literalPrefix(pattern);
+                    if (prefix.equals(pattern)) {
+                        literals.add(pattern);
+                    } else {
+                        if (buffer.length() > 0) {
+                            buffer.append('|');
+                        }
+                        buffer.append("(?:").append(toRegex(pattern)).append(')');
+                    }
+                    if (prefix.isEmpty()) {
+                        matchesAnyDirectory = true;
+                    } else {
+                        prefixes.add(prefix);
+                    }
+                }
+            }
+            if (buffer.length() > 0) {
+                regex = Pattern.compile(buffer.toString());
+            }
+        }
+
+        boolean matches(String path) {
+            if (literals.contains(path)) {
+                return true;
+            }
+            if (regex != null && regex.matcher(path).matches()) {
+                return true;
+            }
+            for (String pattern : antPatterns) {
+                if (pathMatcher.match(pattern, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns true if the directory with the given relative path could contain a file matching one of the patterns
+         */
+        boolean canMatchDirectory(String path) {
+            if (matchesAnyDirectory) {
+                return true;
+            }
+            String dirPrefix = path + File.separator;
+            for (String prefix : prefixes) {
+                if (prefix.startsWith(dirPrefix) || dirPrefix.startsWith(prefix)) {
+                    return true;
+                }
             }
+            return false;
         }
-        return matchesInclude;
     }
 }
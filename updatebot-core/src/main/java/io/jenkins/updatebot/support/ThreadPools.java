@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.support;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper methods for creating the bounded thread pools used to process repositories and files concurrently
+ */
+public class ThreadPools {
+
+    /**
+     * Creates a fixed size thread pool of daemon threads whose names start with the given prefix
+     */
+    public static ExecutorService newFixedThreadPool(String namePrefix, int size) {
+        return Executors.newFixedThreadPool(Math.max(1, size), createThreadFactory(namePrefix));
+    }
+
+    /**
+     * Creates a fixed size thread pool of daemon threads which is shared by concurrent callers for the lifetime of a
+     * process, so its idle threads exit rather than having to shut the pool down
+     */
+    public static ExecutorService newSharedThreadPool(String namePrefix, int size) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, size), Math.max(1, size), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), createThreadFactory(namePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static ThreadFactory createThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Invokes the tasks on the given executor, or in the calling thread if the executor is null, waiting for all of
+     * them to complete and returning their results in order. The first failure is thrown once all the tasks complete.
+     */
+    public static <T> List<T> invokeAll(ExecutorService executor, List<? extends Callable<T>> tasks) throws IOException {
+        List<T> answer = new ArrayList<>(tasks.size());
+        if (executor == null || tasks.size() < 2) {
+            for (Callable<T> task : tasks) {
+                try {
+                    answer.add(task.call());
+                } catch (IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+            return answer;
+        }
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        Throwable failure = null;
+        for (Future<T> future : futures) {
+            try {
+                answer.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<T> other : futures) {
+                    other.cancel(true);
+                }
+                throw new InterruptedIOException("Interrupted while waiting for tasks to complete");
+            } catch (ExecutionException e) {
+                answer.add(null);
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IOException(failure.getMessage(), failure);
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.support;
+
+import io.fabric8.utils.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A per process registry of the command line tools like <code>mvn</code> and <code>npm</code> which probes each
+ * tool once, such as via <code>mvn -v</code>, and remembers whether it is available along with its version so that
+ * we don't launch the same probe for every updater of every repository.
+ */
+public class ToolCapabilities {
+    private static final transient Logger LOG = LoggerFactory.getLogger(ToolCapabilities.class);
+    private static final Map<String, Capability> capabilities = new HashMap<>();
+
+    /**
+     * Returns the capability of the given tool invoking the command in the given directory
+     * if it has not been probed before with the same environment variables
+     */
+    public static synchronized Capability probe(File dir, Map<String, String> environmentVariables, String... commands) {
+        String key = String.join(" ", commands) + " " + new TreeMap<>(environmentVariables != null ? environmentVariables : new HashMap<>());
+        Capability answer = capabilities.get(key);
+        if (answer == null) {
+            answer = doProbe(dir, environmentVariables, commands);
+            capabilities.put(key, answer);
+        }
+        return answer;
+    }
+
+    /**
+     * Forgets all the probed tools so they are probed again such as if the tools have been installed
+     */
+    public static synchronized void clear() {
+        capabilities.clear();
+    }
+
+    protected static Capability doProbe(File dir, Map<String, String> environmentVariables, String... commands) {
+        String command = String.join(" ", commands);
+        try {
+            File outputFile = File.createTempFile("updatebot-", ".log");
+            File errorFile = File.createTempFile("updatebot-", ".err");
+            try (FileDeleter ignored = new FileDeleter(outputFile, errorFile)) {
+                int returnCode = ProcessHelper.runCommand(dir, environmentVariables, outputFile, errorFile, commands);
+                Capability answer = new Capability(command, returnCode, firstLine(ProcessHelper.loadFile(outputFile)));
+                LOG.debug("Probed " + answer);
+                return answer;
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to probe " + command + ". " + e, e);
+            return new Capability(command, -1, null);
+        }
+    }
+
+    protected static String firstLine(String output) {
+        if (output != null) {
+            for (String line : output.split("\n")) {
+                if (Strings.isNotBlank(line)) {
+                    return line.trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The result of probing a tool
+     */
+    public static class Capability {
+        private final String command;
+        private final int returnCode;
+        private final String version;
+
+        public Capability(String command, int returnCode, String version) {
+            this.command = command;
+            this.returnCode = returnCode;
+            this.version = version;
+        }
+
+        @Override
+        public String toString() {
+            return "Capability{" +
+                    "command='" + command + '\'' +
+                    ", returnCode=" + returnCode +
+                    ", version='" + version + '\'' +
+                    '}';
+        }
+
+        public boolean isAvailable() {
+            return returnCode == 0;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public int getReturnCode() {
+            return returnCode;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+}
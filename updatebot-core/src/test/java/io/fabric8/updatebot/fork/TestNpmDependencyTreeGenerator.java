@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.GitHubRepositoryInfo;
 import io.jenkins.updatebot.kind.npm.NpmDependencyKinds;
 import io.jenkins.updatebot.kind.npm.NpmDependencyTreeGenerator;
 import io.jenkins.updatebot.repository.LocalRepository;
@@ -26,7 +27,6 @@ import io.jenkins.updatebot.support.MarkupHelper;
 import io.fabric8.updatebot.test.Tests;
 import io.fabric8.utils.IOHelpers;
 import io.fabric8.utils.Objects;
-import org.kohsuke.github.GHRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,7 +56,7 @@ public class TestNpmDependencyTreeGenerator implements NpmDependencyTreeGenerato
     public void generateDependencyTree(CommandContext context, String dependencyFileName) {
         File outFile = new File(context.getDir(), dependencyFileName);
         LocalRepository repository = context.getRepository();
-        GHRepository gitHubRepository = GitHubHelpers.getGitHubRepository(repository);
+        GitHubRepositoryInfo gitHubRepository = GitHubHelpers.getGitHubRepositoryInfo(repository);
         if (gitHubRepository != null) {
             String name = gitHubRepository.getName();
             if (Objects.equal(destinationRepoName, name)) {
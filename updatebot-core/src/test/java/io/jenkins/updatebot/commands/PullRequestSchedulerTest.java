@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.github.PullRequestInfo;
+import org.junit.Test;
+import org.kohsuke.github.GHPullRequest;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PullRequestSchedulerTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String REPO = "acme/cheese";
+    private static final String OTHER_REPO = "acme/wine";
+
+    protected TestScheduler scheduler = new TestScheduler(1000, 8000);
+
+    @Test
+    public void testBacksOffWhileUnchanged() throws Exception {
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 1000);
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 2000);
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 4000);
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 8000);
+        // capped at the maximum interval
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 8000);
+    }
+
+    @Test
+    public void testBacksOffWhileFailing() throws Exception {
+        assertNextCheckAfter(REPO, 1, "a", "FAILURE", 1000);
+        // a failed pull request backs off even though its fingerprint changed
+        assertNextCheckAfter(REPO, 1, "b", "FAILURE", 2000);
+        assertNextCheckAfter(REPO, 1, "c", "ERROR", 4000);
+    }
+
+    @Test
+    public void testResetsWhenChanged() throws Exception {
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 1000);
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 2000);
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 4000);
+        assertNextCheckAfter(REPO, 1, "b", "PENDING", 1000);
+        assertNextCheckAfter(REPO, 1, "b", "SUCCESS", 1000);
+    }
+
+    @Test
+    public void testSnapshotChecksResetWhenUpdated() throws Exception {
+        checkSnapshot(1, "2018-01-01T00:00:00Z");
+        scheduler.now = scheduler.getNextCheckTime();
+        scheduler.pollDueRepositories(scheduler.now);
+        checkSnapshot(1, "2018-01-01T00:00:00Z");
+        assertThat(scheduler.getNextCheckTime() - scheduler.now).isEqualTo(2000);
+
+        // a new comment or label changes the update time
+        scheduler.now = scheduler.getNextCheckTime();
+        scheduler.pollDueRepositories(scheduler.now);
+        checkSnapshot(1, "2018-01-01T00:05:00Z");
+        assertThat(scheduler.getNextCheckTime() - scheduler.now).isEqualTo(1000);
+    }
+
+    @Test
+    public void testResetsOnWebhookEvent() throws Exception {
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 1000);
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 2000);
+
+        scheduler.now += 500;
+        scheduler.reset(REPO);
+        assertThat(scheduler.getNextCheckTime()).isEqualTo(scheduler.now);
+        assertNextCheckAfter(REPO, 1, "a", "PENDING", 2000);
+    }
+
+    @Test
+    public void testPollDueRepositories() throws Exception {
+        check(REPO, 1, "a", "PENDING");
+        check(REPO, 2, "b", "PENDING");
+        scheduler.repositoryChecked(REPO, true);
+        scheduler.now += 500;
+        check(OTHER_REPO, 3, "c", "PENDING");
+        scheduler.repositoryChecked(OTHER_REPO, true);
+
+        assertThat(scheduler.pollDueRepositories(scheduler.now)).isEmpty();
+        assertThat(scheduler.pollDueRepositories(1000)).containsExactly(REPO);
+
+        // all the checks of the polled repository are removed from the queue
+        assertThat(scheduler.getNextCheckTime()).isEqualTo(1500);
+        assertThat(scheduler.pollDueRepositories(1499)).isEmpty();
+        assertThat(scheduler.pollDueRepositories(1500)).containsExactly(OTHER_REPO);
+        assertThat(scheduler.isEmpty()).isTrue();
+
+        // the previous interval of the polled repository is kept so that it backs off when checked again
+        scheduler.now = 1000;
+        check(REPO, 1, "a", "PENDING");
+        scheduler.repositoryChecked(REPO, true);
+        assertThat(scheduler.getNextCheckTime()).isEqualTo(3000);
+
+        // the pull request which was not checked again has been closed
+        assertThat(scheduler.pollDueRepositories(3000)).containsExactly(REPO);
+        assertThat(scheduler.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testRemovesRepositoryWithNothingPending() throws Exception {
+        check(REPO, 1, "a", "PENDING");
+        scheduler.repositoryChecked(REPO, true);
+        assertThat(scheduler.isEmpty()).isFalse();
+
+        scheduler.repositoryChecked(REPO, false);
+        assertThat(scheduler.isEmpty()).isTrue();
+        assertThat(scheduler.getNextCheckTime()).isEqualTo(0);
+    }
+
+    /**
+     * Checks the pull request when it is next due asserting the interval until the following check
+     */
+    protected void assertNextCheckAfter(String repository, int number, String sha, String state, long expectedInterval) throws Exception {
+        if (!scheduler.isEmpty()) {
+            scheduler.now = scheduler.getNextCheckTime();
+            assertThat(scheduler.pollDueRepositories(scheduler.now)).containsExactly(repository);
+        }
+        check(repository, number, sha, state);
+        scheduler.repositoryChecked(repository, true);
+        assertThat(scheduler.getNextCheckTime() - scheduler.now).describedAs("interval").isEqualTo(expectedInterval);
+    }
+
+    protected void check(String repository, int number, String sha, String state) throws Exception {
+        PullRequestInfo info = new PullRequestInfo(OBJECT_MAPPER.readTree("{\"number\": " + number + ", \"headRefOid\": \"" + sha + "\", " +
+                "\"commits\": {\"nodes\": [{\"commit\": {\"status\": {\"state\": \"" + state + "\", \"contexts\": []}}}]}}"));
+        scheduler.checked(repository, new TestPullRequest(number), info);
+    }
+
+    protected void checkSnapshot(int number, String updatedAt) throws Exception {
+        scheduler.checked(REPO, new PullRequestInfo(OBJECT_MAPPER.readTree("{\"number\": " + number + ", \"headRefOid\": \"a\", " +
+                "\"updatedAt\": \"" + updatedAt + "\"}")));
+        scheduler.repositoryChecked(REPO, true);
+    }
+
+    protected static class TestScheduler extends PullRequestScheduler {
+        private long now;
+
+        TestScheduler(long minInterval, long maxInterval) {
+            super(minInterval, maxInterval);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    protected static class TestPullRequest extends GHPullRequest {
+        private final int number;
+
+        TestPullRequest(int number) {
+            this.number = number;
+        }
+
+        @Override
+        public int getNumber() {
+            return number;
+        }
+
+        @Override
+        public Date getUpdatedAt() {
+            return new Date(0);
+        }
+    }
+}
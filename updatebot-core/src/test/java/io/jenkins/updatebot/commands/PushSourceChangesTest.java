@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.CommandNames;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.UpdateBot;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.model.RepositoryConfig;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PushSourceChangesTest {
+    protected Configuration configuration = new Configuration();
+    protected TestPushSourceChanges command = new TestPushSourceChanges();
+    protected File workDir;
+
+    @Before
+    public void init() throws Exception {
+        workDir = new File(Tests.getCleanWorkDir(getClass()));
+        configuration.setWorkDir(workDir.getPath());
+        configuration.setGithubUsername("dummy");
+        configuration.setGithubPassword("dummy");
+
+        RepositoryConfig repositoryConfig = new RepositoryConfig();
+        repositoryConfig.setGit(Arrays.asList(
+                new GitRepository("cheese", "https://github.com/acme/cheese.git"),
+                new GitRepository("wine", "https://github.com/acme/wine.git")));
+        command.setRepositoryConfig(repositoryConfig);
+    }
+
+    @Test
+    public void testParallelPushFetchesRepositoriesInPipeline() throws Exception {
+        CommandSupport parsed = UpdateBot.parseCommand(new String[]{"--parallelism", "2", "--fetch-parallelism", "2",
+                CommandNames.PUSH_SOURCE, "https://github.com/acme/beer.git"}, configuration, false);
+        assertThat(parsed).isInstanceOf(PushSourceChanges.class);
+        command.setCloneUrl(((PushSourceChanges) parsed).getCloneUrl());
+
+        ParentContext context = command.run(configuration);
+        assertThat(command.fetch).describedAs("fetch").isTrue();
+        assertThat(command.repositories).extracting(LocalRepository::getFullName).containsExactly("cheese", "wine");
+        assertThat(context.getChildren()).hasSize(2);
+
+        // resolving the source repository did not clone the other repositories before the pipeline started
+        for (LocalRepository repository : command.repositories) {
+            assertThat(repository.getDir()).doesNotExist();
+        }
+        assertThat(command.getSourceRepository()).isNotNull();
+    }
+
+    @Test
+    public void testFindsSourceRepositoryWithoutCloning() throws Exception {
+        command.setCloneUrl("https://github.com/acme/beer.git");
+        command.validateConfiguration(configuration);
+
+        // the source repository is found from the configuration without cloning anything
+        assertThat(command.findRepositories(configuration)).extracting(LocalRepository::getFullName).containsExactly("cheese", "wine");
+        for (LocalRepository repository : command.findRepositories(configuration)) {
+            assertThat(repository.getDir()).doesNotExist();
+        }
+        assertThat(command.repositories).isNull();
+    }
+
+    /**
+     * Records how the repositories would be processed rather than cloning and processing them
+     */
+    protected static class TestPushSourceChanges extends PushSourceChanges {
+        private List<LocalRepository> repositories;
+        private Boolean fetch;
+
+        @Override
+        protected void runInParallel(Configuration configuration, ParentContext parentContext, List<LocalRepository> repositories, int parallelism, boolean fetch) {
+            this.repositories = new ArrayList<>(repositories);
+            this.fetch = fetch;
+            for (LocalRepository repository : repositories) {
+                parentContext.addChild(createCommandContext(repository, configuration));
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.GitHubGraphQLClient;
+import io.jenkins.updatebot.github.PullRequestInfo;
+import io.jenkins.updatebot.github.PullRequestSnapshot;
+import io.jenkins.updatebot.github.WebhookEvent;
+import io.jenkins.updatebot.github.WebhookListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class UpdatePullRequestLoopTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String REPO = "acme/cheese";
+
+    protected Configuration configuration = new Configuration();
+    protected UpdatePullRequestLoop loop = new UpdatePullRequestLoop();
+    protected RecordingUpdatePullRequests updatePullRequests = new RecordingUpdatePullRequests();
+    protected PullRequestScheduler scheduler = new PullRequestScheduler(60 * 1000, 10 * 60 * 1000);
+    protected TestListener listener;
+
+    @Before
+    public void init() throws Exception {
+        listener = new TestListener();
+        // the pull requests of the repository are checked in a minute so it is not due yet
+        check(1, "a");
+        check(2, "b");
+        scheduler.repositoryChecked(REPO, true);
+        loop.setWebhookPollTimeMillis(60 * 60 * 1000);
+    }
+
+    @After
+    public void close() {
+        listener.close();
+    }
+
+    @Test
+    public void testOnlyUpdatesPullRequestsNamedByEvents() throws Exception {
+        WebhookEvent event = new WebhookEvent("pull_request", REPO, null);
+        event.addPullRequestNumber(2);
+        listener.events.add(event);
+
+        waitForChanges();
+        assertThat(updatePullRequests.repositories).containsExactly(REPO);
+        assertThat(updatePullRequests.events).containsExactly(event);
+
+        // the pull requests keep their scheduled checks
+        assertThat(scheduler.isEmpty()).isFalse();
+        assertThat(scheduler.getNextCheckTime()).isGreaterThan(System.currentTimeMillis());
+
+        updatePullRequests.setWebhookEvents(updatePullRequests.events);
+        assertThat(updatePullRequests.getChangedPullRequestNumbers(REPO, loadSnapshot())).containsExactly(2);
+    }
+
+    @Test
+    public void testOnlyUpdatesPullRequestsOfEventCommits() throws Exception {
+        listener.events.add(new WebhookEvent("status", REPO, "a"));
+
+        waitForChanges();
+        assertThat(updatePullRequests.repositories).containsExactly(REPO);
+        assertThat(updatePullRequests.events).hasSize(1);
+
+        updatePullRequests.setWebhookEvents(updatePullRequests.events);
+        assertThat(updatePullRequests.getChangedPullRequestNumbers(REPO, loadSnapshot())).containsExactly(1);
+    }
+
+    @Test
+    public void testUpdatesAllPullRequestsForEventsWithoutPullRequests() throws Exception {
+        WebhookEvent event = new WebhookEvent("pull_request", REPO, "b");
+        event.addPullRequestNumber(2);
+        listener.events.add(event);
+        listener.events.add(new WebhookEvent("issue_comment", REPO, null));
+
+        waitForChanges();
+        assertThat(updatePullRequests.repositories).containsExactly(REPO);
+
+        // the repository was due so all of its pull requests are updated
+        assertThat(updatePullRequests.events).isEmpty();
+        assertThat(scheduler.isEmpty()).isTrue();
+        updatePullRequests.setWebhookEvents(updatePullRequests.events);
+        assertThat(updatePullRequests.getChangedPullRequestNumbers(REPO, loadSnapshot())).isNull();
+    }
+
+    protected void waitForChanges() throws IOException {
+        loop.waitForChanges(configuration, updatePullRequests, listener, scheduler, System.currentTimeMillis() + 60 * 1000);
+    }
+
+    protected void check(int number, String sha) throws IOException {
+        scheduler.checked(REPO, new PullRequestSchedulerTest.TestPullRequest(number), new PullRequestInfo(pullRequestNode(number, sha)));
+    }
+
+    protected PullRequestSnapshot loadSnapshot() throws IOException {
+        return PullRequestSnapshot.load(new GitHubGraphQLClient(GitHubGraphQLClient.DEFAULT_URL, null) {
+            @Override
+            public JsonNode query(String query) throws IOException {
+                return OBJECT_MAPPER.readTree("{\"r0\": {\"issues\": {\"totalCount\": 0}, \"pullRequests\": {" +
+                        "\"pageInfo\": {\"hasNextPage\": false}, \"nodes\": [" +
+                        pullRequestNode(1, "a") + ", " + pullRequestNode(2, "b") + "]}}}");
+            }
+        }, Collections.singletonList(REPO), "updatebot");
+    }
+
+    protected static JsonNode pullRequestNode(int number, String sha) throws IOException {
+        return OBJECT_MAPPER.readTree("{\"number\": " + number + ", \"headRefOid\": \"" + sha + "\", " +
+                "\"commits\": {\"nodes\": [{\"commit\": {\"status\": {\"state\": \"PENDING\", \"contexts\": []}}}]}}");
+    }
+
+    /**
+     * A listener which is never started and returns the queued events
+     */
+    protected static class TestListener extends WebhookListener {
+        private final LinkedList<WebhookEvent> events = new LinkedList<>();
+
+        TestListener() throws IOException {
+            super(0, null);
+        }
+
+        @Override
+        public WebhookEvent poll(long timeout, TimeUnit unit) {
+            return events.poll();
+        }
+
+        @Override
+        public List<WebhookEvent> drain() {
+            List<WebhookEvent> answer = new ArrayList<>(events);
+            events.clear();
+            return answer;
+        }
+    }
+
+    /**
+     * Records the repositories and events it is asked to update rather than updating them
+     */
+    protected static class RecordingUpdatePullRequests extends UpdatePullRequests {
+        private List<String> repositories;
+        private List<WebhookEvent> events;
+
+        @Override
+        public ParentContext run(Configuration configuration, Collection<String> repositoryFullNames, Collection<WebhookEvent> events) {
+            this.repositories = new ArrayList<>(repositoryFullNames);
+            this.events = new ArrayList<>(events);
+            return new ParentContext();
+        }
+    }
+}
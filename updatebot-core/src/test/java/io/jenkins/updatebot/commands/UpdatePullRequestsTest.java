@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.PullRequestInfo;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHRepository;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class UpdatePullRequestsTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String REPO = "acme/cheese";
+
+    protected UpdatePullRequests command = new UpdatePullRequests();
+    protected PullRequestScheduler scheduler = new PullRequestScheduler(60 * 1000, 10 * 60 * 1000);
+    protected TestRepository ghRepository = new TestRepository();
+    protected CommandContext context;
+
+    @Before
+    public void init() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        context = new CommandContext(new LocalRepository(new GitRepository(REPO), dir), new Configuration());
+        command.setMergeOnSuccess(true);
+        command.setCheckPrStatus(true);
+        command.setDeleteMergedBranches(false);
+        command.setScheduler(scheduler);
+    }
+
+    @Test
+    public void testPendingPullRequestIsNotLoaded() throws Exception {
+        context.setPullRequestInfo(pullRequestInfo(1, "MERGEABLE", "PENDING"));
+
+        assertThat(command.updatePullRequest(context, ghRepository)).isTrue();
+        assertThat(ghRepository.loaded).isEmpty();
+        assertThat(context.getPullRequest()).isNull();
+        assertThat(scheduler.isEmpty()).isFalse();
+
+        // the status uses the snapshot of the pull request
+        StatusInfo status = context.createStatusInfo();
+        assertThat(status.getPullRequestUrl()).isEqualTo("https://github.com/acme/cheese/pull/1");
+        assertThat(status.getPullRequestState()).isEqualTo(GHIssueState.OPEN);
+    }
+
+    @Test
+    public void testSuccessfulPullRequestIsLoadedToMerge() throws Exception {
+        context.setPullRequestInfo(pullRequestInfo(2, "MERGEABLE", "SUCCESS"));
+
+        command.updatePullRequest(context, ghRepository);
+        assertThat(ghRepository.loaded).containsExactly(2);
+        assertThat(((TestPullRequest) context.getPullRequest()).merged).isTrue();
+    }
+
+    protected static PullRequestInfo pullRequestInfo(int number, String mergeable, String state) throws Exception {
+        return new PullRequestInfo(OBJECT_MAPPER.readTree("{\"number\": " + number + ", \"headRefOid\": \"a\", " +
+                "\"url\": \"https://github.com/" + REPO + "/pull/" + number + "\", \"mergeable\": \"" + mergeable + "\", " +
+                "\"commits\": {\"nodes\": [{\"commit\": {\"status\": {\"state\": \"" + state + "\", \"contexts\": [" +
+                "{\"context\": \"ci\", \"state\": \"" + state + "\", \"targetUrl\": \"https://ci.example.com/1\"}]}}}]}}"));
+    }
+
+    /**
+     * Records which pull requests are loaded via the REST API
+     */
+    protected static class TestRepository extends GHRepository {
+        private final List<Integer> loaded = new ArrayList<>();
+
+        @Override
+        public GHPullRequest getPullRequest(int number) {
+            loaded.add(number);
+            return new TestPullRequest(number);
+        }
+    }
+
+    protected static class TestPullRequest extends PullRequestSchedulerTest.TestPullRequest {
+        private boolean merged;
+
+        TestPullRequest(int number) {
+            super(number);
+        }
+
+        @Override
+        public GHIssueState getState() {
+            return GHIssueState.OPEN;
+        }
+
+        @Override
+        public void merge(String message, String sha, MergeMethod method) {
+            merged = true;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.git;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.support.ProcessHelper;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitPluginJGitTest {
+    protected Configuration configuration = new Configuration();
+    protected GitPluginCLI cli = new GitPluginCLI(configuration);
+    protected GitPluginJGit jgit = new GitPluginJGit(configuration);
+    protected File workDir;
+    protected File upstreamDir;
+    protected File cliDir;
+    protected File jgitDir;
+
+    @Before
+    public void init() throws Exception {
+        workDir = new File(Tests.getCleanWorkDir(getClass())).getAbsoluteFile();
+        upstreamDir = new File(workDir, "upstream");
+        cliDir = new File(workDir, "cli");
+        jgitDir = new File(workDir, "jgit");
+        try (Git git = Git.init().setDirectory(upstreamDir).setInitialBranch("master").call()) {
+            git.commit().setMessage("initial").setAuthor("Test", "test@example.com").setCommitter("Test", "test@example.com").call();
+        }
+        commitUpstream("README.md", "Hello\n");
+        commitUpstream("src/cheese.txt", "edam\n");
+    }
+
+    @Test
+    public void testCloneAndPull() throws Exception {
+        cloneBoth();
+        String head = jgit.headCommit(upstreamDir);
+        for (File dir : new File[]{cliDir, jgitDir}) {
+            assertThat(cli.currentBranch(dir)).describedAs(dir.getName()).isEqualTo("master");
+            assertThat(cli.headCommit(dir)).describedAs(dir.getName()).isEqualTo(head);
+        }
+        assertThat(jgit.currentBranch(jgitDir)).isEqualTo(cli.currentBranch(cliDir));
+        assertThat(jgit.headCommit(jgitDir)).isEqualTo(cli.headCommit(cliDir));
+        assertThat(jgit.remoteBranchCommit(jgitDir, "master")).isEqualTo(cli.remoteBranchCommit(cliDir, "master")).isEqualTo(head);
+        assertThat(jgit.remoteBranchCommit(jgitDir, "unknown")).isNull();
+
+        String newHead = commitUpstream("src/wine.txt", "merlot\n");
+        cli.pull(cliDir, upstreamDir.getPath());
+        jgit.pull(jgitDir, upstreamDir.getPath());
+        assertThat(cli.headCommit(cliDir)).isEqualTo(newHead);
+        assertThat(jgit.headCommit(jgitDir)).isEqualTo(newHead);
+        assertThat(IOHelpers.readFully(new File(jgitDir, "src/wine.txt"))).isEqualTo("merlot\n");
+    }
+
+    @Test
+    public void testBranches() throws Exception {
+        cloneBoth();
+        commitUpstream("src/wine.txt", "merlot\n");
+        try (Git git = Git.open(upstreamDir)) {
+            git.branchCreate().setName("feature").call();
+        }
+        cli.pull(cliDir, upstreamDir.getPath());
+        jgit.pull(jgitDir, upstreamDir.getPath());
+
+        // checking out a remote branch creates a local branch
+        assertThat(cli.checkoutBranch(cliDir, "feature", false)).isTrue();
+        assertThat(jgit.checkoutBranch(jgitDir, "feature", false)).isTrue();
+        assertThat(jgit.currentBranch(jgitDir)).isEqualTo(cli.currentBranch(cliDir)).isEqualTo("feature");
+
+        assertThat(cli.checkoutBranch(cliDir, "unknown", false)).isFalse();
+        assertThat(jgit.checkoutBranch(jgitDir, "unknown", false)).isFalse();
+        assertThat(cli.stashAndCheckoutBranch(cliDir, "master")).isTrue();
+        assertThat(jgit.stashAndCheckoutBranch(jgitDir, "master")).isTrue();
+
+        for (GitPluginCLI git : new GitPluginCLI[]{cli, jgit}) {
+            File dir = git == cli ? cliDir : jgitDir;
+            IOHelpers.writeFully(new File(dir, "src/beer.txt"), "stout\n");
+            assertThat(git.commitToBranch(dir, "updatebot-beer", "add beer")).describedAs(dir.getName()).isTrue();
+            assertThat(git.currentBranch(dir)).describedAs(dir.getName()).isEqualTo("updatebot-beer");
+            assertThat(git.diff(dir, "master")).describedAs(dir.getName()).contains("+stout");
+
+            assertThat(git.stashAndCheckoutMaster(dir)).describedAs(dir.getName()).isTrue();
+            git.deleteBranch(dir, "updatebot-beer");
+            assertThat(localBranches(dir)).describedAs(dir.getName()).containsOnly("master", "feature");
+        }
+    }
+
+    @Test
+    public void testAddAndCommit() throws Exception {
+        cloneBoth();
+        for (GitPluginCLI git : new GitPluginCLI[]{cli, jgit}) {
+            File dir = git == cli ? cliDir : jgitDir;
+            assertThat(git.addAndCommit(dir, "nothing")).describedAs(dir.getName()).isFalse();
+
+            // lets modify, add and delete files
+            IOHelpers.writeFully(new File(dir, "README.md"), "Goodbye\n");
+            IOHelpers.writeFully(new File(dir, "src/wine.txt"), "merlot\n");
+            assertThat(new File(dir, "src/cheese.txt").delete()).isTrue();
+
+            assertThat(git.addAndCommit(dir, "changes")).describedAs(dir.getName()).isTrue();
+            assertThat(git.hasChangedFiles(dir)).describedAs(dir.getName()).isFalse();
+        }
+        assertThat(trackedFiles(jgitDir)).isEqualTo(trackedFiles(cliDir)).containsOnly("README.md", "src/wine.txt");
+        assertThat(ProcessHelper.runCommandCaptureOutput(jgitDir, "git", "show", "HEAD:README.md")).contains("Goodbye");
+        assertThat(jgit.diff(jgitDir, "origin/master")).contains("-edam", "+merlot", "+Goodbye");
+        assertThat(cli.diff(cliDir, "origin/master")).contains("-edam", "+merlot", "+Goodbye");
+    }
+
+    @Test
+    public void testHasChangedFiles() throws Exception {
+        cloneBoth();
+        assertHasChangedFiles(false);
+
+        IOHelpers.writeFully(new File(cliDir, "README.md"), "Goodbye\n");
+        IOHelpers.writeFully(new File(jgitDir, "README.md"), "Goodbye\n");
+        assertHasChangedFiles(true);
+
+        jgit.revertChanges(jgitDir);
+        cli.revertChanges(cliDir);
+        assertHasChangedFiles(false);
+
+        // untracked files are changes too
+        IOHelpers.writeFully(new File(cliDir, "new.txt"), "new\n");
+        IOHelpers.writeFully(new File(jgitDir, "new.txt"), "new\n");
+        assertHasChangedFiles(true);
+
+        assertThat(new File(cliDir, "new.txt").delete()).isTrue();
+        assertThat(new File(jgitDir, "new.txt").delete()).isTrue();
+        assertThat(new File(cliDir, "src/cheese.txt").delete()).isTrue();
+        assertThat(new File(jgitDir, "src/cheese.txt").delete()).isTrue();
+        assertHasChangedFiles(true);
+    }
+
+    @Test
+    public void testHasChangedFilesWhenStatusFails() throws Exception {
+        // if the status cannot be found the clone is treated as changed so it is never skipped as up to date
+        File missingDir = new File(workDir, "missing");
+        assertThat(cli.hasChangedFiles(missingDir)).describedAs("cli").isTrue();
+        assertThat(jgit.hasChangedFiles(missingDir)).describedAs("jgit").isTrue();
+    }
+
+    @Test
+    public void testEvictionDoesNotCloseRepositoryInUse() throws Exception {
+        cloneBoth();
+        Set<File> closed = new HashSet<>();
+        GitPluginJGit plugin = new GitPluginJGit(configuration, 1) {
+            @Override
+            protected Repository openRepository(File dir) throws IOException {
+                return new FileRepository(new FileRepositoryBuilder().setWorkTree(dir).setGitDir(new File(dir, ".git")).setup()) {
+                    @Override
+                    protected void doClose() {
+                        closed.add(dir);
+                        super.doClose();
+                    }
+                };
+            }
+        };
+
+        try (Git git = plugin.git(jgitDir)) {
+            // using another repository evicts the repository which is in use
+            assertThat(plugin.currentBranch(cliDir)).isEqualTo("master");
+            assertThat(closed).isEmpty();
+
+            IOHelpers.writeFully(new File(jgitDir, "src/wine.txt"), "merlot\n");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("add wine").call();
+        }
+        // once we are done with it the evicted repository is closed
+        assertThat(closed).containsOnly(jgitDir);
+        assertThat(jgit.hasChangedFiles(jgitDir)).isFalse();
+        assertThat(trackedFiles(jgitDir)).contains("src/wine.txt");
+
+        // an evicted repository is opened again on its next use
+        assertThat(plugin.currentBranch(jgitDir)).isEqualTo("master");
+        assertThat(closed).contains(cliDir);
+    }
+
+    protected void cloneBoth() {
+        cli.clone(workDir, upstreamDir.getPath(), cliDir.getName());
+        jgit.clone(workDir, upstreamDir.getPath(), jgitDir.getName());
+        for (GitPluginCLI git : new GitPluginCLI[]{cli, jgit}) {
+            File dir = git == cli ? cliDir : jgitDir;
+            git.setConfigValue(dir, "user.name", "Test");
+            git.setConfigValue(dir, "user.email", "test@example.com");
+        }
+    }
+
+    protected void assertHasChangedFiles(boolean expected) {
+        assertThat(cli.hasChangedFiles(cliDir)).describedAs("cli").isEqualTo(expected);
+        assertThat(jgit.hasChangedFiles(jgitDir)).describedAs("jgit").isEqualTo(expected);
+    }
+
+    protected String commitUpstream(String path, String content) throws Exception {
+        File file = new File(upstreamDir, path);
+        file.getParentFile().mkdirs();
+        IOHelpers.writeFully(file, content);
+        try (Git git = Git.open(upstreamDir)) {
+            git.add().addFilepattern(".").call();
+            return git.commit().setMessage("update " + path).setAuthor("Test", "test@example.com").
+                    setCommitter("Test", "test@example.com").call().getName();
+        }
+    }
+
+    protected static Set<String> trackedFiles(File dir) throws IOException {
+        return lines(ProcessHelper.runCommandCaptureOutput(dir, "git", "ls-files"));
+    }
+
+    protected static Set<String> localBranches(File dir) throws IOException {
+        return lines(ProcessHelper.runCommandCaptureOutput(dir, "git", "for-each-ref", "--format=%(refname:short)", "refs/heads/"));
+    }
+
+    private static Set<String> lines(String output) {
+        Set<String> answer = new HashSet<>();
+        for (String line : output.split("\n")) {
+            if (!line.trim().isEmpty()) {
+                answer.add(line.trim());
+            }
+        }
+        return answer;
+    }
+}
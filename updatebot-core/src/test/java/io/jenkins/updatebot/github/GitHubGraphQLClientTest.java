@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitHubGraphQLClientTest {
+
+    @Test
+    public void testGraphQLUrl() throws Exception {
+        assertThat(GitHubGraphQLClient.getGraphQLUrl(null)).isEqualTo("https://api.github.com/graphql");
+        assertThat(GitHubGraphQLClient.getGraphQLUrl("https://api.github.com")).isEqualTo("https://api.github.com/graphql");
+        assertThat(GitHubGraphQLClient.getGraphQLUrl("https://api.github.com/")).isEqualTo("https://api.github.com/graphql");
+        assertThat(GitHubGraphQLClient.getGraphQLUrl("https://github.example.com/api/v3")).isEqualTo("https://github.example.com/api/graphql");
+        assertThat(GitHubGraphQLClient.getGraphQLUrl("https://github.example.com/api/v3/")).isEqualTo("https://github.example.com/api/graphql");
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitHubRepositoryCacheTest {
+    private static final long TIME_TO_LIVE = 60 * 60 * 1000;
+    private static final long START = 1000L * 1000 * 1000 * 1000;
+
+    protected Configuration configuration = new Configuration();
+    protected File file;
+
+    @Before
+    public void init() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        dir.mkdirs();
+        configuration.setWorkDir(dir.getPath());
+        configuration.setGithubGraphQL(true);
+        file = new File(dir, "acme.json");
+    }
+
+    @Test
+    public void testFullReloadAfterTimeToLive() throws Exception {
+        TestCache cache = new TestCache(file);
+        cache.results.put("a", repository("a", "master"));
+        cache.results.put("b", repository("b", "master"));
+        cache.refresh(configuration, null, TIME_TO_LIVE);
+
+        assertThat(cache.queries).containsExactly(0L);
+        assertThat(cache.getCachedRepositories()).containsOnlyKeys("a", "b");
+
+        // the deleted repository is only dropped by a full reload once the cache has expired
+        cache.results.remove("b");
+        cache.now += TIME_TO_LIVE + 1;
+        cache.refresh(configuration, null, TIME_TO_LIVE);
+
+        assertThat(cache.queries).containsExactly(0L, 0L);
+        assertThat(cache.getCachedRepositories()).containsOnlyKeys("a");
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        TestCache cache = new TestCache(file);
+        cache.results.put("a", repository("a", "master"));
+        cache.results.put("b", repository("b", "master"));
+        cache.refresh(configuration, null, TIME_TO_LIVE);
+
+        // refreshing again straight away does not query GitHub
+        cache.now += GitHubRepositoryCache.MIN_REFRESH_INTERVAL - 1;
+        cache.refresh(configuration, null, TIME_TO_LIVE);
+        assertThat(cache.queries).containsExactly(0L);
+
+        // only the recently pushed repositories are queried and merged into the cache
+        cache.results.clear();
+        cache.results.put("a", repository("a", "main"));
+        cache.results.put("c", repository("c", "master"));
+        cache.now = START + 10 * 60 * 1000;
+        cache.refresh(configuration, null, TIME_TO_LIVE);
+
+        assertThat(cache.queries).containsExactly(0L, START - GitHubRepositoryCache.PUSHED_AT_SLACK);
+        Map<String, GitHubRepositoryInfo> repositories = cache.getCachedRepositories();
+        assertThat(repositories).containsOnlyKeys("a", "b", "c");
+        assertThat(repositories.get("a").getDefaultBranch()).isEqualTo("main");
+        assertThat(repositories.get("b").getDefaultBranch()).isEqualTo("master");
+    }
+
+    @Test
+    public void testLoadsCacheFile() throws Exception {
+        TestCache cache = new TestCache(file);
+        cache.results.put("a", repository("a", "main"));
+        cache.results.put("b", repository("b", "master"));
+        cache.refresh(configuration, null, TIME_TO_LIVE);
+        assertThat(file).isFile();
+
+        TestCache loaded = new TestCache(file);
+        loaded.load(configuration);
+        Map<String, GitHubRepositoryInfo> repositories = loaded.getCachedRepositories();
+        assertThat(repositories).containsOnlyKeys("a", "b");
+        assertThat(repositories.get("a").getFullName()).isEqualTo("acme/a");
+        assertThat(repositories.get("a").getOwner()).isEqualTo("acme");
+        assertThat(repositories.get("a").getDefaultBranch()).isEqualTo("main");
+
+        // the loaded cache is refreshed incrementally from when it was saved rather than reloaded
+        loaded.now += 10 * 60 * 1000;
+        loaded.refresh(configuration, null, TIME_TO_LIVE);
+        assertThat(loaded.queries).containsExactly(START - GitHubRepositoryCache.PUSHED_AT_SLACK);
+        assertThat(loaded.getCachedRepositories()).containsOnlyKeys("a", "b");
+    }
+
+    protected static GitHubRepositoryInfo repository(String name, String defaultBranch) {
+        GitHubRepositoryInfo answer = new GitHubRepositoryInfo();
+        answer.setName(name);
+        answer.setFullName("acme/" + name);
+        answer.setHtmlUrl("https://github.com/acme/" + name);
+        answer.setDefaultBranch(defaultBranch);
+        answer.setPushedAt(START);
+        return answer;
+    }
+
+    /**
+     * A cache which returns the given repositories rather than querying GitHub and records the queries
+     */
+    private static class TestCache extends GitHubRepositoryCache {
+        private final Map<String, GitHubRepositoryInfo> results = new LinkedHashMap<>();
+        private final List<Long> queries = new ArrayList<>();
+        private long now = START;
+
+        TestCache(File file) {
+            super(file, "acme");
+        }
+
+        @Override
+        protected GitHubGraphQLClient createGraphQLClient(Configuration configuration) {
+            return new GitHubGraphQLClient(GitHubGraphQLClient.DEFAULT_URL, "bearer test");
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        protected Map<String, GitHubRepositoryInfo> queryRepositories(GitHubGraphQLClient client, long pushedSince) {
+            queries.add(pushedSince);
+            return new LinkedHashMap<>(results);
+        }
+
+        @Override
+        protected Map<String, GitHubRepositoryInfo> listRepositories(GitHub github) {
+            throw new AssertionError("Should use the GraphQL API");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class WebhookListenerTest {
+    protected WebhookListener listener;
+
+    @Before
+    public void init() throws IOException {
+        listener = new WebhookListener(0, null);
+        listener.start();
+    }
+
+    @After
+    public void destroy() {
+        listener.close();
+    }
+
+    @Test
+    public void testParseStatusEvent() throws Exception {
+        WebhookEvent event = WebhookListener.parseEvent("status", "{\"sha\": \"abc123\", \"repository\": {\"full_name\": \"jstrachan/test-repo\"}}");
+        assertThat(event).isNotNull();
+        assertThat(event.getEvent()).isEqualTo("status");
+        assertThat(event.getRepository()).isEqualTo("jstrachan/test-repo");
+        assertThat(event.getSha()).isEqualTo("abc123");
+    }
+
+    @Test
+    public void testParsePullRequestEvents() throws Exception {
+        WebhookEvent event = WebhookListener.parseEvent("pull_request", "{\"pull_request\": {\"number\": 12}, \"repository\": {\"full_name\": \"jstrachan/test-repo\"}}");
+        assertThat(event.getPullRequestNumbers()).containsExactly(12);
+
+        event = WebhookListener.parseEvent("issue_comment", "{\"issue\": {\"number\": 5}, \"repository\": {\"full_name\": \"jstrachan/test-repo\"}}");
+        assertThat(event.getPullRequestNumbers()).containsExactly(5);
+
+        event = WebhookListener.parseEvent("check_suite", "{\"check_suite\": {\"head_sha\": \"def\", \"pull_requests\": [{\"number\": 1}, {\"number\": 2}]}, \"repository\": {\"full_name\": \"jstrachan/test-repo\"}}");
+        assertThat(event.getSha()).isEqualTo("def");
+        assertThat(event.getPullRequestNumbers()).containsExactly(1, 2);
+    }
+
+    @Test
+    public void testIgnoredEvents() throws Exception {
+        assertThat(WebhookListener.parseEvent("ping", "{\"repository\": {\"full_name\": \"jstrachan/test-repo\"}}")).isNull();
+        assertThat(WebhookListener.parseEvent("status", "{\"sha\": \"abc123\"}")).isNull();
+    }
+
+    @Test
+    public void testReceiveEvent() throws Exception {
+        int responseCode = post("status", "{\"sha\": \"abc123\", \"repository\": {\"full_name\": \"jstrachan/test-repo\"}}");
+        assertThat(responseCode).isEqualTo(202);
+
+        WebhookEvent event = listener.poll(5, TimeUnit.SECONDS);
+        assertThat(event).isNotNull();
+        assertThat(event.getRepository()).isEqualTo("jstrachan/test-repo");
+        assertThat(listener.drain()).isEmpty();
+
+        assertThat(post("ping", "{}")).isEqualTo(204);
+        assertThat(listener.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    protected int post(String event, String payload) throws IOException {
+        URL url = new URL("http://localhost:" + listener.getPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty(WebhookListener.EVENT_HEADER, event);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.repository.LocalRepository;
 import io.jenkins.updatebot.support.MarkupHelper;
 import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -56,6 +57,24 @@ public class HelmUpdaterTest {
     }
 
 
+    @Test
+    public void testIndexLooksUpChartsToUpdate() throws Exception {
+        HelmChartIndex index = HelmChartIndex.getInstance(parentContext);
+        assertThat(index.findChartsNamed("cheese")).hasSize(1);
+        assertThat(index.findChartsRequiring("subchart1")).hasSize(1);
+        assertThat(index.findChartsWithImage("fabric8/cheese")).hasSize(1);
+        assertThat(index.findChartsWithImage("fabric8/wine")).isEmpty();
+
+        List<DependencyVersionChange> changes = new ArrayList<>();
+        changes.add(new DependencyVersionChange(Kind.HELM, "subchart1", "0.1.1"));
+        changes.add(new DependencyVersionChange(Kind.HELM, "fabric8/cheese", "1.0.1"));
+        assertThat(updater.pushVersions(parentContext, changes)).isTrue();
+        assertThat(IOHelpers.readFully(Tests.testFile(testDir, HelmFiles.VALUES_YAML))).contains("  Image: fabric8/cheese:1.0.1\n");
+        assertThat(MarkupHelper.loadYaml(requirementsYaml, Requirements.class).dependency("subchart1").getVersion()).isEqualTo("0.1.1");
+
+        assertThat(updater.pushVersions(parentContext, changes)).isFalse();
+    }
+
     public void assertUpdateHelm(File requirementsYaml, String name, String version) throws IOException {
         assertThat(this.requirementsYaml).exists().isFile();
 
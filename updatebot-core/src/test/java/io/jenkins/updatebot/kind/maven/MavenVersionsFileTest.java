@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.MavenArtifactVersionChange;
+import io.jenkins.updatebot.model.MavenArtifactVersionChanges;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class MavenVersionsFileTest {
+    protected File dir = new File(Tests.getCleanWorkDir(getClass()));
+    protected List<MavenArtifactVersionChange> changes = Arrays.asList(
+            new MavenArtifactVersionChange("io.fabric8", "fabric8-maven-plugin", "3.5.1", MavenScopes.PLUGIN),
+            new MavenArtifactVersionChange("io.fabric8", "kubernetes-api", "3.0.0", MavenScopes.DEPENDENCY),
+            new MavenArtifactVersionChange("io.jenkins.updatebot", "updatebot-core", "1.2.3", MavenScopes.ARTIFACT));
+
+    @Test
+    public void testWriteIndexesGroups() throws Exception {
+        StringWriter writer = new StringWriter();
+        MavenVersionsFile.write(writer, changes);
+
+        assertThat(writer.toString()).isEqualTo(MavenVersionsFile.HEADER + "\n" +
+                "g io.fabric8\n" +
+                "p 0 fabric8-maven-plugin 3.5.1\n" +
+                "d 0 kubernetes-api 3.0.0\n" +
+                "g io.jenkins.updatebot\n" +
+                "a 1 updatebot-core 1.2.3\n");
+    }
+
+    @Test
+    public void testReadWrittenFile() throws Exception {
+        File file = new File(dir, "updatebot-versions.txt");
+        MavenVersionsFile.write(file, changes);
+
+        assertVersionChanges(MavenVersionsFile.read(file));
+    }
+
+    @Test
+    public void testReadYamlFile() throws Exception {
+        File file = new File(dir, "updatebot-versions.yml");
+        dir.mkdirs();
+        MarkupHelper.saveYaml(new MavenArtifactVersionChanges(changes), file);
+
+        assertVersionChanges(MavenVersionsFile.read(file));
+    }
+
+    protected void assertVersionChanges(List<DependencyVersionChange> actual) {
+        assertThat(actual).extracting(DependencyVersionChange::getDependency).containsExactly(
+                "io.fabric8:fabric8-maven-plugin", "io.fabric8:kubernetes-api", "io.jenkins.updatebot:updatebot-core");
+        assertThat(actual).extracting(DependencyVersionChange::getVersion).containsExactly("3.5.1", "3.0.0", "1.2.3");
+        assertThat(actual).extracting(DependencyVersionChange::getScope).containsExactly(
+                MavenScopes.PLUGIN, MavenScopes.DEPENDENCY, MavenScopes.ARTIFACT);
+    }
+}
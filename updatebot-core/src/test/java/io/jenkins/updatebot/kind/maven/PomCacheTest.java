@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PomCacheTest {
+    protected File dir;
+
+    @Before
+    public void init() throws IOException {
+        dir = new File(Tests.getCleanWorkDir(getClass()));
+        writePom(new File(dir, "pom.xml"), "<modules><module>a</module></modules>" +
+                "<profiles><profile><modules><module>b/pom.xml</module><module>missing</module></modules></profile></profiles>");
+        writePom(new File(dir, "a/pom.xml"), "<modules><module>../c</module></modules>");
+        writePom(new File(dir, "b/pom.xml"), "");
+        writePom(new File(dir, "c/pom.xml"), "");
+        writePom(new File(dir, "examples/pom.xml"), "");
+        writePom(new File(dir, "a/target/pom.xml"), "");
+        writePom(new File(dir, "a/src/test/resources/testcase/pom.xml"), "");
+    }
+
+    @Test
+    public void testFollowModules() throws Exception {
+        PomCache cache = new PomCache(dir);
+        List<File> files = cache.findPomFiles(true, PomHelper.DEFAULT_IGNORE_PATTERNS);
+        assertThat(files).containsExactly(pom("pom.xml"), pom("a/pom.xml"), pom("b/pom.xml"), pom("c/pom.xml"));
+    }
+
+    @Test
+    public void testWalkDirectories() throws Exception {
+        PomCache cache = new PomCache(dir);
+        List<File> files = cache.findPomFiles(false, PomHelper.DEFAULT_IGNORE_PATTERNS);
+        assertThat(files).containsExactlyInAnyOrder(pom("pom.xml"), pom("a/pom.xml"), pom("b/pom.xml"), pom("c/pom.xml"), pom("examples/pom.xml"));
+        assertThat(files.get(0)).isEqualTo(pom("pom.xml"));
+    }
+
+    @Test
+    public void testDocumentsAreCachedUntilChanged() throws Exception {
+        PomCache cache = new PomCache(dir);
+        File file = pom("b/pom.xml");
+        assertThat(cache.getDocument(file)).isSameAs(cache.getDocument(file));
+
+        Object doc = cache.getDocument(file);
+        writePom(file, "<modules><module>../c</module></modules>");
+        assertThat(cache.getDocument(file)).isNotSameAs(doc);
+
+        doc = cache.getDocument(file);
+        cache.invalidate(file);
+        assertThat(cache.getDocument(file)).isNotSameAs(doc);
+    }
+
+    protected File pom(String path) {
+        return new File(dir, path).getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+    protected static void writePom(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        IOHelpers.writeFully(file, "<project>" + content + "</project>\n");
+    }
+}
@@ -18,10 +18,16 @@ package io.jenkins.updatebot.kind.maven;
 import de.pdark.decentxml.Document;
 import de.pdark.decentxml.Element;
 import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
 import io.fabric8.utils.Objects;
 import io.fabric8.utils.Strings;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.support.ThreadPools;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +37,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static io.jenkins.updatebot.support.DecentXmlHelper.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -199,4 +206,81 @@ public class PomHelperTest {
             assertChangesValid(file, doc, changes);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParallelPropertyMergeMatchesSequential() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        List<DependencyVersionChange> changes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // every module uses the same property for a different dependency so the last pom wins
+            changes.add(new DependencyVersionChange(Kind.MAVEN, "io.fabric8:lib-" + i, "1." + i, MavenScopes.ARTIFACT));
+        }
+
+        List<PomUpdateStatus> sequential = createSharedPropertyPoms(new File(dir, "sequential"), 8);
+        PomHelper.updatePomVersions(sequential, changes, null);
+
+        List<PomUpdateStatus> parallel = createSharedPropertyPoms(new File(dir, "parallel"), 8);
+        ExecutorService executor = ThreadPools.newFixedThreadPool("updatebot-pom-test", 4);
+        try {
+            PomHelper.updatePomVersions(parallel, changes, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(IOHelpers.readFully(sequential.get(0).getPom())).contains("<shared.version>1.7</shared.version>");
+        for (int i = 0; i < sequential.size(); i++) {
+            assertThat(IOHelpers.readFully(parallel.get(i).getPom())).describedAs("pom " + i)
+                    .isEqualTo(IOHelpers.readFully(sequential.get(i).getPom()));
+        }
+    }
+
+    @Test
+    public void testRepositoriesShareOnePomExecutor() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        Configuration configuration = new Configuration();
+        configuration.setPomParallelism(4);
+        List<DependencyVersionChange> changes = new ArrayList<>();
+        changes.add(new DependencyVersionChange(Kind.MAVEN, "io.fabric8:lib-0", "2.0", MavenScopes.ARTIFACT));
+
+        ExecutorService executor = configuration.getPomExecutor();
+        assertThat(executor).isNotNull();
+        for (String name : new String[]{"cheese", "wine"}) {
+            File repoDir = new File(dir, name);
+            createSharedPropertyPoms(repoDir, 2);
+            CommandContext context = new CommandContext(new LocalRepository(new GitRepository(name), repoDir), configuration);
+            assertThat(PomHelper.updatePomVersionsInPoms(context, changes)).describedAs(name).isTrue();
+            assertThat(IOHelpers.readFully(new File(repoDir, "pom.xml"))).describedAs(name).contains("<shared.version>2.0</shared.version>");
+
+            // the pool is reused by the next repository rather than created and shut down for each one
+            assertThat(configuration.getPomExecutor()).isSameAs(executor);
+            assertThat(executor.isShutdown()).isFalse();
+        }
+    }
+
+    /**
+     * Creates a root pom defining a property followed by the given number of module poms whose dependency uses it
+     */
+    protected static List<PomUpdateStatus> createSharedPropertyPoms(File dir, int modules) throws Exception {
+        List<File> files = new ArrayList<>();
+        File rootPom = new File(dir, "pom.xml");
+        dir.mkdirs();
+        IOHelpers.writeFully(rootPom, "<project><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.0</version>" +
+                "<properties><shared.version>1.0</shared.version></properties></project>");
+        files.add(rootPom);
+        for (int i = 0; i < modules; i++) {
+            File pom = new File(dir, "module" + i + "/pom.xml");
+            pom.getParentFile().mkdirs();
+            IOHelpers.writeFully(pom, "<project><artifactId>module" + i + "</artifactId><dependencies>" +
+                    "<dependency><groupId>io.fabric8</groupId><artifactId>lib-" + i + "</artifactId><version>${shared.version}</version></dependency>" +
+                    "</dependencies></project>");
+            files.add(pom);
+        }
+        List<PomUpdateStatus> answer = new ArrayList<>();
+        for (File file : files) {
+            PomUpdateStatus status = PomUpdateStatus.createPomUpdateStatus(file);
+            status.setRootPom(answer.isEmpty());
+            answer.add(status);
+        }
+        return answer;
+    }
+}
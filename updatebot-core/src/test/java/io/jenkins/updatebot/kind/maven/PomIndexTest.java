@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import de.pdark.decentxml.Document;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.support.DecentXmlHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PomIndexTest {
+    protected PomIndex index;
+
+    @Before
+    public void init() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        dir.mkdirs();
+        File file = new File(dir, "pom.xml");
+        IOHelpers.writeFully(file, "<project>" +
+                "<parent><groupId>io.fabric8</groupId><artifactId>fabric8-parent</artifactId><version>1.0.0</version></parent>" +
+                "<artifactId>demo</artifactId>" +
+                "<properties><kubernetes.version>3.1.0</kubernetes.version><fabric8.version>2.0.0</fabric8.version></properties>" +
+                "<dependencyManagement><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-client</artifactId><version>${kubernetes.version}</version></dependency>" +
+                "</dependencies></dependencyManagement>" +
+                "<dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-client</artifactId></dependency>" +
+                "<dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.12</version></dependency>" +
+                "</dependencies>" +
+                "<build><pluginManagement><plugins>" +
+                "<plugin><groupId>io.fabric8</groupId><artifactId>fabric8-maven-plugin</artifactId><version>${fabric8.version}</version>" +
+                "<dependencies><dependency><groupId>io.fabric8</groupId><artifactId>docker-client</artifactId><version>1.0.0</version></dependency></dependencies>" +
+                "</plugin>" +
+                "</plugins></pluginManagement><plugins>" +
+                "<plugin><artifactId>maven-compiler-plugin</artifactId><version>3.6.0</version></plugin>" +
+                "</plugins></build></project>");
+        index = new PomIndex(DecentXmlHelper.parseXmlFile(file));
+    }
+
+    @Test
+    public void testIndexesElements() throws Exception {
+        assertThat(index.getParents("io.fabric8:fabric8-parent")).hasSize(1);
+
+        // the managed dependency and the dependency are both indexed along with the dependencies of plugins
+        assertThat(index.getDependencies("io.fabric8:kubernetes-client")).hasSize(2);
+        assertThat(index.getDependencies("io.fabric8:docker-client")).hasSize(1);
+        assertThat(index.getDependencies("junit:junit")).hasSize(1);
+        assertThat(index.getDependencies("io.fabric8:fabric8-parent")).isEmpty();
+
+        // plugins without a group id default to the maven plugin group
+        assertThat(index.getPlugins("org.apache.maven.plugins:maven-compiler-plugin")).hasSize(1);
+        assertThat(index.getPlugins("io.fabric8:fabric8-maven-plugin")).hasSize(1);
+
+        assertThat(index.getProperty("kubernetes.version").getText()).isEqualTo("3.1.0");
+        assertThat(index.getProperty("fabric8.version").getText()).isEqualTo("2.0.0");
+        assertThat(index.getProperty("unknown.version")).isNull();
+    }
+
+    @Test
+    public void testUpdatesVersionsAndProperties() throws Exception {
+        Map<String, String> propertyChanges = new TreeMap<>();
+        assertThat(PomHelper.updateDependencyVersion(index, new DependencyVersionChange(Kind.MAVEN, "io.fabric8:kubernetes-client", "3.2.0"), propertyChanges)).isFalse();
+        assertThat(PomHelper.updatePluginVersion(index, new DependencyVersionChange(Kind.MAVEN, "io.fabric8:fabric8-maven-plugin", "2.1.0", MavenScopes.PLUGIN), propertyChanges, false)).isFalse();
+        assertThat(propertyChanges).containsEntry("kubernetes.version", "3.2.0").containsEntry("fabric8.version", "2.1.0").hasSize(2);
+
+        assertThat(PomHelper.updatePluginVersion(index, new DependencyVersionChange(Kind.MAVEN, "org.apache.maven.plugins:maven-compiler-plugin", "3.7.0", MavenScopes.PLUGIN), propertyChanges, false)).isTrue();
+        assertThat(PomHelper.updateProperties(index, propertyChanges)).isTrue();
+
+        Document doc = index.getDocument();
+        String xml = doc.toXML();
+        assertThat(xml).contains("<kubernetes.version>3.2.0</kubernetes.version>");
+        assertThat(xml).contains("<fabric8.version>2.1.0</fabric8.version>");
+        assertThat(xml).contains("<artifactId>maven-compiler-plugin</artifactId><version>3.7.0</version>");
+    }
+}
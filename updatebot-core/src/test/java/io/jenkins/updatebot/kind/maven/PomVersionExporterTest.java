@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.maven;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.MavenArtifactKey;
+import io.jenkins.updatebot.model.MavenDependencies;
+import io.jenkins.updatebot.model.MavenDependencyFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PomVersionExporterTest {
+    protected File dir;
+    protected File localRepository;
+    protected Configuration configuration = new Configuration();
+    protected Dependencies dependencies = new Dependencies();
+
+    @Before
+    public void init() throws IOException {
+        File workDir = new File(Tests.getCleanWorkDir(getClass()));
+        dir = new File(workDir, "reactor");
+        localRepository = new File(workDir, "repository");
+        MavenDependencyFilter filter = new MavenDependencyFilter();
+        filter.setGroupInclude("io.fabric8");
+        MavenDependencies mavenDependencies = new MavenDependencies();
+        mavenDependencies.setDependencies(Collections.singletonList(filter));
+        dependencies.setMaven(mavenDependencies);
+
+        writeFile("pom.xml", "<project><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version>" +
+                "<packaging>pom</packaging><modules><module>a</module></modules>" +
+                "<properties><fabric8.version>3.0.0</fabric8.version></properties>" +
+                "<dependencyManagement><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-api</artifactId><version>${fabric8.version}</version></dependency>" +
+                "</dependencies></dependencyManagement></project>");
+    }
+
+    @Test
+    public void testExportReactorVersions() throws Exception {
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-api</artifactId></dependency>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>fabric8-utils</artifactId><version>2.0.0</version></dependency>" +
+                "<dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.12</version></dependency>" +
+                "</dependencies></project>");
+
+        List<DependencyVersionChange> changes = exportVersions();
+        assertThat(changes).isNotNull();
+        assertThat(changes).extracting(DependencyVersionChange::getDependency).containsExactly(
+                "io.fabric8:fabric8-utils", "io.fabric8:kubernetes-api", "io.jenkins.updatebot:a", "io.jenkins.updatebot:root");
+        assertThat(changes).extracting(DependencyVersionChange::getVersion).containsExactly("2.0.0", "3.0.0", "1.2.3", "1.2.3");
+    }
+
+    @Test
+    public void testUnresolvedVersionsNeedMaven() throws Exception {
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>fabric8-utils</artifactId><version>${external.version}</version></dependency>" +
+                "</dependencies></project>");
+
+        assertThat(exportVersions()).isNull();
+    }
+
+    @Test
+    public void testExportPluginsAndManagedDependencies() throws Exception {
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId>" +
+                "<dependencyManagement><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-model</artifactId><version>2.0.1</version></dependency>" +
+                "</dependencies></dependencyManagement>" +
+                "<build><pluginManagement><plugins>" +
+                "<plugin><groupId>io.fabric8</groupId><artifactId>fabric8-maven-plugin</artifactId><version>3.5.1</version></plugin>" +
+                "</plugins></pluginManagement><plugins>" +
+                "<plugin><groupId>io.fabric8</groupId><artifactId>fabric8-maven-plugin</artifactId></plugin>" +
+                "<plugin><artifactId>maven-compiler-plugin</artifactId></plugin>" +
+                "</plugins></build></project>");
+
+        List<DependencyVersionChange> changes = exportVersions();
+        assertThat(changes).isNotNull();
+        assertThat(changes).extracting(DependencyVersionChange::getDependency).containsExactly(
+                "io.fabric8:fabric8-maven-plugin", "io.fabric8:kubernetes-api", "io.fabric8:kubernetes-model", "io.jenkins.updatebot:a", "io.jenkins.updatebot:root");
+        assertThat(changes).extracting(DependencyVersionChange::getVersion).containsExactly("3.5.1", "3.0.0", "2.0.1", "1.2.3", "1.2.3");
+        assertThat(changes).extracting(DependencyVersionChange::getScope).containsExactly(
+                MavenScopes.PLUGIN, MavenScopes.DEPENDENCY, MavenScopes.DEPENDENCY, MavenScopes.ARTIFACT, MavenScopes.ARTIFACT);
+    }
+
+    @Test
+    public void testImportedBomNeedsMaven() throws Exception {
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId><dependencyManagement><dependencies>" +
+                "<dependency><groupId>org.springframework.boot</groupId><artifactId>spring-boot-dependencies</artifactId>" +
+                "<version>1.5.8.RELEASE</version><type>pom</type><scope>import</scope></dependency>" +
+                "</dependencies></dependencyManagement></project>");
+
+        assertThat(exportVersions()).isNull();
+    }
+
+    @Test
+    public void testImportedBomFromLocalRepository() throws Exception {
+        writeFile(localRepository, "org/acme/acme-bom/1.0/acme-bom-1.0.pom", "<project><groupId>org.acme</groupId><artifactId>acme-bom</artifactId>" +
+                "<version>1.0</version><packaging>pom</packaging><properties><kubernetes.version>3.1.0</kubernetes.version></properties>" +
+                "<dependencyManagement><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-client</artifactId><version>${kubernetes.version}</version></dependency>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-api</artifactId><version>2.0.0</version></dependency>" +
+                "</dependencies></dependencyManagement></project>");
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId><dependencyManagement><dependencies>" +
+                "<dependency><groupId>org.acme</groupId><artifactId>acme-bom</artifactId><version>1.0</version><type>pom</type><scope>import</scope></dependency>" +
+                "</dependencies></dependencyManagement><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-client</artifactId></dependency>" +
+                "</dependencies></project>");
+
+        List<DependencyVersionChange> changes = exportVersions();
+        assertThat(changes).isNotNull();
+        // the version managed by the reactor takes precedence over the imported BOM
+        assertThat(changes).extracting(DependencyVersionChange::getDependency).containsExactly(
+                "io.fabric8:kubernetes-api", "io.fabric8:kubernetes-client", "io.jenkins.updatebot:a", "io.jenkins.updatebot:root");
+        assertThat(changes).extracting(DependencyVersionChange::getVersion).containsExactly("3.0.0", "3.1.0", "1.2.3", "1.2.3");
+    }
+
+    @Test
+    public void testLifecyclePlugins() throws Exception {
+        MavenDependencyFilter filter = new MavenDependencyFilter();
+        filter.setGroupInclude(MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP);
+        filter.setArtifactInclude("maven-compiler-plugin");
+        dependencies.getMaven().setDependencies(Collections.singletonList(filter));
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId></project>");
+
+        // the version of a plugin bound to the lifecycle depends on the version of maven unless it is managed
+        assertThat(exportVersions()).isNull();
+
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId><build><pluginManagement><plugins>" +
+                "<plugin><artifactId>maven-compiler-plugin</artifactId><version>3.7.0</version></plugin>" +
+                "</plugins></pluginManagement></build></project>");
+
+        List<DependencyVersionChange> changes = exportVersions();
+        assertThat(changes).isNotNull();
+        assertThat(changes).extracting(DependencyVersionChange::getDependency).containsExactly(
+                "io.jenkins.updatebot:a", "io.jenkins.updatebot:root", "org.apache.maven.plugins:maven-compiler-plugin");
+        assertThat(changes).extracting(DependencyVersionChange::getVersion).containsExactly("1.2.3", "1.2.3", "3.7.0");
+    }
+
+    @Test
+    public void testProfiles() throws Exception {
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId><profiles>" +
+                "<profile><id>default</id><activation><activeByDefault>true</activeByDefault></activation><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>fabric8-utils</artifactId><version>2.0.0</version></dependency>" +
+                "</dependencies></profile>" +
+                "<profile><id>explicit</id><dependencies>" +
+                "<dependency><groupId>io.fabric8</groupId><artifactId>kubernetes-model</artifactId><version>2.0.0</version></dependency>" +
+                "</dependencies></profile>" +
+                "</profiles></project>");
+
+        List<DependencyVersionChange> changes = exportVersions();
+        assertThat(changes).isNotNull();
+        assertThat(changes).extracting(DependencyVersionChange::getDependency).containsExactly(
+                "io.fabric8:fabric8-utils", "io.fabric8:kubernetes-api", "io.jenkins.updatebot:a", "io.jenkins.updatebot:root");
+
+        writeFile("a/pom.xml", "<project><parent><groupId>io.jenkins.updatebot</groupId><artifactId>root</artifactId><version>1.2.3</version></parent>" +
+                "<artifactId>a</artifactId><profiles>" +
+                "<profile><id>ci</id><activation><property><name>env.CI</name></property></activation>" +
+                "<properties><fabric8.version>3.1.0</fabric8.version></properties></profile>" +
+                "</profiles></project>");
+
+        // the profile may be activated by the environment
+        assertThat(exportVersions()).isNull();
+    }
+
+    /**
+     * Compares the versions exported from the reactor in <code>src/test/resources/maven/export</code> with the
+     * versions file the export goal of the maven plugin generates for it using the same local repository
+     */
+    @Test
+    public void testExportMatchesMavenPlugin() throws Exception {
+        File exportDir = Tests.testFile(Tests.getBasedir(), "src/test/resources/maven/export/updatebot-versions.txt").getParentFile();
+        MavenDependencyFilter fabric8 = new MavenDependencyFilter();
+        fabric8.setGroupInclude("io.fabric8");
+        MavenDependencyFilter compiler = new MavenDependencyFilter();
+        compiler.setGroupInclude(MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP);
+        compiler.setArtifactInclude("maven-compiler-plugin");
+        MavenDependencyFilter surefire = new MavenDependencyFilter();
+        surefire.setGroupInclude(MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP);
+        surefire.setArtifactInclude("maven-surefire-plugin");
+        dependencies.getMaven().setDependencies(Arrays.asList(fabric8, compiler, surefire));
+
+        List<DependencyVersionChange> changes = PomVersionExporter.exportVersions(configuration, new PomCache(new File(exportDir, "reactor")),
+                dependencies, new File(exportDir, "repository"));
+        List<DependencyVersionChange> expected = MavenVersionsFile.read(new File(exportDir, "updatebot-versions.txt"));
+
+        assertThat(changes).isNotNull();
+        assertThat(changes).extracting(DependencyVersionChange::getDependency).containsExactlyElementsOf(
+                expected.stream().map(DependencyVersionChange::getDependency).collect(Collectors.toList()));
+        assertThat(changes).extracting(DependencyVersionChange::getVersion).containsExactlyElementsOf(
+                expected.stream().map(DependencyVersionChange::getVersion).collect(Collectors.toList()));
+        assertThat(changes).extracting(DependencyVersionChange::getScope).containsExactlyElementsOf(
+                expected.stream().map(DependencyVersionChange::getScope).collect(Collectors.toList()));
+    }
+
+    protected List<DependencyVersionChange> exportVersions() throws IOException {
+        return PomVersionExporter.exportVersions(configuration, new PomCache(dir), dependencies, localRepository);
+    }
+
+    protected void writeFile(String path, String content) throws IOException {
+        writeFile(dir, path, content);
+    }
+
+    protected void writeFile(File baseDir, String path, String content) throws IOException {
+        File file = new File(baseDir, path);
+        file.getParentFile().mkdirs();
+        IOHelpers.writeFully(file, content);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.kind.npm.dependency.DependencyTree;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class LockfileNpmDependencyTreeGeneratorTest {
+    protected ObjectMapper mapper = new ObjectMapper();
+    protected String packageJson = "{\"name\": \"fabric8-planner\", \"version\": \"0.0.1\", " +
+            "\"dependencies\": {\"ngx-base\": \"^1.0.0\", \"ngx-widgets\": \"^1.0.0\"}}";
+
+    @Test
+    public void testPackagesLockFile() throws Exception {
+        String lockJson = "{\"name\": \"fabric8-planner\", \"lockfileVersion\": 2, \"packages\": {" +
+                "\"\": {\"version\": \"0.0.1\", \"dependencies\": {\"ngx-base\": \"^1.0.0\", \"ngx-widgets\": \"^1.0.0\"}}, " +
+                "\"node_modules/ngx-base\": {\"version\": \"1.0.0\"}, " +
+                "\"node_modules/ngx-widgets\": {\"version\": \"1.2.0\", \"dependencies\": {\"ngx-base\": \"^2.0.0\"}}, " +
+                "\"node_modules/ngx-widgets/node_modules/ngx-base\": {\"version\": \"2.0.0\"}}}";
+
+        DependencyTree tree = createDependencyTree(lockJson);
+
+        assertThat(tree.getDependencyInfo("ngx-base").getVersion()).isEqualTo("1.0.0");
+        assertThat(tree.getDependencyInfo("ngx-widgets").getVersion()).isEqualTo("1.2.0");
+        assertThat(tree.dependencyCheck("ngx-base").isValid()).isFalse();
+        assertThat(tree.dependencyCheck("ngx-widgets").isValid()).isTrue();
+    }
+
+    @Test
+    public void testLegacyLockFile() throws Exception {
+        String lockJson = "{\"name\": \"fabric8-planner\", \"version\": \"0.0.1\", \"lockfileVersion\": 1, \"dependencies\": {" +
+                "\"ngx-base\": {\"version\": \"1.0.0\"}, " +
+                "\"ngx-widgets\": {\"version\": \"1.2.0\", \"requires\": {\"ngx-base\": \"^1.0.0\"}}}}";
+
+        DependencyTree tree = createDependencyTree(lockJson);
+
+        assertThat(tree.getDependencyInfo("ngx-base").getVersions()).containsOnlyKeys("1.0.0");
+        assertThat(tree.dependencyCheck("ngx-base").isValid()).isTrue();
+        assertThat(tree.dependencyCheck("ngx-widgets").isValid()).isTrue();
+    }
+
+    protected DependencyTree createDependencyTree(String lockJson) throws Exception {
+        JsonNode json = LockfileNpmDependencyTreeGenerator.createDependencyTree(mapper.readTree(packageJson), mapper.readTree(lockJson));
+        return DependencyTree.parseTree(json);
+    }
+}
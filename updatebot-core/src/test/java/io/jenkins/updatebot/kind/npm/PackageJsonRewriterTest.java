@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PackageJsonRewriterTest {
+    protected String json = "{\n" +
+            "  \"name\": \"@angular/core\",\n" +
+            "  \"version\" : \"4.3.6\",\n" +
+            "  \"dependencies\": {\"@angular/core\":   \"4.3.6\", \"rxjs\": \"5.4.2\"},\n" +
+            "  \"devDependencies\": {\n" +
+            "\t\"@angular/compiler\" : \"4.3.6\"\n" +
+            "  },\n" +
+            "  \"config\": {\"rxjs\": \"5.0.0\"}\n" +
+            "}\n";
+
+    @Test
+    public void testUpdateVersionsPreservesFormatting() throws Exception {
+        Map<String, String> versions = new HashMap<>();
+        versions.put("@angular/core", "4.3.7");
+        versions.put("@angular/compiler", "4.3.7");
+        versions.put("rxjs", "5.4.2");
+
+        String actual = PackageJsonRewriter.updateVersions(json, (dependencyKey, name, version) -> versions.get(name));
+
+        assertThat(actual).isEqualTo(json.
+                replace("{\"@angular/core\":   \"4.3.6\"", "{\"@angular/core\":   \"4.3.7\"").
+                replace("\"@angular/compiler\" : \"4.3.6\"", "\"@angular/compiler\" : \"4.3.7\""));
+    }
+
+    @Test
+    public void testNoChangesReturnsNull() throws Exception {
+        assertThat(PackageJsonRewriter.updateVersions(json, (dependencyKey, name, version) -> null)).isNull();
+    }
+}
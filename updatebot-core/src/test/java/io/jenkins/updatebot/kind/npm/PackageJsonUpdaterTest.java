@@ -20,14 +20,22 @@ import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.commands.PushVersionChangesContext;
 import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.GitRepository;
 import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.support.FileHelper;
 import io.jenkins.updatebot.support.MarkupHelper;
 import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static io.fabric8.updatebot.test.MarkupAssertions.assertTextValue;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -58,6 +66,48 @@ public class PackageJsonUpdaterTest {
         assertUpdatePackageJson(packageJson, "devDependencies", "@angular/compiler", "4.3.7");
     }
 
+    @Test
+    public void testPushVersionsAppliesAllChangesInOneWrite() throws Exception {
+        String json = "{\n" +
+                "  \"name\" : \"demo\",\n" +
+                "  \"dependencies\": {\"@angular/core\":   \"4.3.6\", \"rxjs\": \"5.4.2\"},\n" +
+                "  \"devDependencies\": {\n" +
+                "\t\"@angular/compiler\" : \"4.3.6\"\n" +
+                "  }\n" +
+                "}\n";
+        File dir = new File(Tests.getCleanWorkDir(getClass()), "push-versions");
+        File file = new File(dir, "package.json");
+        dir.mkdirs();
+        IOHelpers.writeFully(file, json);
+        CommandContext context = new CommandContext(new LocalRepository(new GitRepository("cheese"), dir), configuration);
+        RecordingPackageJsonUpdater recordingUpdater = new RecordingPackageJsonUpdater();
+
+        assertThat(recordingUpdater.pushVersions(context, Arrays.asList(
+                new DependencyVersionChange(Kind.NPM, "@angular/core", "4.3.7", NpmDependencyKinds.DEPENDENCIES),
+                new DependencyVersionChange(Kind.NPM, "@angular/compiler", "4.3.7", NpmDependencyKinds.DEV_DEPENDENCIES),
+                new DependencyVersionChange(Kind.NPM, "rxjs", "5.4.2", NpmDependencyKinds.DEPENDENCIES),
+                new DependencyVersionChange(Kind.NPM, "lodash", "4.17.4", NpmDependencyKinds.DEPENDENCIES),
+                new DependencyVersionChange(Kind.NPM, "@angular/compiler", "4.3.8", NpmDependencyKinds.DEV_DEPENDENCIES)))).isTrue();
+
+        // the file is written once with the last change of each dependency and its formatting preserved
+        assertThat(recordingUpdater.files).containsExactly(file);
+        assertThat(IOHelpers.readFully(file)).isEqualTo(json.
+                replace("{\"@angular/core\":   \"4.3.6\"", "{\"@angular/core\":   \"4.3.7\"").
+                replace("\"@angular/compiler\" : \"4.3.6\"", "\"@angular/compiler\" : \"4.3.8\""));
+
+        // only the contexts which changed the file remain; the superseded and unchanged ones are removed
+        List<CommandContext> children = context.getChildren();
+        assertThat(children).hasSize(2);
+        PushVersionChangesContext core = (PushVersionChangesContext) children.get(0);
+        PushVersionChangesContext compiler = (PushVersionChangesContext) children.get(1);
+        assertThat(core.getName()).isEqualTo("@angular/core");
+        assertThat(core.change("@angular/core").getOldValue()).isEqualTo("4.3.6");
+        assertThat(compiler.getName()).isEqualTo("@angular/compiler");
+        assertThat(compiler.getValue()).isEqualTo("4.3.8");
+        assertThat(compiler.change("@angular/compiler").getNewValue()).isEqualTo("4.3.8");
+        assertThat(compiler.getChanges()).hasSize(1);
+    }
+
     public void assertUpdatePackageJson(File packageJson, String dependencyKey, String name, String version) throws IOException {
         PushVersionChangesContext context = parentContext.updateVersion(Kind.NPM, name, version);
         assertThat(updater.isApplicable(context)).
@@ -77,4 +127,25 @@ public class PackageJsonUpdaterTest {
         System.out.println("Updated file " + packageJson + " " + dependencyKey + " " + name + " to version " + updatedVersion);
     }
 
+    /**
+     * Applies to any package.json without probing for npm and records the files which are written
+     */
+    protected static class RecordingPackageJsonUpdater extends PackageJsonUpdater {
+        private final List<File> files = new ArrayList<>();
+
+        @Override
+        public boolean isApplicable(CommandContext context) {
+            return FileHelper.isFile(context.file("package.json"));
+        }
+
+        @Override
+        protected boolean pushVersions(File file, Map<String, PushVersionChangesContext> contexts) throws IOException {
+            boolean answer = super.pushVersions(file, contexts);
+            if (answer) {
+                files.add(file);
+            }
+            return answer;
+        }
+    }
+
 }
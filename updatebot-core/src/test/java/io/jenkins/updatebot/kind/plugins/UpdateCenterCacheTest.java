@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.plugins;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class UpdateCenterCacheTest {
+    protected Configuration configuration = new Configuration();
+    protected File updateCenter;
+
+    @Before
+    public void init() throws Exception {
+        UpdateCenterCache.clearCaches();
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        dir.mkdirs();
+        updateCenter = new File(dir, "update-center.actual.json");
+        configuration.setWorkDir(new File(dir, "work").getPath());
+        configuration.setPluginsUpdateCenterUrl(updateCenter.getPath());
+    }
+
+    @Test
+    public void testLoadsOnlyPluginVersions() throws Exception {
+        writeUpdateCenter("3.0.0");
+
+        PluginVersions versions = UpdateCenterCache.getPluginVersions(configuration);
+        assertThat(versions.getVersions()).containsOnlyKeys("branch-api", "git");
+        assertThat(versions.getVersion("branch-api")).isEqualTo("3.0.0");
+        assertThat(versions.getVersion("git")).isEqualTo("3.6.4");
+        assertThat(new File(configuration.getWorkDir(), UpdateCenterCache.DIRECTORY).listFiles()).hasSize(1);
+    }
+
+    @Test
+    public void testRefreshesAfterTimeToLive() throws Exception {
+        writeUpdateCenter("3.0.0");
+        assertThat(UpdateCenterCache.getPluginVersions(configuration).getVersion("branch-api")).isEqualTo("3.0.0");
+
+        writeUpdateCenter("3.0.1");
+        assertThat(UpdateCenterCache.getPluginVersions(configuration).getVersion("branch-api")).isEqualTo("3.0.0");
+
+        configuration.setPluginsUpdateCenterTtl(0);
+        assertThat(UpdateCenterCache.getPluginVersions(configuration).getVersion("branch-api")).isEqualTo("3.0.1");
+    }
+
+    protected void writeUpdateCenter(String branchApiVersion) throws IOException {
+        IOHelpers.writeFully(updateCenter, "{\"connectionCheckUrl\": \"http://www.google.com/\", \"core\": {\"name\": \"core\", \"version\": \"2.89\"}, " +
+                "\"plugins\": {" +
+                "\"branch-api\": {\"name\": \"branch-api\", \"version\": \"" + branchApiVersion + "\", \"title\": \"Branch API\", " +
+                "\"dependencies\": [{\"name\": \"scm-api\", \"optional\": false, \"version\": \"2.2.0\"}]}, " +
+                "\"git\": {\"url\": \"http://updates.jenkins-ci.org/download/plugins/git/3.6.4/git.hpi\", \"version\": \"3.6.4\", \"wiki\": \"https://wiki.jenkins.io/display/JENKINS/Git+Plugin\"}}, " +
+                "\"updateCenterVersion\": \"1\"}");
+    }
+}
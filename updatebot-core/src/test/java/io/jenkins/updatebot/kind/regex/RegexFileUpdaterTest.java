@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.regex;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class RegexFileUpdaterTest {
+    protected String text = "name: foo\nversion: 1.0\nimage: bar:1.0\n  version: 1.0\n";
+
+    @Test
+    public void testAppliesAllPatternsInOnePass() throws Exception {
+        RegexFileUpdater updater = new RegexFileUpdater(Arrays.asList("version: (.*)", "image: bar:(.*)"), null, "2.0");
+        StringWriter writer = new StringWriter();
+
+        assertThat(updater.update(new StringReader(text), writer)).isTrue();
+        assertThat(writer.toString()).isEqualTo("name: foo\nversion: 2.0\nimage: bar:2.0\n  version: 1.0\n");
+    }
+
+    @Test
+    public void testPreviousLinePattern() throws Exception {
+        RegexFileUpdater updater = new RegexFileUpdater(Collections.singletonList("\\s*version: (.*)"), "name: foo", "3.0");
+        StringWriter writer = new StringWriter();
+
+        assertThat(updater.update(new StringReader(text), writer)).isTrue();
+        assertThat(writer.toString()).isEqualTo("name: foo\nversion: 3.0\nimage: bar:1.0\n  version: 1.0\n");
+    }
+
+    @Test
+    public void testOnlyReplacesChangedFiles() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        dir.mkdirs();
+        File file = new File(dir, "values.yaml");
+        IOHelpers.writeFully(file, text);
+        long lastModified = file.lastModified();
+
+        assertThat(new RegexFileUpdater(Collections.singletonList("version: (.*)"), null, "1.0").updateFile(file)).isFalse();
+        assertThat(file.lastModified()).isEqualTo(lastModified);
+
+        assertThat(new RegexFileUpdater(Collections.singletonList("version: (.*)"), null, "4.0").updateFile(file)).isTrue();
+        assertThat(IOHelpers.readFully(file)).isEqualTo("name: foo\nversion: 4.0\nimage: bar:1.0\n  version: 1.0\n");
+        assertThat(dir.list()).containsOnly("values.yaml");
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.regex;
+
+import io.fabric8.updatebot.test.CommandAssertions;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.CommandNames;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.commands.PushRegexChanges;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class RegexUpdaterTest {
+    private static final int FILE_COUNT = 12;
+
+    protected File workDir;
+    protected PushRegexChanges command;
+
+    @Before
+    public void init() throws Exception {
+        workDir = new File(Tests.getCleanWorkDir(getClass()));
+        command = CommandAssertions.assertParseCommand(PushRegexChanges.class, CommandNames.PUSH_REGEX, "*.yaml",
+                "-r", "version: (.*)", "-v", "2.0");
+    }
+
+    @Test
+    public void testParallelUpdatesMatchSequential() throws Exception {
+        CommandContext sequential = pushRegex("sequential", 1);
+        CommandContext parallel = pushRegex("parallel", 4);
+
+        List<String> expected = relativePaths(sequential);
+        assertThat(expected).containsExactly("charts/chart0/values.yaml", "charts/chart10/values.yaml", "charts/chart2/values.yaml",
+                "charts/chart4/values.yaml", "charts/chart6/values.yaml", "charts/chart8/values.yaml");
+        assertThat(relativePaths(parallel)).isEqualTo(expected);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            String path = "charts/chart" + i + "/values.yaml";
+            assertThat(IOHelpers.readFully(new File(parallel.getDir(), path))).describedAs(path)
+                    .isEqualTo(IOHelpers.readFully(new File(sequential.getDir(), path)));
+        }
+        assertThat(IOHelpers.readFully(new File(parallel.getDir(), "charts/chart0/values.yaml"))).contains("version: 2.0");
+        assertThat(IOHelpers.readFully(new File(parallel.getDir(), "README.md"))).contains("version: 1.0");
+    }
+
+    /**
+     * Creates a repository with the same files in the given directory and applies the regex command to it
+     */
+    protected CommandContext pushRegex(String name, int parallelism) throws IOException {
+        File dir = new File(workDir, name).getAbsoluteFile();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            // only the even charts have a version to replace
+            String content = i % 2 == 0 ? "name: chart" + i + "\nversion: 1.0\n" : "name: chart" + i + "\n";
+            writeFile(new File(dir, "charts/chart" + i + "/values.yaml"), content);
+        }
+        writeFile(new File(dir, "README.md"), "version: 1.0\n");
+
+        Configuration configuration = new Configuration();
+        configuration.setRegexParallelism(parallelism);
+        CommandContext context = new CommandContext(new LocalRepository(new GitRepository(name), dir), configuration);
+        new RegexUpdater().pushRegex(command, context);
+        return context;
+    }
+
+    protected static List<String> relativePaths(CommandContext context) {
+        List<String> answer = new ArrayList<>();
+        for (File file : context.getUpdatedFiles()) {
+            answer.add(context.getDir().toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
+        }
+        return answer;
+    }
+
+    protected static void writeFile(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        IOHelpers.writeFully(file, content);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.support;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class FileIndexTest {
+    protected File dir;
+    protected FileIndex index;
+
+    @Before
+    public void init() throws Exception {
+        dir = new File(Tests.getCleanWorkDir(getClass()));
+        writeFile("Dockerfile");
+        writeFile("src/main/docker/Dockerfile");
+        writeFile("charts/foo/Chart.yaml");
+        writeFile("charts/foo/values.yaml");
+        writeFile("node_modules/bar/Dockerfile");
+        writeFile("target/classes/Chart.yaml");
+        writeFile(".git/config");
+        index = new FileIndex(dir);
+    }
+
+    @Test
+    public void testFindFilesSkipsIgnoredDirectories() throws Exception {
+        assertThat(index.findFilesNamed("Dockerfile")).containsOnly(file("Dockerfile"), file("src/main/docker/Dockerfile"));
+        assertThat(index.findFiles(name -> name.equals("Dockerfile"), false)).containsOnly(file("Dockerfile"));
+        assertThat(index.findFilesNamed("Chart.yaml")).containsOnly(file("charts/foo/Chart.yaml"));
+        assertThat(index.hasFileNamed("config")).isFalse();
+        assertThat(index.hasExtension("yaml")).isTrue();
+        assertThat(index.hasExtension("js")).isFalse();
+    }
+
+    @Test
+    public void testFindFilesByGlob() throws Exception {
+        assertThat(index.findFilesByGlob("charts/**/*.yaml")).containsOnly(file("charts/foo/Chart.yaml"), file("charts/foo/values.yaml"));
+    }
+
+    @Test
+    public void testWrittenFilesAreAdded() throws Exception {
+        assertThat(index.hasFileNamed("requirements.yaml")).isFalse();
+
+        writeFile("charts/foo/requirements.yaml");
+        index.fileWritten(file("charts/foo/requirements.yaml"));
+        index.fileWritten(file("charts/foo/values.yaml"));
+
+        assertThat(index.findFilesNamed("requirements.yaml")).containsOnly(file("charts/foo/requirements.yaml"));
+        assertThat(index.findFilesNamed("values.yaml")).hasSize(1);
+    }
+
+    protected File file(String path) {
+        return new File(dir, path).getAbsoluteFile();
+    }
+
+    protected void writeFile(String path) throws IOException {
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        IOHelpers.writeFully(file, path + "\n");
+    }
+}
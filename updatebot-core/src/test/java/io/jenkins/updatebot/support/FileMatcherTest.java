@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.support;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class FileMatcherTest {
+    protected AntPathMatcher pathMatcher = new AntPathMatcher(File.pathSeparator);
+
+    @Test
+    public void testMatchesLikeAntPathMatcher() throws Exception {
+        List<String> patterns = Arrays.asList("plugins.txt", "**/*.yaml", "src/*/x?.txt", "*.{name}", "**");
+        List<String> paths = Arrays.asList("plugins.txt", "a/plugins.txt", "charts/Chart.yaml", "a.yaml", "src/a/b/x1.txt", "src/x12.txt", "a.json");
+        for (String pattern : patterns) {
+            FileMatcher matcher = new FileMatcher(Collections.singletonList(pattern), Collections.emptyList());
+            for (String path : paths) {
+                assertThat(matcher.matches(path)).describedAs("pattern " + pattern + " path " + path).isEqualTo(pathMatcher.match(pattern, path));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchFilesSkipsExcludes() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        for (String path : Arrays.asList("plugins.txt", "docker/plugins.txt", "other/plugins.txt", "charts/foo/values.yaml")) {
+            File file = new File(dir, path);
+            file.getParentFile().mkdirs();
+            IOHelpers.writeFully(file, path);
+        }
+
+        FileMatcher matcher = new FileMatcher(Arrays.asList("plugins.txt", "docker/*.txt"), Collections.singletonList("other/**"));
+        assertThat(matcher.matchFiles(dir)).containsOnly(new File(dir, "plugins.txt"), new File(dir, "docker/plugins.txt"));
+    }
+}
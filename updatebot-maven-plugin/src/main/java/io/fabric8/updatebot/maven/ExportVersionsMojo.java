@@ -17,6 +17,7 @@ package io.fabric8.updatebot.maven;
 
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.kind.maven.MavenScopes;
+import io.jenkins.updatebot.kind.maven.MavenVersionsFile;
 import io.fabric8.updatebot.maven.support.MavenHelper;
 import io.jenkins.updatebot.model.Dependencies;
 import io.jenkins.updatebot.model.GitRepositoryConfig;
@@ -29,8 +30,9 @@ import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.model.RepositoryConfigs;
 import io.jenkins.updatebot.support.MarkupHelper;
 import io.fabric8.utils.Filter;
-import io.fabric8.utils.Filters;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -48,7 +50,11 @@ import java.util.TreeMap;
 
 /**
  * Exports the versions from the source code of the current project so that we can apply the versions
- * to other projects
+ * to other projects.
+ * <p>
+ * The artifacts of the reactor are exported along with any dependencies, build plugins and managed dependencies
+ * which match the push configuration. If the destination file ends with <code>.yml</code> or <code>.yaml</code>
+ * then YAML is written otherwise the compact format of {@link MavenVersionsFile} is used.
  */
 @Mojo(name = "export", aggregator = true, requiresProject = true,
         requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
@@ -69,6 +75,13 @@ public class ExportVersionsMojo extends AbstractMojo {
         exportVersions.put(artifactKey, new MavenArtifactVersionChange(artifactKey, version, scope));
     }
 
+    /**
+     * Adds a managed dependency unless the artifact has already been exported as an artifact, dependency or plugin
+     */
+    protected static void addManagedArtifact(Map<MavenArtifactKey, MavenArtifactVersionChange> exportVersions, MavenArtifactKey artifactKey, String version) {
+        exportVersions.putIfAbsent(artifactKey, new MavenArtifactVersionChange(artifactKey, version, MavenScopes.DEPENDENCY));
+    }
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         Log log = getLog();
@@ -95,13 +108,7 @@ public class ExportVersionsMojo extends AbstractMojo {
                 mavenDependencies = push.getMaven();
             }
         }
-        Filter<MavenArtifactKey> dependencyFilter = Filters.falseFilter();
-        if (mavenDependencies != null) {
-            List<MavenDependencyFilter> dependencies = mavenDependencies.getDependencies();
-            if (dependencies != null) {
-                dependencyFilter = MavenDependencyFilter.createFilter(dependencies);
-            }
-        }
+        Filter<MavenArtifactKey> dependencyFilter = MavenDependencyFilter.createFilter(mavenDependencies);
         Map<MavenArtifactKey, MavenArtifactVersionChange> exportVersions = new TreeMap<>();
 
         if(project.getPackaging().equals("pom")){
@@ -123,13 +130,36 @@ public class ExportVersionsMojo extends AbstractMojo {
                 }
             }
 
-            // TODO we don't add the plugins!
+            for (Plugin plugin : project.getBuildPlugins()) {
+                MavenArtifactKey pluginKey = MavenHelper.toMavenDependency(plugin);
+                if (plugin.getVersion() != null && dependencyFilter.matches(pluginKey)) {
+                    log.debug("    plugin: " + plugin);
+                    addArtifact(exportVersions, pluginKey, plugin.getVersion(), MavenScopes.PLUGIN);
+                }
+            }
+
+            // the effective dependency management includes the contents of any imported BOMs
+            DependencyManagement dependencyManagement = project.getDependencyManagement();
+            if (dependencyManagement != null) {
+                for (Dependency dependency : dependencyManagement.getDependencies()) {
+                    MavenArtifactKey dependencyKey = MavenHelper.toMavenDependency(dependency);
+                    if (dependency.getVersion() != null && dependencyFilter.matches(dependencyKey)) {
+                        log.debug("    managed dependency: " + dependency);
+                        addManagedArtifact(exportVersions, dependencyKey, dependency.getVersion());
+                    }
+                }
+            }
         }
 
         destFile.getParentFile().mkdirs();
         try {
-            MavenArtifactVersionChanges changes = new MavenArtifactVersionChanges(exportVersions.values());
-            MarkupHelper.saveYaml(changes, destFile);
+            String name = destFile.getName();
+            if (name.endsWith(".yml") || name.endsWith(".yaml")) {
+                MavenArtifactVersionChanges changes = new MavenArtifactVersionChanges(exportVersions.values());
+                MarkupHelper.saveYaml(changes, destFile);
+            } else {
+                MavenVersionsFile.write(destFile, exportVersions.values());
+            }
 
             log.info("Generated updatebot version file " + destFile);
         } catch (IOException e) {
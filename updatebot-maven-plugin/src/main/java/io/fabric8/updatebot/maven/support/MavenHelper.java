@@ -17,6 +17,7 @@ package io.fabric8.updatebot.maven.support;
 
 import io.jenkins.updatebot.model.MavenArtifactKey;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
 
 /**
@@ -26,6 +27,10 @@ public class MavenHelper {
         return new MavenArtifactKey(dependency.getGroupId(), dependency.getArtifactId());
     }
 
+    public static MavenArtifactKey toMavenDependency(Plugin plugin) {
+        return new MavenArtifactKey(plugin.getGroupId(), plugin.getArtifactId());
+    }
+
     public static MavenArtifactKey toMavenDependency(MavenProject parent) {
         return new MavenArtifactKey(parent.getGroupId(), parent.getArtifactId());
     }